@@ -0,0 +1,197 @@
+package com.shimkiv.trust.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Synthetic payloads and verification rules generator
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class BenchmarkDataGenerator {
+    public static final String XML_DESCRIPTION_XPATH =
+            "/Response/description";
+    public static final String XML_LAST_ITEM_XPATH =
+            "/Response/items/item[last()]/status";
+    public static final String JSON_DESCRIPTION_JSONPATH =
+            "$.description";
+    public static final String JSON_LAST_ITEM_JSONPATH =
+            "$.items[-1:].status";
+
+    public static final String PAYLOAD_XSD =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n" +
+            "  <xs:element name=\"Response\">\n" +
+            "    <xs:complexType>\n" +
+            "      <xs:sequence>\n" +
+            "        <xs:element name=\"description\" type=\"xs:string\" />\n" +
+            "        <xs:element name=\"items\">\n" +
+            "          <xs:complexType>\n" +
+            "            <xs:sequence>\n" +
+            "              <xs:element name=\"item\" minOccurs=\"0\" maxOccurs=\"unbounded\">\n" +
+            "                <xs:complexType>\n" +
+            "                  <xs:sequence>\n" +
+            "                    <xs:element name=\"id\" type=\"xs:int\" />\n" +
+            "                    <xs:element name=\"status\" type=\"xs:string\" />\n" +
+            "                    <xs:element name=\"amount\" type=\"xs:decimal\" />\n" +
+            "                  </xs:sequence>\n" +
+            "                </xs:complexType>\n" +
+            "              </xs:element>\n" +
+            "            </xs:sequence>\n" +
+            "          </xs:complexType>\n" +
+            "        </xs:element>\n" +
+            "      </xs:sequence>\n" +
+            "    </xs:complexType>\n" +
+            "  </xs:element>\n" +
+            "</xs:schema>";
+
+    // Prevents instantiation
+    private BenchmarkDataGenerator() {}
+
+    /**
+     * Generates XML payload of (approximately) provided size
+     *
+     * @param payloadSize Payload size in bytes
+     * @return XML payload
+     */
+    public static String generateXmlPayload(int payloadSize) {
+        StringBuilder payload =
+                new StringBuilder(
+                        payloadSize + 128).
+                        append("<Response>").
+                        append("<description>Valid response</description>").
+                        append("<items>");
+
+        for(int index = 0; payload.length() < payloadSize; index++) {
+            payload.append("<item><id>").
+                    append(index).
+                    append("</id><status>").
+                    append(index % 10 == 0 ? "PENDING" : "ACTIVE").
+                    append("</status><amount>").
+                    append(index % 100).
+                    append(".5</amount></item>");
+        }
+
+        return payload.
+                append("</items>").
+                append("</Response>").
+                toString();
+    }
+
+    /**
+     * Generates JSON payload of (approximately) provided size
+     *
+     * @param payloadSize Payload size in bytes
+     * @return JSON payload
+     */
+    public static String generateJsonPayload(int payloadSize) {
+        StringBuilder payload =
+                new StringBuilder(
+                        payloadSize + 128).
+                        append("{\"description\":\"Valid response\",").
+                        append("\"items\":[");
+
+        for(int index = 0; payload.length() < payloadSize; index++) {
+            if(index > 0) {
+                payload.append(',');
+            }
+
+            payload.append("{\"id\":").
+                    append(index).
+                    append(",\"status\":\"").
+                    append(index % 10 == 0 ? "PENDING" : "ACTIVE").
+                    append("\",\"amount\":").
+                    append(index % 100).
+                    append(".5}");
+        }
+
+        return payload.
+                append("]}").
+                toString();
+    }
+
+    /**
+     * Generates verification rules of provided verification type
+     * which reference provided amount of the test results keys
+     *
+     * @param verificationType Verification type
+     * @param rulesCount Amount of rules to generate
+     * @param keysCount Amount of test results keys to reference
+     * @return Verification rules
+     */
+    public static String generateVerificationRules(String verificationType,
+                                                   int rulesCount,
+                                                   int keysCount) {
+        StringBuilder rules =
+                new StringBuilder(verificationType).
+                        append(":  ");
+
+        for(int index = 0; index < rulesCount; index++) {
+            if(index > 0) {
+                rules.append(";  ");
+            }
+
+            rules.append("_.includes(\"${").
+                    append(generateKey(index % keysCount)).
+                    append("}\", \"Value\") && _.gt(${").
+                    append(generateKey((index + 1) % keysCount)).
+                    append("Amount}, 0)");
+        }
+
+        return rules.toString();
+    }
+
+    /**
+     * Generates verification data of provided amount of verification types
+     *
+     * @param typesCount Amount of verification types
+     * @param rulesCount Amount of rules per verification type
+     * @return Verification data
+     */
+    public static String generateVerificationData(int typesCount,
+                                                  int rulesCount) {
+        StringBuilder verificationData =
+                new StringBuilder();
+
+        for(int index = 0; index < typesCount; index++) {
+            if(index > 0) {
+                verificationData.append("|&|");
+            }
+
+            verificationData.append(
+                    generateVerificationRules(
+                            "TYPE_" + index,
+                            rulesCount,
+                            rulesCount));
+        }
+
+        return verificationData.toString();
+    }
+
+    /**
+     * Generates test results with provided amount of keys
+     *
+     * @param keysCount Amount of keys
+     * @return {@link Map} of test results
+     */
+    public static Map<String, String> generateTestResults(int keysCount) {
+        Map<String, String> testResults =
+                new HashMap<>();
+
+        for(int index = 0; index < keysCount; index++) {
+            testResults.put(
+                    generateKey(index),
+                    "  Some   Value " + index);
+            testResults.put(
+                    generateKey(index) + "Amount",
+                    String.valueOf(index + 1));
+        }
+
+        return testResults;
+    }
+
+    private static String generateKey(int index) {
+        return "Field" + index + ":";
+    }
+}
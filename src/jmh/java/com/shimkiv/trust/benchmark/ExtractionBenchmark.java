@@ -0,0 +1,54 @@
+package com.shimkiv.trust.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.shimkiv.trust.benchmark.BenchmarkDataGenerator.*;
+import static com.shimkiv.trust.evaluation.EvaluationUtils.evaluateJsonPathToString;
+import static com.shimkiv.trust.evaluation.EvaluationUtils.evaluateXPathToString;
+
+/**
+ * XPath / JSONPath extraction benchmarks
+ *
+ * @author Serhii Shymkiv
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+    // 1 KB, 100 KB, 1 MB, 10 MB
+    @Param({"1024", "102400", "1048576", "10485760"})
+    private int payloadSize;
+
+    private String xmlPayload;
+    private String jsonPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        xmlPayload =
+                generateXmlPayload(
+                        payloadSize);
+        jsonPayload =
+                generateJsonPayload(
+                        payloadSize);
+    }
+
+    @Benchmark
+    public String evaluateXPathToStringBenchmark() {
+        return evaluateXPathToString(
+                XML_LAST_ITEM_XPATH,
+                xmlPayload);
+    }
+
+    @Benchmark
+    public String evaluateJsonPathToStringBenchmark() {
+        return evaluateJsonPathToString(
+                JSON_LAST_ITEM_JSONPATH,
+                jsonPayload);
+    }
+}
@@ -0,0 +1,56 @@
+package com.shimkiv.trust.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import static com.shimkiv.trust.ValidationUtils.validateApiResponseAgainstXsd;
+import static com.shimkiv.trust.benchmark.BenchmarkDataGenerator.PAYLOAD_XSD;
+import static com.shimkiv.trust.benchmark.BenchmarkDataGenerator.generateXmlPayload;
+import static javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI;
+
+/**
+ * XSD validation benchmarks
+ *
+ * @author Serhii Shymkiv
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    // 1 KB, 100 KB, 1 MB, 10 MB
+    @Param({"1024", "102400", "1048576", "10485760"})
+    private int payloadSize;
+
+    private Schema schema;
+    private String xmlPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        schema =
+                SchemaFactory.
+                        newInstance(W3C_XML_SCHEMA_NS_URI).
+                        newSchema(
+                                new StreamSource(
+                                        new StringReader(
+                                                PAYLOAD_XSD)));
+        xmlPayload =
+                generateXmlPayload(
+                        payloadSize);
+    }
+
+    @Benchmark
+    public void validateApiResponseAgainstXsdBenchmark() throws Exception {
+        validateApiResponseAgainstXsd(
+                schema,
+                xmlPayload);
+    }
+}
@@ -0,0 +1,71 @@
+package com.shimkiv.trust.benchmark;
+
+import com.shimkiv.trust.entities.verification.VerificationEntities;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.shimkiv.trust.VerificationUtils.generateVerificationEntities;
+import static com.shimkiv.trust.VerificationUtils.verifyTestResults;
+import static com.shimkiv.trust.benchmark.BenchmarkDataGenerator.*;
+
+/**
+ * Verification rules parsing and test results verification benchmarks
+ *
+ * @author Serhii Shymkiv
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerificationBenchmark {
+    private static final String VERIFICATION_TYPE = "TYPE_0";
+
+    @Param({"1", "10", "100"})
+    private int rulesCount;
+
+    @Param({"10", "2000"})
+    private int keysCount;
+
+    private String verificationData;
+    private Map<String, String> testResults;
+    private List<String> verificationRules;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        verificationData =
+                generateVerificationData(
+                        10,
+                        rulesCount);
+        testResults =
+                generateTestResults(
+                        keysCount);
+        verificationRules =
+                generateVerificationEntities(
+                        generateVerificationRules(
+                                VERIFICATION_TYPE,
+                                rulesCount,
+                                Math.min(rulesCount, keysCount))).
+                        getVerificationEntity(
+                                VERIFICATION_TYPE).
+                        getVerificationRules();
+    }
+
+    @Benchmark
+    public VerificationEntities generateVerificationEntitiesBenchmark() {
+        return generateVerificationEntities(
+                verificationData);
+    }
+
+    @Benchmark
+    public void verifyTestResultsBenchmark() {
+        verifyTestResults(
+                testResults,
+                verificationRules);
+    }
+}
@@ -0,0 +1,175 @@
+package com.shimkiv.trust;
+
+import com.shimkiv.trust.entities.verification.VerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import com.shimkiv.trust.enums.VerificationMode;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+import static com.shimkiv.trust.VerificationUtils.generateApiResponseReport;
+import static com.shimkiv.trust.VerificationUtils.generateTestResultsVerificationReport;
+import static com.shimkiv.trust.config.TrustConfig.ASYNC_VIRTUAL_THREADS;
+
+/**
+ * Async Verification Utils
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class AsyncVerificationUtils {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    AsyncVerificationUtils.class.
+                            getName());
+
+    // Prevents instantiation
+    private AsyncVerificationUtils() {}
+
+    /**
+     * Returns the default {@link Executor} of the asynchronous verifications:
+     * virtual thread per task (if provided by the JDK) or the common pool
+     *
+     * @return {@link Executor}
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * Performs API response verification asynchronously
+     * by using the default {@link Executor}
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @return {@link CompletableFuture} of the {@link VerificationReport}
+     */
+    public static CompletableFuture<VerificationReport>
+            performApiResponseVerificationAsync(String apiResponsePayload,
+                                                String apiResponseContentType,
+                                                VerificationEntities
+                                                        verificationEntities) {
+        return performApiResponseVerificationAsync(
+                apiResponsePayload,
+                apiResponseContentType,
+                verificationEntities,
+                VerificationMode.SOFT,
+                getDefaultExecutor());
+    }
+
+    /**
+     * Performs API response verification asynchronously
+     * by using provided {@link Executor}
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationMode {@link VerificationMode}
+     * @param executor {@link Executor} to verify with
+     * @return {@link CompletableFuture} of the {@link VerificationReport}
+     */
+    public static CompletableFuture<VerificationReport>
+            performApiResponseVerificationAsync(String apiResponsePayload,
+                                                String apiResponseContentType,
+                                                VerificationEntities
+                                                        verificationEntities,
+                                                VerificationMode verificationMode,
+                                                Executor executor) {
+        LOG.info("About to verify the API response asynchronously ...");
+
+        return CompletableFuture.
+                supplyAsync(() ->
+                                generateApiResponseReport(
+                                        apiResponsePayload,
+                                        apiResponseContentType,
+                                        verificationEntities,
+                                        verificationMode),
+                        executor);
+    }
+
+    /**
+     * Performs test results verification asynchronously
+     * by using the default {@link Executor}
+     *
+     * @param verificationEntities {@link VerificationEntities}
+     * @param testResults {@link Map} of test results
+     * @param verificationType The type of verification rules
+     * @return {@link CompletableFuture} of the {@link VerificationReport}
+     */
+    public static CompletableFuture<VerificationReport>
+            performTestResultsVerificationAsync(VerificationEntities
+                                                        verificationEntities,
+                                                Map<String, String>
+                                                        testResults,
+                                                String verificationType) {
+        return performTestResultsVerificationAsync(
+                verificationEntities,
+                testResults,
+                verificationType,
+                VerificationMode.SOFT,
+                getDefaultExecutor());
+    }
+
+    /**
+     * Performs test results verification asynchronously
+     * by using provided {@link Executor}
+     *
+     * @param verificationEntities {@link VerificationEntities}
+     * @param testResults {@link Map} of test results
+     * @param verificationType The type of verification rules
+     * @param verificationMode {@link VerificationMode}
+     * @param executor {@link Executor} to verify with
+     * @return {@link CompletableFuture} of the {@link VerificationReport}
+     */
+    public static CompletableFuture<VerificationReport>
+            performTestResultsVerificationAsync(VerificationEntities
+                                                        verificationEntities,
+                                                Map<String, String>
+                                                        testResults,
+                                                String verificationType,
+                                                VerificationMode verificationMode,
+                                                Executor executor) {
+        return CompletableFuture.
+                supplyAsync(() ->
+                                generateTestResultsVerificationReport(
+                                        verificationEntities,
+                                        testResults,
+                                        verificationType,
+                                        verificationMode),
+                        executor);
+    }
+
+    /*
+     * Creates the default executor on the first use only
+     */
+    private static class DefaultExecutorHolder {
+        private static final Executor DEFAULT_EXECUTOR =
+                createDefaultExecutor();
+
+        private static Executor createDefaultExecutor() {
+            if(ASYNC_VIRTUAL_THREADS) {
+                try {
+                    Method virtualThreadExecutorFactory =
+                            Executors.class.
+                                    getMethod(
+                                            "newVirtualThreadPerTaskExecutor");
+
+                    return (Executor) virtualThreadExecutorFactory.
+                            invoke(null);
+                } catch (ReflectiveOperationException |
+                        UnsupportedOperationException e) {
+                    LOG.fine("Virtual threads are not available, " +
+                            "the common pool will be used");
+                }
+            }
+
+            return ForkJoinPool.commonPool();
+        }
+    }
+}
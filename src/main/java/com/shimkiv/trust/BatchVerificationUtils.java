@@ -0,0 +1,308 @@
+package com.shimkiv.trust;
+
+import com.shimkiv.trust.entities.batch.ApiResponseRecord;
+import com.shimkiv.trust.entities.batch.BatchVerificationReport;
+import com.shimkiv.trust.entities.verification.CompiledVerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import com.shimkiv.trust.enums.VerificationMode;
+
+import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static com.shimkiv.trust.VerificationUtils.generateApiResponseReport;
+import static com.shimkiv.trust.VerificationUtils.generateTestResultsVerificationReport;
+import static com.shimkiv.trust.config.TrustConfig.BATCH_RECORD_ERROR_MESSAGE;
+import static com.shimkiv.trust.config.TrustConfig.BATCH_VERIFICATION_PARALLELISM;
+
+/**
+ * Batch Verification Utils
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class BatchVerificationUtils {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    BatchVerificationUtils.class.
+                            getName());
+
+    // Prevents instantiation
+    private BatchVerificationUtils() {}
+
+    /**
+     * Performs API responses verification by using the common pool
+     *
+     * @param apiResponseRecords {@link Stream} of {@link ApiResponseRecord}
+     * @param verificationEntities {@link VerificationEntities}
+     * @return {@link BatchVerificationReport}
+     */
+    public static BatchVerificationReport
+            performBatchApiResponseVerification(Stream<ApiResponseRecord>
+                                                        apiResponseRecords,
+                                                VerificationEntities
+                                                        verificationEntities)
+            throws InterruptedException {
+        return performBatchApiResponseVerification(
+                apiResponseRecords::iterator,
+                verificationEntities,
+                ForkJoinPool.commonPool(),
+                BATCH_VERIFICATION_PARALLELISM);
+    }
+
+    /**
+     * Performs API responses verification by using provided {@link Executor}
+     *
+     * The parallelism of a {@link ForkJoinPool} executor is used
+     * as the max amount of records in flight, otherwise
+     * {@link com.shimkiv.trust.config.TrustConfig#BATCH_VERIFICATION_PARALLELISM}
+     *
+     * @param apiResponseRecords {@link Iterable} of {@link ApiResponseRecord}
+     * @param verificationEntities {@link VerificationEntities}
+     * @param executor {@link Executor} to verify the records with
+     * @return {@link BatchVerificationReport}
+     */
+    public static BatchVerificationReport
+            performBatchApiResponseVerification(Iterable<ApiResponseRecord>
+                                                        apiResponseRecords,
+                                                VerificationEntities
+                                                        verificationEntities,
+                                                Executor executor)
+            throws InterruptedException {
+        return performBatchApiResponseVerification(
+                apiResponseRecords,
+                verificationEntities,
+                executor,
+                getParallelism(executor));
+    }
+
+    /**
+     * Performs API responses verification by using provided {@link Executor}
+     *
+     * @param apiResponseRecords {@link Iterable} of {@link ApiResponseRecord}
+     * @param verificationEntities {@link VerificationEntities}
+     * @param executor {@link Executor} to verify the records with
+     * @param parallelism Max amount of records to verify concurrently
+     * @return {@link BatchVerificationReport}
+     */
+    public static BatchVerificationReport
+            performBatchApiResponseVerification(Iterable<ApiResponseRecord>
+                                                        apiResponseRecords,
+                                                VerificationEntities
+                                                        verificationEntities,
+                                                Executor executor,
+                                                int parallelism)
+            throws InterruptedException {
+        LOG.info("About to verify the API responses batch ...");
+
+        CompiledVerificationEntities compiledVerificationEntities =
+                CompiledVerificationEntities.
+                        of(verificationEntities);
+
+        return performBatchVerification(
+                apiResponseRecords.iterator(),
+                apiResponseRecord ->
+                        generateApiResponseReport(
+                                apiResponseRecord.
+                                        getApiResponsePayload(),
+                                apiResponseRecord.
+                                        getApiResponseContentType(),
+                                compiledVerificationEntities,
+                                VerificationMode.SOFT),
+                executor,
+                parallelism);
+    }
+
+    /**
+     * Performs test results verification by using the common pool
+     *
+     * @param testResultsRecords {@link Stream} of test results {@link Map}
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationType The type of verification rules
+     * @return {@link BatchVerificationReport}
+     */
+    public static BatchVerificationReport
+            performBatchTestResultsVerification(Stream<Map<String, String>>
+                                                        testResultsRecords,
+                                                VerificationEntities
+                                                        verificationEntities,
+                                                String verificationType)
+            throws InterruptedException {
+        return performBatchTestResultsVerification(
+                testResultsRecords::iterator,
+                verificationEntities,
+                verificationType,
+                ForkJoinPool.commonPool(),
+                BATCH_VERIFICATION_PARALLELISM);
+    }
+
+    /**
+     * Performs test results verification by using provided {@link Executor}
+     *
+     * The parallelism of a {@link ForkJoinPool} executor is used
+     * as the max amount of records in flight, otherwise
+     * {@link com.shimkiv.trust.config.TrustConfig#BATCH_VERIFICATION_PARALLELISM}
+     *
+     * @param testResultsRecords {@link Iterable} of test results {@link Map}
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationType The type of verification rules
+     * @param executor {@link Executor} to verify the records with
+     * @return {@link BatchVerificationReport}
+     */
+    public static BatchVerificationReport
+            performBatchTestResultsVerification(Iterable<Map<String, String>>
+                                                        testResultsRecords,
+                                                VerificationEntities
+                                                        verificationEntities,
+                                                String verificationType,
+                                                Executor executor)
+            throws InterruptedException {
+        return performBatchTestResultsVerification(
+                testResultsRecords,
+                verificationEntities,
+                verificationType,
+                executor,
+                getParallelism(executor));
+    }
+
+    /**
+     * Performs test results verification by using provided {@link Executor}
+     *
+     * @param testResultsRecords {@link Iterable} of test results {@link Map}
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationType The type of verification rules
+     * @param executor {@link Executor} to verify the records with
+     * @param parallelism Max amount of records to verify concurrently
+     * @return {@link BatchVerificationReport}
+     */
+    public static BatchVerificationReport
+            performBatchTestResultsVerification(Iterable<Map<String, String>>
+                                                        testResultsRecords,
+                                                VerificationEntities
+                                                        verificationEntities,
+                                                String verificationType,
+                                                Executor executor,
+                                                int parallelism)
+            throws InterruptedException {
+        LOG.info("About to verify the test results batch ...");
+
+        CompiledVerificationEntities compiledVerificationEntities =
+                CompiledVerificationEntities.
+                        of(verificationEntities);
+
+        return performBatchVerification(
+                testResultsRecords.iterator(),
+                testResults ->
+                        generateTestResultsVerificationReport(
+                                compiledVerificationEntities,
+                                testResults,
+                                verificationType,
+                                VerificationMode.SOFT),
+                executor,
+                parallelism);
+    }
+
+    /*
+     * Takes the parallelism of the ForkJoinPool executors,
+     * so the caller-supplied pools are not throttled by the global setting
+     */
+    private static int getParallelism(Executor executor) {
+        return executor instanceof ForkJoinPool ?
+                ((ForkJoinPool) executor).
+                        getParallelism() :
+                BATCH_VERIFICATION_PARALLELISM;
+    }
+
+    /*
+     * Submits the records one by one while keeping at most
+     * parallelism of them in flight,
+     * so the (possibly huge) input is never materialized
+     */
+    private static <T> BatchVerificationReport
+            performBatchVerification(Iterator<T> records,
+                                     Function<T, VerificationReport> recordVerifier,
+                                     Executor executor,
+                                     int parallelism)
+            throws InterruptedException {
+        int permits =
+                Math.max(1,
+                        parallelism);
+        Semaphore inFlight =
+                new Semaphore(
+                        permits);
+        Queue<BatchVerificationReport.RecordFailure> recordFailures =
+                new ConcurrentLinkedQueue<>();
+        long startTime =
+                System.nanoTime();
+        long recordsCount = 0;
+
+        try {
+            while(records.hasNext()) {
+                T record =
+                        records.next();
+                long recordIndex =
+                        recordsCount++;
+
+                inFlight.acquire();
+
+                try {
+                    executor.execute(() -> {
+                        try {
+                            VerificationReport verificationReport =
+                                    recordVerifier.
+                                            apply(record);
+
+                            if(!verificationReport.isPassed()) {
+                                recordFailures.add(
+                                        new BatchVerificationReport.
+                                                RecordFailure(
+                                                        recordIndex,
+                                                        verificationReport));
+                            }
+                        } catch(Throwable e) {
+                            String message =
+                                    MessageFormat.format(
+                                            BATCH_RECORD_ERROR_MESSAGE,
+                                            e);
+
+                            LOG.log(Level.WARNING,
+                                    message,
+                                    e);
+
+                            recordFailures.add(
+                                    new BatchVerificationReport.
+                                            RecordFailure(
+                                                    recordIndex,
+                                                    message));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch(RejectedExecutionException e) {
+                    inFlight.release();
+
+                    throw e;
+                }
+            }
+        } finally {
+            inFlight.acquireUninterruptibly(
+                    permits);
+        }
+
+        return new BatchVerificationReport(
+                recordsCount,
+                System.nanoTime() - startTime,
+                recordFailures);
+    }
+}
@@ -0,0 +1,1131 @@
+package com.shimkiv.trust;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.ParseContext;
+import com.shimkiv.trust.common.CacheStats;
+import com.shimkiv.trust.common.SampledLruCache;
+import com.shimkiv.trust.entities.verification.CompiledVerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import com.shimkiv.trust.enums.VerificationMode;
+import com.shimkiv.trust.enums.VerificationPhase;
+import com.shimkiv.trust.enums.VerificationStatus;
+import com.shimkiv.trust.evaluation.EvaluationResultsCache;
+import com.shimkiv.trust.evaluation.ExtractionSession;
+import com.shimkiv.trust.evaluation.RuleTemplate;
+import com.shimkiv.trust.evaluation.ScriptEnginePool;
+import com.shimkiv.trust.evaluation.expression.Expression;
+import com.shimkiv.trust.evaluation.expression.ExpressionUtils;
+import com.shimkiv.trust.evaluation.expression.UnsupportedExpressionException;
+import com.shimkiv.trust.jfr.JfrUtils;
+import com.shimkiv.trust.metrics.MetricsUtils;
+import com.shimkiv.trust.metrics.VerificationListener;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.shimkiv.trust.common.CommonUtils.parseBoolean;
+import static com.shimkiv.trust.config.TrustConfig.*;
+import static com.shimkiv.trust.enums.VerificationType.API_RESPONSE;
+
+/**
+ * TRUST Engine
+ *
+ * Self-contained verifier which owns its configuration
+ * (delimiters, script set, evaluation and JSON settings), script engines pool,
+ * caches and {@link VerificationListener}s, so the differently configured engines
+ * may run side by side in the same JVM without sharing any of them
+ *
+ * The static utilities (e.g. {@link VerificationUtils}) are the facades
+ * over the {@link #getDefault()} engine configured by the system properties
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class TrustEngine {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    TrustEngine.class.
+                            getName());
+
+    private final Pattern verificationTypesPattern;
+    private final Pattern verificationTypePattern;
+    private final Pattern verificationRulesPattern;
+    private final boolean nativeEvaluation;
+    private final boolean bindPlaceholders;
+    private final VerificationListener[] listeners;
+    // The default engine reports to the listeners registered in the MetricsUtils
+    private final boolean registeredListeners;
+    private final Configuration jsonConfiguration;
+    private final ParseContext jsonParseContext;
+
+    private final ScriptEnginePool scriptEngines;
+    private final EvaluationResultsCache evaluationResults;
+    private final SampledLruCache<String, RuleTemplate> ruleTemplates;
+    private final SampledLruCache<String, CompiledVerificationEntities> compiledVerificationEntities;
+    private final SampledLruCache<String, Expression> parsedExpressions;
+
+    private TrustEngine(Builder builder) {
+        this.verificationTypesPattern =
+                Pattern.compile(
+                        builder.verificationTypesDelimiter);
+        this.verificationTypePattern =
+                Pattern.compile(
+                        builder.verificationTypeDelimiter);
+        this.verificationRulesPattern =
+                Pattern.compile(
+                        builder.verificationRulesDelimiter);
+        this.nativeEvaluation = builder.nativeEvaluation;
+        this.bindPlaceholders = builder.bindPlaceholders;
+        this.listeners =
+                builder.listeners.
+                        toArray(new VerificationListener[0]);
+        this.registeredListeners = builder.registeredListeners;
+        this.jsonConfiguration = builder.jsonConfiguration;
+        this.jsonParseContext =
+                ExtractionSession.
+                        newJsonParseContext(
+                                builder.jsonConfiguration);
+        this.scriptEngines =
+                new ScriptEnginePool(
+                        builder.scriptEngineName,
+                        new ArrayList<>(
+                                builder.scriptsToLoad),
+                        builder.scriptEnginesPoolSize,
+                        builder.compiledRulesCacheSize);
+        this.evaluationResults =
+                new EvaluationResultsCache(
+                        builder.evaluationResultsCacheSize,
+                        builder.evaluationResultsCacheWeight,
+                        builder.nonDeterministicRulesPattern);
+        this.ruleTemplates =
+                new SampledLruCache<>(
+                        "ruleTemplates",
+                        builder.compiledRulesCacheSize);
+        this.compiledVerificationEntities =
+                new SampledLruCache<>(
+                        "verificationEntities",
+                        builder.verificationEntitiesCacheSize);
+        this.parsedExpressions =
+                new SampledLruCache<>(
+                        "nativeExpressions",
+                        builder.compiledRulesCacheSize);
+    }
+
+    /**
+     * Returns the new {@link Builder}
+     * with the defaults taken from the {@link com.shimkiv.trust.config.TrustConfig}
+     *
+     * @return {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the default engine (configured by the system properties)
+     * used by the static utilities
+     *
+     * @return {@link TrustEngine}
+     */
+    public static TrustEngine getDefault() {
+        return DefaultEngineHolder.DEFAULT_ENGINE;
+    }
+
+    /**
+     * Creates the script engine and loads the scripts in background,
+     * so the first evaluation does not have to wait for it
+     *
+     * @return {@link CompletableFuture} of the warm-up
+     */
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.
+                runAsync(
+                        scriptEngines::prestartEngine);
+    }
+
+    /**
+     * Generates {@link VerificationEntities} by provided data
+     *
+     * @param verificationData Verification data to parse
+     * @return {@link VerificationEntities}
+     */
+    public VerificationEntities generateVerificationEntities(String verificationData) {
+        VerificationEntities verificationEntities =
+                new VerificationEntities();
+
+        if(StringUtils.
+                isNotBlank(
+                        verificationData)) {
+            for(String verificationType :
+                    verificationTypesPattern.
+                            split(verificationData.
+                                    trim())) {
+                if(StringUtils.
+                        isNotBlank(
+                                verificationType)) {
+                    updateVerificationEntities(
+                            verificationEntities,
+                            verificationType);
+                }
+            }
+        }
+
+        return verificationEntities;
+    }
+
+    /**
+     * Generates {@link CompiledVerificationEntities} by provided data
+     * or takes the already compiled ones (for the same data) from the cache
+     *
+     * @param verificationData Verification data to parse
+     * @return {@link CompiledVerificationEntities}
+     */
+    public CompiledVerificationEntities compileVerificationEntities(String
+                                                                            verificationData) {
+        return withListeners(() -> {
+            String cacheKey =
+                    StringUtils.
+                            defaultString(
+                                    verificationData);
+            CompiledVerificationEntities compiledEntities =
+                    compiledVerificationEntities.
+                            get(cacheKey);
+
+            if(compiledEntities == null) {
+                compiledEntities =
+                        new CompiledVerificationEntities(
+                                generateVerificationEntities(
+                                        verificationData));
+
+                compiledVerificationEntities.
+                        put(cacheKey,
+                                compiledEntities);
+            }
+
+            return compiledEntities;
+        });
+    }
+
+    /**
+     * Performs test results verification
+     *
+     * @param verificationEntities {@link VerificationEntities}
+     * @param testResults {@link Map} of test results
+     * @param verificationType The type of verification rules
+     */
+    public void performTestResultsVerification(VerificationEntities
+                                                       verificationEntities,
+                                               Map<String, String>
+                                                       testResults,
+                                               String verificationType) {
+        VerificationUtils.
+                assertVerificationReport(
+                        generateTestResultsVerificationReport(
+                                verificationEntities,
+                                testResults,
+                                verificationType,
+                                VerificationMode.SOFT));
+    }
+
+    /**
+     * Generates test results {@link VerificationReport}
+     *
+     * @param verificationEntities {@link VerificationEntities}
+     * @param testResults {@link Map} of test results
+     * @param verificationType The type of verification rules
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public VerificationReport
+            generateTestResultsVerificationReport(VerificationEntities
+                                                          verificationEntities,
+                                                  Map<String, String>
+                                                          testResults,
+                                                  String verificationType,
+                                                  VerificationMode verificationMode) {
+        return generateVerificationReport(
+                testResults,
+                getVerificationRules(
+                        verificationEntities,
+                        verificationType),
+                null,
+                ruleTemplate -> {},
+                verificationMode,
+                verificationType);
+    }
+
+    /**
+     * Performs API response verification
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     */
+    public void performApiResponseVerification(String apiResponsePayload,
+                                               String apiResponseContentType,
+                                               VerificationEntities
+                                                       verificationEntities) {
+        VerificationUtils.
+                assertVerificationReport(
+                        generateApiResponseVerificationReport(
+                                apiResponsePayload,
+                                apiResponseContentType,
+                                verificationEntities,
+                                VerificationMode.SOFT));
+    }
+
+    /**
+     * Generates API response {@link VerificationReport}
+     *
+     * The API response nodes are extracted rule by rule,
+     * so in the {@link VerificationMode#FAIL_FAST} mode
+     * nothing is extracted for the rules after the failed one
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public VerificationReport
+            generateApiResponseVerificationReport(String apiResponsePayload,
+                                                  String apiResponseContentType,
+                                                  VerificationEntities
+                                                          verificationEntities,
+                                                  VerificationMode verificationMode) {
+        LOG.info("About to verify the API response ...");
+
+        return generateApiResponseReport(
+                apiResponsePayload,
+                apiResponseContentType,
+                verificationEntities,
+                verificationMode);
+    }
+
+    /**
+     * Generates API response {@link VerificationReport}
+     *
+     * @param apiResponsePayload API response payload {@link ByteBuffer}
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public VerificationReport
+            generateApiResponseVerificationReport(ByteBuffer apiResponsePayload,
+                                                  String apiResponseContentType,
+                                                  VerificationEntities
+                                                          verificationEntities,
+                                                  VerificationMode verificationMode) {
+        LOG.info("About to verify the API response ...");
+
+        return generateApiResponseReport(
+                () -> ExtractionSession.
+                        forApiResponse(
+                                apiResponsePayload,
+                                apiResponseContentType,
+                                jsonParseContext),
+                verificationEntities,
+                verificationMode);
+    }
+
+    /**
+     * Generates API response {@link VerificationReport}
+     *
+     * @param apiResponsePayload API response payload {@link InputStream} (the stream is not closed)
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public VerificationReport
+            generateApiResponseVerificationReport(InputStream apiResponsePayload,
+                                                  String apiResponseContentType,
+                                                  VerificationEntities
+                                                          verificationEntities,
+                                                  VerificationMode verificationMode) {
+        LOG.info("About to verify the API response ...");
+
+        return generateApiResponseReport(
+                () -> ExtractionSession.
+                        forApiResponse(
+                                apiResponsePayload,
+                                apiResponseContentType,
+                                jsonParseContext),
+                verificationEntities,
+                verificationMode);
+    }
+
+    /**
+     * Performs test results verification
+     *
+     * @param testResults {@link Map} of test results
+     * @param evalExpressions {@link List} of evaluation expressions
+     */
+    public void verifyTestResults(Map<String, String>
+                                          testResults,
+                                  List<String>
+                                          evalExpressions) {
+        VerificationUtils.
+                assertVerificationReport(
+                        generateVerificationReport(
+                                testResults,
+                                evalExpressions,
+                                VerificationMode.SOFT));
+    }
+
+    /**
+     * Generates test results {@link VerificationReport}
+     *
+     * @param testResults {@link Map} of test results
+     * @param evalExpressions {@link List} of evaluation expressions
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public VerificationReport generateVerificationReport(Map<String, String>
+                                                                 testResults,
+                                                         List<String>
+                                                                 evalExpressions,
+                                                         VerificationMode
+                                                                 verificationMode) {
+        return generateVerificationReport(
+                testResults,
+                evalExpressions,
+                null,
+                ruleTemplate -> {},
+                verificationMode,
+                null);
+    }
+
+    /**
+     * Evaluates provided JS expression into the {@link Boolean}
+     * with provided variables bound for this evaluation only
+     *
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of variables to bind
+     * @return Evaluation result
+     */
+    public boolean evaluateJsToBoolean(String evalExpression,
+                                       Map<String, Object> variables) {
+        return evaluateJsToBoolean(
+                evalExpression,
+                variables,
+                null,
+                evalExpression);
+    }
+
+    /**
+     * Evaluates provided JS expression into the {@link Boolean}
+     * with provided variables bound for this evaluation only
+     *
+     * The verification type is used for the diagnostics only
+     * (e.g. the JFR events), the results of the deterministic verification rules
+     * may be memoized (see the {@link Builder#evaluationResultsCacheSize(int)})
+     *
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of variables to bind
+     * @param verificationType The type of verification rule
+     * @param verificationRule Verification rule (before the substitution)
+     * @return Evaluation result
+     */
+    public boolean evaluateJsToBoolean(String evalExpression,
+                                       Map<String, Object> variables,
+                                       String verificationType,
+                                       String verificationRule) {
+        return withListeners(() -> {
+            long startTime =
+                    MetricsUtils.startTime();
+            Object jfrEvent =
+                    JfrUtils.beginRuleEvaluation();
+            boolean result = false;
+
+            try {
+                result = evaluationResults.
+                        evaluate(
+                                verificationRule,
+                                evalExpression,
+                                variables,
+                                () -> evaluateToBoolean(
+                                        evalExpression,
+                                        variables));
+
+                return result;
+            } finally {
+                MetricsUtils.
+                        firePhaseCompleted(
+                                VerificationPhase.EVALUATION,
+                                startTime);
+                JfrUtils.
+                        commitRuleEvaluation(
+                                jfrEvent,
+                                verificationType,
+                                verificationRule,
+                                result ?
+                                        VerificationStatus.PASSED.name() :
+                                        VerificationStatus.FAILED.name());
+            }
+        });
+    }
+
+    /**
+     * Returns the JSONPath {@link Configuration} of the JSON API responses
+     *
+     * @return JSONPath {@link Configuration}
+     */
+    public Configuration getJsonConfiguration() {
+        return jsonConfiguration;
+    }
+
+    /**
+     * Returns the compiled verification rules cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getCompiledRulesCacheStats() {
+        return scriptEngines.
+                getCompiledRulesCacheStats();
+    }
+
+    /**
+     * Removes all of the compiled verification rules from the cache
+     */
+    public void clearCompiledRulesCache() {
+        scriptEngines.
+                clearCompiledRulesCache();
+    }
+
+    /**
+     * Returns the memoized evaluation results cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getEvaluationResultsCacheStats() {
+        return evaluationResults.
+                getStats();
+    }
+
+    /**
+     * Removes all of the memoized evaluation results from the cache
+     */
+    public void clearEvaluationResultsCache() {
+        evaluationResults.clear();
+    }
+
+    /**
+     * Returns the compiled verification entities cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getCompiledVerificationEntitiesCacheStats() {
+        return compiledVerificationEntities.
+                getStats();
+    }
+
+    /*
+     * Returns the distinct keys of the API response placeholders/templates
+     * (the escaped ones are not the keys, the aggregate ones
+     * are evaluated by the extraction session natively)
+     */
+    List<String> getApiResponseKeys(VerificationEntities verificationEntities) {
+        if(verificationEntities instanceof CompiledVerificationEntities) {
+            CompiledVerificationEntities.CompiledVerificationEntity compiledEntity =
+                    ((CompiledVerificationEntities) verificationEntities).
+                            getVerificationEntity(
+                                    API_RESPONSE.
+                                            name());
+
+            return compiledEntity != null ?
+                    compiledEntity.
+                            getKeys() :
+                    Collections.emptyList();
+        }
+
+        return getKeys(
+                getVerificationRules(
+                        verificationEntities,
+                        API_RESPONSE.
+                                name()));
+    }
+
+    /*
+     * Generates API response verification report without the per-call logging
+     * (e.g. for the batch verification)
+     */
+    VerificationReport generateApiResponseReport(String apiResponsePayload,
+                                                 String apiResponseContentType,
+                                                 VerificationEntities
+                                                         verificationEntities,
+                                                 VerificationMode
+                                                         verificationMode) {
+        return generateApiResponseReport(
+                () -> ExtractionSession.
+                        forApiResponse(
+                                apiResponsePayload,
+                                apiResponseContentType,
+                                jsonParseContext),
+                verificationEntities,
+                verificationMode);
+    }
+
+    VerificationReport
+            generateApiResponseReport(Supplier<ExtractionSession> extractionSessionSupplier,
+                                      VerificationEntities verificationEntities,
+                                      VerificationMode verificationMode) {
+        Map<String, String> testResults =
+                new HashMap<>();
+        Map<String, Object> typedResults =
+                new HashMap<>();
+        List<String> verificationRules =
+                getVerificationRules(
+                        verificationEntities,
+                        API_RESPONSE.
+                                name());
+
+        return generateVerificationReport(
+                testResults,
+                verificationRules,
+                typedResults,
+                new ApiTestResultsExtractor(
+                        extractionSessionSupplier,
+                        verificationRules,
+                        testResults,
+                        typedResults),
+                verificationMode,
+                API_RESPONSE.
+                        name());
+    }
+
+    private VerificationReport
+            generateVerificationReport(Map<String, String> testResults,
+                                       List<String> evalExpressions,
+                                       Map<String, Object> typedResults,
+                                       Consumer<RuleTemplate> testResultsResolver,
+                                       VerificationMode verificationMode,
+                                       String verificationType) {
+        return withListeners(() -> {
+            VerificationReport verificationReport =
+                    new VerificationReport();
+            Map<String, String> normalizedValues =
+                    new HashMap<>();
+            StringBuilder buffer =
+                    new StringBuilder();
+            boolean failed = false;
+
+            for(String evalExpression : evalExpressions) {
+                if(failed &&
+                        verificationMode ==
+                                VerificationMode.FAIL_FAST) {
+                    verificationReport.
+                            addRuleResult(
+                                    new VerificationReport.RuleResult(
+                                            evalExpression,
+                                            VerificationStatus.SKIPPED,
+                                            0,
+                                            null));
+
+                    continue;
+                }
+
+                long startTime =
+                        System.nanoTime();
+                RuleTemplate ruleTemplate =
+                        RuleTemplate.of(
+                                evalExpression,
+                                ruleTemplates);
+                boolean passed;
+                Supplier<String> descriptionSupplier;
+
+                testResultsResolver.
+                        accept(ruleTemplate);
+
+                if(bindPlaceholders) {
+                    long substitutionStartTime =
+                            MetricsUtils.startTime();
+                    Map<String, Object> variables =
+                            ruleTemplate.bind(
+                                    testResults,
+                                    normalizedValues,
+                                    typedResults);
+
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.SUBSTITUTION,
+                                    substitutionStartTime);
+
+                    if(variables == null) {
+                        // The rule can not be evaluated without the unresolved value
+                        String unresolvedKey =
+                                ruleTemplate.
+                                        getUnresolvedKey(
+                                                testResults,
+                                                normalizedValues,
+                                                typedResults);
+
+                        passed = false;
+                        descriptionSupplier = () ->
+                                MessageFormat.format(
+                                        UNRESOLVED_PLACEHOLDER_MESSAGE,
+                                        unresolvedKey);
+                    } else {
+                        passed = evaluateJsToBoolean(
+                                ruleTemplate.getScript(),
+                                variables,
+                                verificationType,
+                                evalExpression);
+                        descriptionSupplier = () ->
+                                ruleTemplate.substitute(
+                                        testResults,
+                                        normalizedValues,
+                                        new StringBuilder());
+                    }
+                } else {
+                    long substitutionStartTime =
+                            MetricsUtils.startTime();
+                    String updatedEvalExpression =
+                            ruleTemplate.substitute(
+                                    testResults,
+                                    normalizedValues,
+                                    buffer);
+
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.SUBSTITUTION,
+                                    substitutionStartTime);
+
+                    passed = evaluateJsToBoolean(
+                            updatedEvalExpression,
+                            new HashMap<>(),
+                            verificationType,
+                            evalExpression);
+                    descriptionSupplier = () ->
+                            updatedEvalExpression;
+                }
+
+                verificationReport.
+                        addRuleResult(
+                                new VerificationReport.RuleResult(
+                                        evalExpression,
+                                        passed ?
+                                                VerificationStatus.PASSED :
+                                                VerificationStatus.FAILED,
+                                        System.nanoTime() - startTime,
+                                        descriptionSupplier));
+                failed |= !passed;
+            }
+
+            return verificationReport;
+        });
+    }
+
+    /*
+     * Returns null if evaluation fails
+     */
+    private Boolean evaluateToBoolean(String evalExpression,
+                                      Map<String, Object> variables) {
+        if(nativeEvaluation &&
+                variables != null) {
+            try {
+                return ExpressionUtils.
+                        evaluateToBoolean(
+                                evalExpression,
+                                variables,
+                                parsedExpressions);
+            } catch (UnsupportedExpressionException e) {
+                LOG.finest(e.getMessage());
+            }
+        }
+
+        try {
+            return parseBoolean(
+                    scriptEngines.
+                            eval(evalExpression.
+                                            endsWith(COLON_MARK) ?
+                                            evalExpression :
+                                            evalExpression +
+                                                    COLON_MARK,
+                                    variables != null ?
+                                            variables :
+                                            new HashMap<>()));
+        } catch (Exception e) {
+            LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
+
+            if(MetricsUtils.isEnabled()) {
+                MetricsUtils.
+                        fireEvaluationError(
+                                evalExpression,
+                                e);
+            }
+        }
+
+        return null;
+    }
+
+    private List<String> getKeys(List<String> verificationRules) {
+        return verificationRules.
+                stream().
+                flatMap(verificationRule ->
+                        RuleTemplate.
+                                of(verificationRule,
+                                        ruleTemplates).
+                                getKeys().
+                                stream()).
+                distinct().
+                collect(Collectors.toList());
+    }
+
+    /*
+     * Runs provided operation with the listeners of this engine
+     * being the ones of the current thread scope
+     * (the listener-less engine hides the ones of the enclosing engine
+     * and the registered ones)
+     */
+    private <T> T withListeners(Supplier<T> operation) {
+        VerificationListener[] engineListeners =
+                registeredListeners ?
+                        MetricsUtils.getListeners() :
+                        listeners;
+
+        if(engineListeners.length == 0 &&
+                !MetricsUtils.isEnabled()) {
+            return operation.get();
+        }
+
+        VerificationListener[] enclosingListeners =
+                MetricsUtils.
+                        enterScope(engineListeners);
+
+        try {
+            return operation.get();
+        } finally {
+            MetricsUtils.
+                    exitScope(enclosingListeners);
+        }
+    }
+
+    private static List<String> getVerificationRules(VerificationEntities
+                                                             verificationEntities,
+                                                     String verificationType) {
+        if(verificationEntities != null) {
+            VerificationEntities.VerificationEntity verificationEntity =
+                    verificationEntities.
+                            getVerificationEntity(
+                                    verificationType);
+
+            if(verificationEntity != null) {
+                return verificationEntity.
+                        getVerificationRules();
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    private void updateVerificationEntities(VerificationEntities
+                                                    verificationEntities,
+                                            String verificationType) {
+        VerificationEntities.VerificationEntity verificationEntity =
+                generateVerificationEntity(
+                        verificationTypePattern.
+                                split(verificationType.
+                                        trim()));
+
+        if(verificationEntity != null) {
+            verificationEntities.
+                    addVerificationEntity(
+                            verificationEntity);
+        }
+    }
+
+    private VerificationEntities.VerificationEntity
+            generateVerificationEntity(String[] verificationRules) {
+        if(verificationRules != null &&
+                verificationRules.length == 2 &&
+                StringUtils.
+                        isNoneBlank(
+                                verificationRules[FIRST_ELEMENT],
+                                verificationRules[SECOND_ELEMENT])) {
+            VerificationEntities.VerificationEntity verificationEntity =
+                    new VerificationEntities.
+                            VerificationEntity().
+                            setVerificationType(
+                                    verificationRules[FIRST_ELEMENT]);
+
+            for(String verificationRule :
+                    verificationRulesPattern.
+                            split(verificationRules[SECOND_ELEMENT].
+                                    trim())) {
+                verificationEntity.
+                        addVerificationRule(
+                                verificationRule.
+                                        trim());
+            }
+
+            return verificationEntity;
+        }
+
+        return null;
+    }
+
+    /*
+     * Lazily initialized, so the system properties may be set
+     * right before the first verification
+     */
+    private static class DefaultEngineHolder {
+        private static final TrustEngine DEFAULT_ENGINE =
+                builder().
+                        registeredListeners().
+                        build();
+    }
+
+    /*
+     * Extracts the API response nodes referenced by the verification rule
+     * right before its evaluation (the payload is parsed on the first need)
+     */
+    private class ApiTestResultsExtractor implements Consumer<RuleTemplate> {
+        private final Supplier<ExtractionSession> extractionSessionSupplier;
+        private final List<String> verificationRules;
+        private final Map<String, String> testResults;
+        private final Map<String, Object> typedResults;
+        private ExtractionSession extractionSession;
+
+        ApiTestResultsExtractor(Supplier<ExtractionSession> extractionSessionSupplier,
+                                List<String> verificationRules,
+                                Map<String, String> testResults,
+                                Map<String, Object> typedResults) {
+            this.extractionSessionSupplier = extractionSessionSupplier;
+            this.verificationRules = verificationRules;
+            this.testResults = testResults;
+            this.typedResults = typedResults;
+        }
+
+        @Override
+        public void accept(RuleTemplate ruleTemplate) {
+            for(String key : ruleTemplate.getKeys()) {
+                if(!testResults.containsKey(key)) {
+                    if(extractionSession == null) {
+                        extractionSession =
+                                extractionSessionSupplier.get();
+
+                        // All keys of the rules set may be streamed in a single pass
+                        extractionSession.
+                                prefetch(getKeys(
+                                        verificationRules));
+                    }
+
+                    Object typedResult =
+                            extractionSession.
+                                    evaluateToObject(key);
+
+                    typedResults.put(
+                            key,
+                            typedResult);
+                    testResults.put(
+                            key,
+                            String.valueOf(
+                                    typedResult));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link TrustEngine} Builder
+     *
+     * Each setting defaults to the corresponding
+     * {@link com.shimkiv.trust.config.TrustConfig} one
+     */
+    public static class Builder {
+        private String scriptEngineName =
+                SCRIPT_ENGINE_NAME;
+        private List<String> scriptsToLoad =
+                SCRIPTS_TO_LOAD_URLS;
+        private String verificationTypesDelimiter =
+                VERIFICATION_TYPES_DELIMITER;
+        private String verificationTypeDelimiter =
+                VERIFICATION_TYPE_DELIMITER;
+        private String verificationRulesDelimiter =
+                VERIFICATION_RULES_DELIMITER;
+        private int scriptEnginesPoolSize =
+                SCRIPT_ENGINES_POOL_SIZE;
+        private int compiledRulesCacheSize =
+                COMPILED_RULES_CACHE_SIZE;
+        private int verificationEntitiesCacheSize =
+                VERIFICATION_ENTITIES_CACHE_SIZE;
+        private boolean nativeEvaluation =
+                NATIVE_EVALUATION;
+        private boolean bindPlaceholders =
+                BIND_PLACEHOLDERS;
+        private int evaluationResultsCacheSize =
+                EVALUATION_RESULTS_CACHE_SIZE;
+        private long evaluationResultsCacheWeight =
+                EVALUATION_RESULTS_CACHE_WEIGHT;
+        private String nonDeterministicRulesPattern =
+                NON_DETERMINISTIC_RULES_PATTERN;
+        private Configuration jsonConfiguration =
+                ExtractionSession.
+                        getDefaultJsonConfiguration();
+        private final List<VerificationListener> listeners =
+                new ArrayList<>();
+        private boolean registeredListeners;
+
+        private Builder() {}
+
+        public Builder scriptEngineName(String scriptEngineName) {
+            this.scriptEngineName = scriptEngineName;
+            return this;
+        }
+
+        /**
+         * Sets the URLs of scripts to load
+         * (the "classpath:" prefixed ones are loaded from the classpath resources)
+         *
+         * @param scriptsToLoad {@link List} of script URLs
+         * @return {@link Builder}
+         */
+        public Builder scriptsToLoad(List<String> scriptsToLoad) {
+            this.scriptsToLoad =
+                    scriptsToLoad != null ?
+                            scriptsToLoad :
+                            Collections.emptyList();
+            return this;
+        }
+
+        public Builder verificationTypesDelimiter(String verificationTypesDelimiter) {
+            this.verificationTypesDelimiter = verificationTypesDelimiter;
+            return this;
+        }
+
+        public Builder verificationTypeDelimiter(String verificationTypeDelimiter) {
+            this.verificationTypeDelimiter = verificationTypeDelimiter;
+            return this;
+        }
+
+        public Builder verificationRulesDelimiter(String verificationRulesDelimiter) {
+            this.verificationRulesDelimiter = verificationRulesDelimiter;
+            return this;
+        }
+
+        public Builder scriptEnginesPoolSize(int scriptEnginesPoolSize) {
+            this.scriptEnginesPoolSize = scriptEnginesPoolSize;
+            return this;
+        }
+
+        public Builder compiledRulesCacheSize(int compiledRulesCacheSize) {
+            this.compiledRulesCacheSize = compiledRulesCacheSize;
+            return this;
+        }
+
+        public Builder verificationEntitiesCacheSize(int verificationEntitiesCacheSize) {
+            this.verificationEntitiesCacheSize = verificationEntitiesCacheSize;
+            return this;
+        }
+
+        public Builder nativeEvaluation(boolean nativeEvaluation) {
+            this.nativeEvaluation = nativeEvaluation;
+            return this;
+        }
+
+        public Builder bindPlaceholders(boolean bindPlaceholders) {
+            this.bindPlaceholders = bindPlaceholders;
+            return this;
+        }
+
+        public Builder evaluationResultsCacheSize(int evaluationResultsCacheSize) {
+            this.evaluationResultsCacheSize = evaluationResultsCacheSize;
+            return this;
+        }
+
+        public Builder evaluationResultsCacheWeight(long evaluationResultsCacheWeight) {
+            this.evaluationResultsCacheWeight = evaluationResultsCacheWeight;
+            return this;
+        }
+
+        public Builder nonDeterministicRulesPattern(String nonDeterministicRulesPattern) {
+            this.nonDeterministicRulesPattern = nonDeterministicRulesPattern;
+            return this;
+        }
+
+        /**
+         * Sets the JSONPath {@link Configuration} of the JSON API responses
+         * (e.g. the {@link com.jayway.jsonpath.spi.json.JsonProvider}
+         * with the reusable object mapper), the configured providers if not set
+         *
+         * @param jsonConfiguration JSONPath {@link Configuration}
+         * @return {@link Builder}
+         */
+        public Builder jsonConfiguration(Configuration jsonConfiguration) {
+            this.jsonConfiguration =
+                    jsonConfiguration != null ?
+                            jsonConfiguration :
+                            ExtractionSession.
+                                    getDefaultJsonConfiguration();
+            return this;
+        }
+
+        /**
+         * Registers provided {@link VerificationListener}
+         * which is notified about the verifications of this engine only
+         *
+         * @param verificationListener {@link VerificationListener}
+         * @return {@link Builder}
+         */
+        public Builder addVerificationListener(VerificationListener verificationListener) {
+            if(verificationListener != null) {
+                listeners.add(
+                        verificationListener);
+            }
+
+            return this;
+        }
+
+        /*
+         * Makes the engine report to the listeners registered in the MetricsUtils
+         * instead of its own ones (the default engine)
+         */
+        private Builder registeredListeners() {
+            this.registeredListeners = true;
+            return this;
+        }
+
+        /**
+         * Builds the {@link TrustEngine}
+         *
+         * @return {@link TrustEngine}
+         * @throws IllegalArgumentException if the configuration is invalid
+         */
+        public TrustEngine build() {
+            validate(StringUtils.
+                            isNotBlank(
+                                    scriptEngineName),
+                    "script engine name is blank");
+            validate(StringUtils.
+                            isNoneEmpty(
+                                    verificationTypesDelimiter,
+                                    verificationTypeDelimiter,
+                                    verificationRulesDelimiter),
+                    "verification delimiters must not be empty");
+
+            return new TrustEngine(this);
+        }
+
+        private static void validate(boolean valid,
+                                     String reason) {
+            if(!valid) {
+                throw new IllegalArgumentException(
+                        MessageFormat.format(
+                                TRUST_ENGINE_CONFIG_ERROR_MESSAGE,
+                                reason));
+            }
+        }
+    }
+}
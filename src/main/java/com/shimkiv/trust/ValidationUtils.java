@@ -1,17 +1,45 @@
 package com.shimkiv.trust;
 
+import com.shimkiv.trust.common.ByteBufferInputStream;
+import com.shimkiv.trust.common.ObjectPool;
+import com.shimkiv.trust.common.SampledLruCache;
+import com.shimkiv.trust.enums.VerificationPhase;
+import com.shimkiv.trust.evaluation.ExtractionSession;
+import com.shimkiv.trust.jfr.JfrUtils;
+import com.shimkiv.trust.metrics.MetricsUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
 import java.util.logging.Logger;
 
+import static com.shimkiv.trust.config.TrustConfig.XML_POOL_SIZE;
+
 /**
  * Validation Utils
  *
@@ -24,6 +52,34 @@ public class ValidationUtils {
                     ValidationUtils.class.
                             getName());
 
+    private static final String VALID_OUTCOME = "VALID";
+    private static final String INVALID_OUTCOME = "INVALID";
+    private static final String VALIDATION_ERROR_OUTCOME = "ERROR";
+    // Max amount of the schemas to keep the pooled validators of
+    private static final int VALIDATED_SCHEMAS_CACHE_SIZE = 100;
+
+    /*
+     * Parsers and validators are not thread-safe,
+     * so they are pooled and shared by all of the threads,
+     * the factories are guarded by their own locks
+     */
+    private static final SAXParserFactory SAX_PARSER_FACTORY =
+            newSaxParserFactory();
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY =
+            DocumentBuilderFactory.
+                    newInstance();
+    private static final SampledLruCache<Schema, ObjectPool<Validator>> VALIDATORS =
+            new SampledLruCache<>(
+                    VALIDATED_SCHEMAS_CACHE_SIZE);
+    private static final ObjectPool<XMLReader> XML_READERS =
+            new ObjectPool<>(
+                    XML_POOL_SIZE,
+                    ValidationUtils::newXmlReader);
+    private static final ObjectPool<DocumentBuilder> DOCUMENT_BUILDERS =
+            new ObjectPool<>(
+                    XML_POOL_SIZE,
+                    ValidationUtils::newDocumentBuilder);
+
     // Prevents instantiation
     private ValidationUtils() {}
 
@@ -39,22 +95,416 @@ public class ValidationUtils {
         if(StringUtils.
                 isNotBlank(
                         xmlApiResponsePayload)) {
-            LOG.info("About to validate the API response against the XSD Schema ...");
-
-            DocumentBuilderFactory documentBuilderFactory =
-                    DocumentBuilderFactory.
-                            newInstance();
-            documentBuilderFactory.
-                    setNamespaceAware(true);
-
-            schema.newValidator().
-                    validate(
-                            new DOMSource(
-                                    documentBuilderFactory.
-                                            newDocumentBuilder().
-                                            parse(new InputSource(
-                                                    new StringReader(
-                                                            xmlApiResponsePayload)))));
+            validate(
+                    schema,
+                    new StreamSource(
+                            new StringReader(
+                                    xmlApiResponsePayload)),
+                    xmlApiResponsePayload.length());
+        }
+    }
+
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload XML API response payload
+     */
+    public static void validateApiResponseAgainstXsd(Schema schema,
+                                                     byte[] xmlApiResponsePayload)
+            throws SAXException, IOException {
+        if(xmlApiResponsePayload != null &&
+                xmlApiResponsePayload.length > 0) {
+            validate(
+                    schema,
+                    new StreamSource(
+                            new ByteArrayInputStream(
+                                    xmlApiResponsePayload)),
+                    xmlApiResponsePayload.length);
+        }
+    }
+
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload XML API response payload {@link ByteBuffer}
+     * (e.g. the memory-mapped file)
+     */
+    public static void validateApiResponseAgainstXsd(Schema schema,
+                                                     ByteBuffer xmlApiResponsePayload)
+            throws SAXException, IOException {
+        if(xmlApiResponsePayload != null &&
+                xmlApiResponsePayload.hasRemaining()) {
+            validate(
+                    schema,
+                    new StreamSource(
+                            new ByteBufferInputStream(
+                                    xmlApiResponsePayload)),
+                    xmlApiResponsePayload.remaining());
+        }
+    }
+
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload XML API response payload {@link InputStream}
+     */
+    public static void validateApiResponseAgainstXsd(Schema schema,
+                                                     InputStream xmlApiResponsePayload)
+            throws SAXException, IOException {
+        if(xmlApiResponsePayload != null) {
+            validate(
+                    schema,
+                    new StreamSource(
+                            xmlApiResponsePayload),
+                    JfrUtils.UNKNOWN_PAYLOAD_SIZE);
+        }
+    }
+
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload {@link Path} of the XML API response payload
+     */
+    public static void validateApiResponseAgainstXsd(Schema schema,
+                                                     Path xmlApiResponsePayload)
+            throws SAXException, IOException {
+        try(InputStream inputStream =
+                    Files.newInputStream(
+                            xmlApiResponsePayload)) {
+            validate(
+                    schema,
+                    new StreamSource(
+                            inputStream,
+                            xmlApiResponsePayload.
+                                    toUri().
+                                    toString()),
+                    Files.size(
+                            xmlApiResponsePayload));
+        }
+    }
+
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     * and evaluates provided XPath expressions during the same parsing pass
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload XML API response payload
+     * @param xPathExpressions XPath expressions to evaluate
+     * @return {@link Map} of XPath expressions and corresponding evaluation results
+     */
+    public static Map<String, String> validateAndExtractApiResponse(Schema schema,
+                                                                     String xmlApiResponsePayload,
+                                                                     Collection<String>
+                                                                             xPathExpressions)
+            throws SAXException, IOException {
+        if(StringUtils.
+                isBlank(
+                        xmlApiResponsePayload)) {
+            return new HashMap<>();
+        }
+
+        return validateAndParse(
+                schema,
+                new InputSource(
+                        new StringReader(
+                                xmlApiResponsePayload)),
+                xmlApiResponsePayload.length()).
+                evaluateToStrings(
+                        xPathExpressions);
+    }
+
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     * and parses it into the {@link ExtractionSession} during the same pass
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload XML API response payload
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession validateAndParse(Schema schema,
+                                                     InputSource xmlApiResponsePayload)
+            throws SAXException, IOException {
+        return validateAndParse(
+                schema,
+                xmlApiResponsePayload,
+                JfrUtils.UNKNOWN_PAYLOAD_SIZE);
+    }
+
+    private static ExtractionSession validateAndParse(Schema schema,
+                                                      InputSource xmlApiResponsePayload,
+                                                      long payloadSize)
+            throws SAXException, IOException {
+        LOG.info("About to validate the API response against the XSD Schema ...");
+
+        long startTime =
+                MetricsUtils.startTime();
+        Object jfrEvent =
+                JfrUtils.beginValidation();
+        String outcome = VALIDATION_ERROR_OUTCOME;
+        XMLReader xmlReader =
+                XML_READERS.borrow();
+        ValidatorHandler validatorHandler =
+                schema.newValidatorHandler();
+        DomBuildingHandler domBuildingHandler =
+                new DomBuildingHandler(
+                        newDocument());
+
+        validatorHandler.setContentHandler(
+                domBuildingHandler);
+        xmlReader.setContentHandler(
+                validatorHandler);
+        xmlReader.setErrorHandler(
+                null);
+
+        try {
+            xmlReader.parse(
+                    xmlApiResponsePayload);
+            outcome = VALID_OUTCOME;
+        } catch (SAXException e) {
+            outcome = INVALID_OUTCOME;
+
+            throw e;
+        } finally {
+            xmlReader.setContentHandler(
+                    null);
+            XML_READERS.release(
+                    xmlReader);
+            MetricsUtils.
+                    firePhaseCompleted(
+                            VerificationPhase.VALIDATION,
+                            startTime);
+            JfrUtils.
+                    commitValidation(
+                            jfrEvent,
+                            payloadSize,
+                            outcome);
+        }
+
+        return ExtractionSession.
+                forXml(domBuildingHandler.
+                        getDocument());
+    }
+
+    private static void validate(Schema schema,
+                                 Source source,
+                                 long payloadSize)
+            throws SAXException, IOException {
+        LOG.info("About to validate the API response against the XSD Schema ...");
+
+        long startTime =
+                MetricsUtils.startTime();
+        Object jfrEvent =
+                JfrUtils.beginValidation();
+        String outcome = VALIDATION_ERROR_OUTCOME;
+        ObjectPool<Validator> validators =
+                validators(schema);
+        Validator validator =
+                validators.poll();
+
+        if(validator == null) {
+            validator =
+                    schema.newValidator();
+        }
+
+        try {
+            validator.validate(source);
+            outcome = VALID_OUTCOME;
+        } catch (SAXException e) {
+            outcome = INVALID_OUTCOME;
+
+            throw e;
+        } finally {
+            validator.reset();
+            validators.release(
+                    validator);
+            MetricsUtils.
+                    firePhaseCompleted(
+                            VerificationPhase.VALIDATION,
+                            startTime);
+            JfrUtils.
+                    commitValidation(
+                            jfrEvent,
+                            payloadSize,
+                            outcome);
+        }
+    }
+
+    private static ObjectPool<Validator> validators(Schema schema) {
+        ObjectPool<Validator> validators =
+                VALIDATORS.get(schema);
+
+        if(validators == null) {
+            validators =
+                    new ObjectPool<>(
+                            XML_POOL_SIZE);
+
+            VALIDATORS.put(
+                    schema,
+                    validators);
+        }
+
+        return validators;
+    }
+
+    private static Document newDocument() {
+        DocumentBuilder documentBuilder =
+                DOCUMENT_BUILDERS.borrow();
+
+        try {
+            return documentBuilder.
+                    newDocument();
+        } finally {
+            DOCUMENT_BUILDERS.release(
+                    documentBuilder);
+        }
+    }
+
+    private static SAXParserFactory newSaxParserFactory() {
+        SAXParserFactory saxParserFactory =
+                SAXParserFactory.
+                        newInstance();
+
+        saxParserFactory.
+                setNamespaceAware(true);
+
+        return saxParserFactory;
+    }
+
+    private static XMLReader newXmlReader() {
+        try {
+            synchronized (SAX_PARSER_FACTORY) {
+                return SAX_PARSER_FACTORY.
+                        newSAXParser().
+                        getXMLReader();
+            }
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DocumentBuilder newDocumentBuilder() {
+        try {
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                return DOCUMENT_BUILDER_FACTORY.
+                        newDocumentBuilder();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Builds the same DOM as the not namespace aware DocumentBuilder
+     * from the (validated) SAX events
+     */
+    private static class DomBuildingHandler extends DefaultHandler {
+        private final Document document;
+        private final List<String[]> prefixMappings =
+                new ArrayList<>();
+        private Node currentNode;
+
+        DomBuildingHandler(Document document) {
+            this.document = document;
+            this.currentNode = document;
+        }
+
+        Document getDocument() {
+            return document;
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix,
+                                       String uri) {
+            prefixMappings.add(
+                    new String[] {
+                            prefix,
+                            uri
+                    });
+        }
+
+        @Override
+        public void startElement(String uri,
+                                 String localName,
+                                 String qName,
+                                 Attributes attributes) {
+            Element element =
+                    document.createElement(
+                            qName);
+
+            for(String[] prefixMapping : prefixMappings) {
+                element.setAttribute(
+                        prefixMapping[0].isEmpty() ?
+                                XMLConstants.XMLNS_ATTRIBUTE :
+                                XMLConstants.XMLNS_ATTRIBUTE + ':' + prefixMapping[0],
+                        prefixMapping[1]);
+            }
+
+            prefixMappings.clear();
+
+            for(int index = 0; index < attributes.getLength(); index++) {
+                element.setAttribute(
+                        attributes.getQName(index),
+                        attributes.getValue(index));
+            }
+
+            currentNode =
+                    currentNode.appendChild(
+                            element);
+        }
+
+        @Override
+        public void endElement(String uri,
+                               String localName,
+                               String qName) {
+            currentNode =
+                    currentNode.getParentNode();
+        }
+
+        @Override
+        public void characters(char[] chars,
+                               int start,
+                               int length) {
+            Node lastChild =
+                    currentNode.getLastChild();
+
+            if(lastChild instanceof Text) {
+                ((Text) lastChild).
+                        appendData(
+                                new String(
+                                        chars,
+                                        start,
+                                        length));
+            } else if(currentNode != document) {
+                currentNode.appendChild(
+                        document.createTextNode(
+                                new String(
+                                        chars,
+                                        start,
+                                        length)));
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] chars,
+                                        int start,
+                                        int length) {
+            characters(
+                    chars,
+                    start,
+                    length);
+        }
+
+        @Override
+        public void processingInstruction(String target,
+                                          String data) {
+            currentNode.appendChild(
+                    document.createProcessingInstruction(
+                            target,
+                            data));
         }
     }
 }
@@ -0,0 +1,545 @@
+package com.shimkiv.trust;
+
+import com.shimkiv.trust.common.VerificationQueueStats;
+import com.shimkiv.trust.entities.batch.ApiResponseRecord;
+import com.shimkiv.trust.entities.verification.CompiledVerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import com.shimkiv.trust.enums.OverflowPolicy;
+import com.shimkiv.trust.enums.VerificationMode;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.shimkiv.trust.config.TrustConfig.*;
+
+/**
+ * Verification Queue
+ *
+ * Bounded queue of the API responses verified in background
+ * by the dedicated worker threads, so the submitter (e.g. the load generator)
+ * pays for the enqueueing only, whatever the verification rules complexity is
+ *
+ * When the queue is full the API responses are handled
+ * according to the {@link OverflowPolicy}, the submitted, dropped, sampled out,
+ * passed, failed and pending verifications are counted live
+ * ({@link #getStats()})
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class VerificationQueue implements AutoCloseable {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    VerificationQueue.class.
+                            getName());
+
+    // Max time the idle worker waits for the next task before checking the shutdown
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final TrustEngine trustEngine;
+    private final CompiledVerificationEntities verificationEntities;
+    private final VerificationMode verificationMode;
+    private final OverflowPolicy overflowPolicy;
+    private final int samplingInterval;
+    private final int highWaterMark;
+    private final BiConsumer<ApiResponseRecord, VerificationReport> reportHandler;
+
+    private final BlockingQueue<Task> tasks;
+    private final List<Thread> workers =
+            new ArrayList<>();
+    private final AtomicLong samplingCounter =
+            new AtomicLong();
+    private final AtomicInteger inFlightCount =
+            new AtomicInteger();
+    private final LongAdder submittedCount =
+            new LongAdder();
+    private final LongAdder droppedCount =
+            new LongAdder();
+    private final LongAdder sampledOutCount =
+            new LongAdder();
+    private final LongAdder passedCount =
+            new LongAdder();
+    private final LongAdder failedCount =
+            new LongAdder();
+    private final LongAdder errorsCount =
+            new LongAdder();
+    private volatile boolean shutdown;
+
+    private VerificationQueue(Builder builder) {
+        int capacity =
+                Math.max(1,
+                        builder.capacity);
+
+        this.trustEngine = builder.trustEngine;
+        this.verificationEntities =
+                CompiledVerificationEntities.
+                        of(builder.verificationEntities);
+        this.verificationMode = builder.verificationMode;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.samplingInterval =
+                Math.max(1,
+                        builder.samplingInterval);
+        this.highWaterMark =
+                Math.max(1,
+                        capacity / 2);
+        this.reportHandler = builder.reportHandler;
+        this.tasks =
+                new ArrayBlockingQueue<>(
+                        capacity);
+
+        for(int index = 0; index < Math.max(1, builder.workers); index++) {
+            Thread worker =
+                    new Thread(
+                            this::drain,
+                            "trust-verification-queue-" + index);
+
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Returns the new {@link Builder}
+     * with the defaults taken from the {@link com.shimkiv.trust.config.TrustConfig}
+     *
+     * @return {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Submits provided API response for the verification
+     * against the verification entities of this queue
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @return true if queued (the queued API response is verified
+     * even if the queue is shut down concurrently),
+     * false if dropped or sampled out
+     */
+    public boolean submit(String apiResponsePayload,
+                          String apiResponseContentType) {
+        return submit(
+                apiResponsePayload,
+                apiResponseContentType,
+                verificationEntities);
+    }
+
+    /**
+     * Submits provided API response for the verification
+     * against provided verification entities
+     * (the compiled ones are not compiled again)
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @return true if queued (the queued API response is verified
+     * even if the queue is shut down concurrently),
+     * false if dropped or sampled out
+     */
+    public boolean submit(String apiResponsePayload,
+                          String apiResponseContentType,
+                          VerificationEntities verificationEntities) {
+        submittedCount.increment();
+
+        Task task =
+                new Task(
+                        new ApiResponseRecord(
+                                apiResponsePayload,
+                                apiResponseContentType),
+                        verificationEntities);
+
+        if(shutdown) {
+            droppedCount.increment();
+
+            return false;
+        }
+
+        switch(overflowPolicy) {
+            case BLOCK:
+                try {
+                    tasks.put(task);
+
+                    return enqueued(task);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.increment();
+
+                    return false;
+                }
+            case SAMPLE:
+                if(tasks.size() >= highWaterMark &&
+                        samplingCounter.incrementAndGet() % samplingInterval != 0) {
+                    sampledOutCount.increment();
+
+                    return false;
+                }
+
+                return offer(task);
+            default:
+                return offer(task);
+        }
+    }
+
+    // Queues the task unless the queue is full (the DROP policy)
+    private boolean offer(Task task) {
+        if(tasks.offer(task)) {
+            return enqueued(task);
+        }
+
+        droppedCount.increment();
+
+        return false;
+    }
+
+    // The submitter racing with the shutdown takes its task back
+    // unless it is already taken by the worker or dropped by the close
+    private boolean enqueued(Task task) {
+        if(shutdown &&
+                task.claim(TaskState.DROPPED)) {
+            tasks.remove(task);
+            droppedCount.increment();
+
+            return false;
+        }
+
+        return task.state.get() != TaskState.DROPPED;
+    }
+
+    /**
+     * Returns the live verification queue statistics
+     *
+     * @return {@link VerificationQueueStats}
+     */
+    public VerificationQueueStats getStats() {
+        return new VerificationQueueStats(
+                submittedCount.sum(),
+                droppedCount.sum(),
+                sampledOutCount.sum(),
+                passedCount.sum(),
+                failedCount.sum(),
+                errorsCount.sum(),
+                tasks.size(),
+                inFlightCount.get());
+    }
+
+    /**
+     * Stops accepting the API responses,
+     * the already queued ones are still verified
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Waits until all of the queued API responses are verified
+     * after the {@link #shutdown()}
+     *
+     * @param timeout Max time to wait
+     * @param timeUnit {@link TimeUnit} of the timeout
+     * @return true if the queue is terminated, false if the timeout has elapsed
+     */
+    public boolean awaitTermination(long timeout,
+                                    TimeUnit timeUnit)
+            throws InterruptedException {
+        long deadline =
+                System.nanoTime() +
+                        timeUnit.toNanos(timeout);
+
+        for(Thread worker : workers) {
+            long remainingMillis =
+                    TimeUnit.NANOSECONDS.
+                            toMillis(deadline - System.nanoTime());
+
+            if(remainingMillis <= 0) {
+                return false;
+            }
+
+            worker.join(remainingMillis);
+
+            if(worker.isAlive()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Shuts the queue down and waits until all of the queued API responses are verified
+     * (if interrupted, the interrupt status is restored
+     * and the queued API responses are left to the workers)
+     */
+    @Override
+    public void close() {
+        shutdown();
+
+        try {
+            for(Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return;
+        }
+
+        // Left by the interrupted workers
+        List<Task> abandonedTasks =
+                new ArrayList<>();
+
+        tasks.drainTo(abandonedTasks);
+
+        for(Task task : abandonedTasks) {
+            if(task.claim(TaskState.DROPPED)) {
+                droppedCount.increment();
+            }
+        }
+    }
+
+    /*
+     * Worker loop, completes when the queue is shut down and drained
+     */
+    private void drain() {
+        try {
+            while(true) {
+                Task task =
+                        tasks.poll(
+                                POLL_TIMEOUT_MILLIS,
+                                TimeUnit.MILLISECONDS);
+
+                if(task == null) {
+                    if(!shutdown) {
+                        continue;
+                    }
+
+                    // Queued before the shutdown was seen by the submitter
+                    task = tasks.poll();
+
+                    if(task == null) {
+                        return;
+                    }
+                }
+
+                // Taken back by the submitter racing with the shutdown
+                if(!task.claim(TaskState.VERIFYING)) {
+                    continue;
+                }
+
+                inFlightCount.incrementAndGet();
+
+                try {
+                    verify(task);
+                } finally {
+                    inFlightCount.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void verify(Task task) {
+        try {
+            VerificationReport verificationReport =
+                    trustEngine.
+                            generateApiResponseReport(
+                                    task.apiResponseRecord.
+                                            getApiResponsePayload(),
+                                    task.apiResponseRecord.
+                                            getApiResponseContentType(),
+                                    task.verificationEntities,
+                                    verificationMode);
+
+            if(verificationReport.isPassed()) {
+                passedCount.increment();
+            } else {
+                failedCount.increment();
+            }
+
+            if(reportHandler != null) {
+                reportHandler.accept(
+                        task.apiResponseRecord,
+                        verificationReport);
+            }
+        } catch(Throwable e) {
+            // The worker survives any failure of the single task
+            // (including the errors thrown by the report handler)
+            errorsCount.increment();
+
+            LOG.log(Level.WARNING,
+                    MessageFormat.format(
+                            VERIFICATION_QUEUE_TASK_ERROR_MESSAGE,
+                            task.apiResponseRecord),
+                    e);
+        }
+    }
+
+    private static class Task {
+        private final ApiResponseRecord apiResponseRecord;
+        private final VerificationEntities verificationEntities;
+        // Set once by the only party which either verifies or drops the task
+        private final AtomicReference<TaskState> state =
+                new AtomicReference<>(TaskState.QUEUED);
+
+        Task(ApiResponseRecord apiResponseRecord,
+             VerificationEntities verificationEntities) {
+            this.apiResponseRecord = apiResponseRecord;
+            this.verificationEntities = verificationEntities;
+        }
+
+        boolean claim(TaskState claimedState) {
+            return state.compareAndSet(
+                    TaskState.QUEUED,
+                    claimedState);
+        }
+    }
+
+    private enum TaskState {
+        QUEUED,
+        VERIFYING,
+        DROPPED
+    }
+
+    /**
+     * {@link VerificationQueue} Builder
+     *
+     * Each setting defaults to the corresponding
+     * {@link com.shimkiv.trust.config.TrustConfig} one
+     */
+    public static class Builder {
+        private TrustEngine trustEngine;
+        private VerificationEntities verificationEntities;
+        private VerificationMode verificationMode =
+                VerificationMode.SOFT;
+        private int capacity =
+                VERIFICATION_QUEUE_CAPACITY;
+        private int workers =
+                VERIFICATION_QUEUE_WORKERS;
+        private OverflowPolicy overflowPolicy;
+        private int samplingInterval =
+                VERIFICATION_QUEUE_SAMPLING_INTERVAL;
+        private BiConsumer<ApiResponseRecord, VerificationReport> reportHandler;
+
+        private Builder() {}
+
+        /**
+         * Sets the {@link TrustEngine} to verify with
+         * (the default one if not set)
+         *
+         * @param trustEngine {@link TrustEngine}
+         * @return {@link Builder}
+         */
+        public Builder trustEngine(TrustEngine trustEngine) {
+            this.trustEngine = trustEngine;
+            return this;
+        }
+
+        public Builder verificationEntities(VerificationEntities verificationEntities) {
+            this.verificationEntities = verificationEntities;
+            return this;
+        }
+
+        public Builder verificationMode(VerificationMode verificationMode) {
+            this.verificationMode = verificationMode;
+            return this;
+        }
+
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Sets the {@link OverflowPolicy}
+         * (the configured one if not set)
+         *
+         * @param overflowPolicy {@link OverflowPolicy}
+         * @return {@link Builder}
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public Builder samplingInterval(int samplingInterval) {
+            this.samplingInterval = samplingInterval;
+            return this;
+        }
+
+        /**
+         * Sets the handler of each {@link VerificationReport}
+         * (called by the worker thread)
+         *
+         * @param reportHandler Handler of the verified {@link ApiResponseRecord}
+         *                      and its {@link VerificationReport}
+         * @return {@link Builder}
+         */
+        public Builder reportHandler(BiConsumer<ApiResponseRecord, VerificationReport>
+                                             reportHandler) {
+            this.reportHandler = reportHandler;
+            return this;
+        }
+
+        /**
+         * Builds the {@link VerificationQueue} and starts its workers
+         *
+         * @return {@link VerificationQueue}
+         */
+        public VerificationQueue build() {
+            if(trustEngine == null) {
+                trustEngine =
+                        TrustEngine.getDefault();
+            }
+
+            if(verificationMode == null) {
+                verificationMode =
+                        VerificationMode.SOFT;
+            }
+
+            if(overflowPolicy == null) {
+                overflowPolicy =
+                        getConfiguredOverflowPolicy();
+            }
+
+            return new VerificationQueue(this);
+        }
+
+        private static OverflowPolicy getConfiguredOverflowPolicy() {
+            try {
+                return OverflowPolicy.valueOf(
+                        VERIFICATION_QUEUE_OVERFLOW_POLICY.
+                                trim().
+                                toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        MessageFormat.format(
+                                TRUST_ENGINE_CONFIG_ERROR_MESSAGE,
+                                "unknown verification queue overflow policy \"" +
+                                        VERIFICATION_QUEUE_OVERFLOW_POLICY +
+                                        "\""),
+                        e);
+            }
+        }
+    }
+}
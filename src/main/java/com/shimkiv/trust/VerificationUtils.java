@@ -1,22 +1,31 @@
 package com.shimkiv.trust;
 
+import com.shimkiv.trust.common.CacheStats;
+import com.shimkiv.trust.entities.verification.CompiledVerificationEntities;
 import com.shimkiv.trust.entities.verification.VerificationEntities;
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.text.StrSubstitutor;
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import com.shimkiv.trust.enums.VerificationMode;
 import org.assertj.core.api.AutoCloseableSoftAssertions;
+import org.xml.sax.SAXException;
 
+import javax.xml.validation.Schema;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
-import static com.shimkiv.trust.common.CommonUtils.collectionIsNotEmpty;
+import static com.shimkiv.trust.ValidationUtils.validateAndExtractApiResponse;
+import static com.shimkiv.trust.common.CommonUtils.mapFile;
 import static com.shimkiv.trust.config.TrustConfig.*;
 import static com.shimkiv.trust.enums.VerificationType.API_RESPONSE;
-import static com.shimkiv.trust.evaluation.EvaluationUtils.*;
 
 /**
  * Verification Utils
  *
+ * Facade over the default {@link TrustEngine}
+ *
  * @author Serhii Shymkiv
  */
 
@@ -36,27 +45,36 @@ public class VerificationUtils {
      * @return {@link VerificationEntities}
      */
     public static VerificationEntities generateVerificationEntities(String verificationData) {
-        VerificationEntities verificationEntities =
-                new VerificationEntities();
+        return TrustEngine.
+                getDefault().
+                generateVerificationEntities(
+                        verificationData);
+    }
 
-        if(StringUtils.
-                isNotBlank(
-                        verificationData)) {
-            for(String verificationType :
-                    verificationData.
-                            trim().split(
-                            VERIFICATION_TYPES_DELIMITER)) {
-                if(StringUtils.
-                        isNotBlank(
-                                verificationType)) {
-                    updateVerificationEntities(
-                            verificationEntities,
-                            verificationType);
-                }
-            }
-        }
+    /**
+     * Generates {@link CompiledVerificationEntities} by provided data
+     * or takes the already compiled ones (for the same data) from the cache
+     *
+     * @param verificationData Verification data to parse
+     * @return {@link CompiledVerificationEntities}
+     */
+    public static CompiledVerificationEntities compileVerificationEntities(String
+                                                                                   verificationData) {
+        return TrustEngine.
+                getDefault().
+                compileVerificationEntities(
+                        verificationData);
+    }
 
-        return verificationEntities;
+    /**
+     * Returns the compiled verification entities cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public static CacheStats getCompiledVerificationEntitiesCacheStats() {
+        return TrustEngine.
+                getDefault().
+                getCompiledVerificationEntitiesCacheStats();
     }
 
     /**
@@ -71,19 +89,37 @@ public class VerificationUtils {
                                                       Map<String, String>
                                                               testResults,
                                                       String verificationType) {
-        if(verificationEntities != null) {
-            VerificationEntities.VerificationEntity verificationEntity =
-                    verificationEntities.
-                            getVerificationEntity(
-                                    verificationType);
+        assertVerificationReport(
+                generateTestResultsVerificationReport(
+                        verificationEntities,
+                        testResults,
+                        verificationType,
+                        VerificationMode.SOFT));
+    }
 
-            if(verificationEntity != null) {
-                verifyTestResults(
+    /**
+     * Generates test results {@link VerificationReport}
+     *
+     * @param verificationEntities {@link VerificationEntities}
+     * @param testResults {@link Map} of test results
+     * @param verificationType The type of verification rules
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public static VerificationReport
+            generateTestResultsVerificationReport(VerificationEntities
+                                                          verificationEntities,
+                                                  Map<String, String>
+                                                          testResults,
+                                                  String verificationType,
+                                                  VerificationMode verificationMode) {
+        return TrustEngine.
+                getDefault().
+                generateTestResultsVerificationReport(
+                        verificationEntities,
                         testResults,
-                        verificationEntity.
-                                getVerificationRules());
-            }
-        }
+                        verificationType,
+                        verificationMode);
     }
 
     /**
@@ -97,166 +133,237 @@ public class VerificationUtils {
                                                       String apiResponseContentType,
                                                       VerificationEntities
                                                               verificationEntities) {
-        LOG.info("About to verify the API response ...");
-
-        performTestResultsVerification(
-                verificationEntities,
-                generateApiTestResults(
+        TrustEngine.
+                getDefault().
+                performApiResponseVerification(
                         apiResponsePayload,
                         apiResponseContentType,
-                        getApiEvalExpressions(
-                                verificationEntities)),
-                API_RESPONSE.
-                        name());
+                        verificationEntities);
     }
 
     /**
-     * Performs test results verification
+     * Performs API response verification
      *
-     * @param testResults {@link Map} of test results
-     * @param evalExpressions {@link List} of evaluation expressions
+     * @param apiResponsePayload API response payload {@link InputStream} (the stream is not closed)
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
      */
-    public static void verifyTestResults(Map<String, String>
-                                                 testResults,
-                                         List<String>
-                                                 evalExpressions) {
-        try(AutoCloseableSoftAssertions softly =
-                    new AutoCloseableSoftAssertions()) {
-            evalExpressions.
-                    forEach(evalExpression -> {
-                        String updatedEvalExpression =
-                                updateEvalExpression(
-                                        testResults.
-                                                entrySet().
-                                                stream().
-                                                collect(Collectors.toMap(
-                                                        Map.Entry::getKey,
-                                                        entry ->
-                                                                StringUtils.
-                                                                        normalizeSpace(
-                                                                                entry.getValue()))),
-                                        evalExpression);
+    public static void performApiResponseVerification(InputStream apiResponsePayload,
+                                                      String apiResponseContentType,
+                                                      VerificationEntities
+                                                              verificationEntities) {
+        assertVerificationReport(
+                TrustEngine.
+                        getDefault().
+                        generateApiResponseVerificationReport(
+                                apiResponsePayload,
+                                apiResponseContentType,
+                                verificationEntities,
+                                VerificationMode.SOFT));
+    }
 
-                        softly.assertThat(
-                                evaluateJsToBoolean(updatedEvalExpression)).
-                                as(updatedEvalExpression).
-                                isTrue();
-                    });
-        }
+    /**
+     * Performs API response verification
+     *
+     * @param apiResponsePayload API response payload bytes
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     */
+    public static void performApiResponseVerification(byte[] apiResponsePayload,
+                                                      String apiResponseContentType,
+                                                      VerificationEntities
+                                                              verificationEntities) {
+        assertVerificationReport(
+                TrustEngine.
+                        getDefault().
+                        generateApiResponseVerificationReport(
+                                ByteBuffer.
+                                        wrap(apiResponsePayload),
+                                apiResponseContentType,
+                                verificationEntities,
+                                VerificationMode.SOFT));
     }
 
-    private static void updateVerificationEntities(VerificationEntities
-                                                           verificationEntities,
-                                                   String verificationType) {
-        VerificationEntities.VerificationEntity verificationEntity =
-                generateVerificationEntity(
-                        verificationType.
-                                trim().split(
-                                        VERIFICATION_TYPE_DELIMITER));
+    /**
+     * Performs API response verification
+     *
+     * @param apiResponsePayload API response payload {@link ByteBuffer}
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     */
+    public static void performApiResponseVerification(ByteBuffer apiResponsePayload,
+                                                      String apiResponseContentType,
+                                                      VerificationEntities
+                                                              verificationEntities) {
+        assertVerificationReport(
+                TrustEngine.
+                        getDefault().
+                        generateApiResponseVerificationReport(
+                                apiResponsePayload,
+                                apiResponseContentType,
+                                verificationEntities,
+                                VerificationMode.SOFT));
+    }
 
-        if(verificationEntity != null) {
-            verificationEntities.
-                    addVerificationEntity(
-                            verificationEntity);
-        }
+    /**
+     * Performs API response verification
+     *
+     * The API response payload file is memory-mapped,
+     * so it is not copied on the heap
+     *
+     * @param apiResponsePayload {@link Path} of the API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     */
+    public static void performApiResponseVerification(Path apiResponsePayload,
+                                                      String apiResponseContentType,
+                                                      VerificationEntities
+                                                              verificationEntities)
+            throws IOException {
+        performApiResponseVerification(
+                mapFile(apiResponsePayload),
+                apiResponseContentType,
+                verificationEntities);
     }
 
-    private static VerificationEntities.VerificationEntity
-            generateVerificationEntity(String[] verificationRules) {
-        if(verificationRules != null &&
-                verificationRules.length == 2 &&
-                StringUtils.
-                        isNoneBlank(
-                                verificationRules[FIRST_ELEMENT],
-                                verificationRules[SECOND_ELEMENT])) {
-            VerificationEntities.VerificationEntity verificationEntity =
-                    new VerificationEntities.
-                            VerificationEntity().
-                            setVerificationType(
-                                    verificationRules[FIRST_ELEMENT]);
+    /**
+     * Generates API response {@link VerificationReport}
+     *
+     * The API response nodes are extracted rule by rule,
+     * so in the {@link VerificationMode#FAIL_FAST} mode
+     * nothing is extracted for the rules after the failed one
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param verificationEntities {@link VerificationEntities}
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public static VerificationReport
+            generateApiResponseVerificationReport(String apiResponsePayload,
+                                                  String apiResponseContentType,
+                                                  VerificationEntities
+                                                          verificationEntities,
+                                                  VerificationMode verificationMode) {
+        return TrustEngine.
+                getDefault().
+                generateApiResponseVerificationReport(
+                        apiResponsePayload,
+                        apiResponseContentType,
+                        verificationEntities,
+                        verificationMode);
+    }
 
-            for(String verificationRule :
-                    verificationRules[SECOND_ELEMENT].
-                            trim().split(
-                                    VERIFICATION_RULES_DELIMITER)) {
-                verificationEntity.
-                        addVerificationRule(
-                                verificationRule.
-                                        trim());
-            }
+    /**
+     * Validates provided XML API response against the XSD {@link Schema}
+     * and performs its verification by using the single parsing pass
+     *
+     * @param schema W3C XML {@link Schema} instance
+     * @param xmlApiResponsePayload XML API response payload
+     * @param verificationEntities {@link VerificationEntities}
+     */
+    public static void validateAndVerifyApiResponse(Schema schema,
+                                                    String xmlApiResponsePayload,
+                                                    VerificationEntities
+                                                            verificationEntities)
+            throws SAXException, IOException {
+        LOG.info("About to validate and verify the API response ...");
 
-            return verificationEntity;
-        }
+        TrustEngine trustEngine =
+                TrustEngine.getDefault();
 
-        return null;
+        trustEngine.
+                performTestResultsVerification(
+                        verificationEntities,
+                        validateAndExtractApiResponse(
+                                schema,
+                                xmlApiResponsePayload,
+                                trustEngine.
+                                        getApiResponseKeys(
+                                                verificationEntities)),
+                        API_RESPONSE.
+                                name());
     }
 
-    private static String updateEvalExpression(Map<String, String> testResults,
-                                               String evalExpression) {
-        if(collectionIsNotEmpty(testResults) &&
-                StringUtils.
-                        isNotBlank(
-                                evalExpression)) {
-            return new StrSubstitutor(testResults).
-                    replace(evalExpression);
-        }
-
-        return evalExpression;
+    /**
+     * Performs test results verification
+     *
+     * @param testResults {@link Map} of test results
+     * @param evalExpressions {@link List} of evaluation expressions
+     */
+    public static void verifyTestResults(Map<String, String>
+                                                 testResults,
+                                         List<String>
+                                                 evalExpressions) {
+        assertVerificationReport(
+                generateVerificationReport(
+                        testResults,
+                        evalExpressions,
+                        VerificationMode.SOFT));
     }
 
-    private static Map<String, String> generateApiTestResults(String apiResponsePayload,
-                                                              String apiResponseContentType,
-                                                              List<String>
-                                                                      evalExpressions) {
-        Map<String, String> testResults =
-                new HashMap<>();
-
-        evalExpressions.
-                forEach(evalExpression -> {
-                    if(StringUtils.
-                            containsIgnoreCase(
-                                    apiResponseContentType,
-                                    XML_MARK)) {
-                        testResults.put(
-                                evalExpression,
-                                evaluateXPathToString(
-                                        evalExpression,
-                                        apiResponsePayload));
-                    } else {
-                        testResults.put(
-                                evalExpression,
-                                evaluateJsonPathToString(
-                                        evalExpression,
-                                        apiResponsePayload));
-                    }
-                });
-
-        return testResults;
+    /**
+     * Generates test results {@link VerificationReport}
+     *
+     * @param testResults {@link Map} of test results
+     * @param evalExpressions {@link List} of evaluation expressions
+     * @param verificationMode {@link VerificationMode}
+     * @return {@link VerificationReport}
+     */
+    public static VerificationReport generateVerificationReport(Map<String, String>
+                                                                        testResults,
+                                                                List<String>
+                                                                        evalExpressions,
+                                                                VerificationMode
+                                                                        verificationMode) {
+        return TrustEngine.
+                getDefault().
+                generateVerificationReport(
+                        testResults,
+                        evalExpressions,
+                        verificationMode);
     }
 
-    private static List<String> getApiEvalExpressions(VerificationEntities
-                                                              verificationEntities) {
-        List<String> evalExpressions =
-                new ArrayList<>();
-        VerificationEntities.VerificationEntity verificationEntity =
-                verificationEntities.
-                        getVerificationEntity(
-                                API_RESPONSE.
-                                        name());
-
-        if(verificationEntity != null) {
-            verificationEntity.
-                    getVerificationRules().
-                    forEach(evalExpression ->
-                            evalExpressions.addAll(
-                                    Arrays.asList(
-                                            StringUtils.
-                                                    substringsBetween(
-                                                            evalExpression,
-                                                            TPL_START_SUBSTRING,
-                                                            TPL_END_SUBSTRING))));
+    /**
+     * Asserts that none of the verification rules of provided
+     * {@link VerificationReport} has failed
+     *
+     * The failed rules are reported softly (all at once)
+     *
+     * @param verificationReport {@link VerificationReport}
+     */
+    public static void assertVerificationReport(VerificationReport
+                                                        verificationReport) {
+        if(!verificationReport.isPassed()) {
+            try(AutoCloseableSoftAssertions softly =
+                        new AutoCloseableSoftAssertions()) {
+                verificationReport.
+                        getFailedRuleResults().
+                        forEach(ruleResult ->
+                                softly.assertThat(false).
+                                        as(ruleResult.
+                                                getDescription()).
+                                        isTrue());
+            }
         }
+    }
 
-        return evalExpressions;
+    /*
+     * Generates API response verification report without the per-call logging
+     * (e.g. for the batch verification)
+     */
+    static VerificationReport generateApiResponseReport(String apiResponsePayload,
+                                                        String apiResponseContentType,
+                                                        VerificationEntities
+                                                                verificationEntities,
+                                                        VerificationMode
+                                                                verificationMode) {
+        return TrustEngine.
+                getDefault().
+                generateApiResponseReport(
+                        apiResponsePayload,
+                        apiResponseContentType,
+                        verificationEntities,
+                        verificationMode);
     }
 }
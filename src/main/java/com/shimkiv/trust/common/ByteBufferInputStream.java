@@ -0,0 +1,73 @@
+package com.shimkiv.trust.common;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link InputStream} over the {@link ByteBuffer}
+ * (e.g. the memory-mapped file) which reads it without copying it on the heap
+ *
+ * The position of provided buffer is not changed
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ?
+                buffer.get() & 0xFF :
+                -1;
+    }
+
+    @Override
+    public int read(byte[] bytes,
+                    int offset,
+                    int length) {
+        if(length == 0) {
+            return 0;
+        }
+
+        if(!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        int bytesToRead =
+                Math.min(
+                        length,
+                        buffer.remaining());
+
+        buffer.get(
+                bytes,
+                offset,
+                bytesToRead);
+
+        return bytesToRead;
+    }
+
+    @Override
+    public long skip(long bytesToSkip) {
+        int skippedBytes =
+                (int) Math.max(0,
+                        Math.min(
+                                bytesToSkip,
+                                buffer.remaining()));
+
+        buffer.position(
+                buffer.position() +
+                        skippedBytes);
+
+        return skippedBytes;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
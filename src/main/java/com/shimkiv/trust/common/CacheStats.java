@@ -0,0 +1,64 @@
+package com.shimkiv.trust.common;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+
+/**
+ * Cache Statistics snapshot
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class CacheStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    public CacheStats(long hitCount,
+                      long missCount,
+                      long evictionCount,
+                      int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getRequestCount() {
+        return hitCount +
+                missCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Cache Stats [" +
+                StringUtils.join(
+                        new Object[] {
+                                "hits=" + getHitCount(),
+                                "misses=" + getMissCount(),
+                                "evictions=" + getEvictionCount(),
+                                "size=" + getSize()
+                        }, ',') +
+                "]";
+    }
+}
@@ -1,5 +1,10 @@
 package com.shimkiv.trust.common;
 
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
 
@@ -57,4 +62,25 @@ public class CommonUtils {
     public static <T> boolean collectionIsNotEmpty(T collection) {
         return !collectionIsEmpty(collection);
     }
+
+    /**
+     * Maps provided file into the memory (read-only)
+     *
+     * The mapping stays valid after this method returns
+     * and is released once the buffer is garbage collected
+     *
+     * @param path {@link Path} of the file
+     * @return {@link MappedByteBuffer}
+     */
+    public static MappedByteBuffer mapFile(Path path) throws IOException {
+        try(FileChannel fileChannel =
+                    FileChannel.open(
+                            path,
+                            StandardOpenOption.READ)) {
+            return fileChannel.
+                    map(FileChannel.MapMode.READ_ONLY,
+                            0,
+                            fileChannel.size());
+        }
+    }
 }
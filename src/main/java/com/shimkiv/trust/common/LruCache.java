@@ -0,0 +1,214 @@
+package com.shimkiv.trust.common;
+
+import com.shimkiv.trust.metrics.MetricsUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounded, thread-safe LRU cache
+ * which keeps track of the hit/miss/eviction counts
+ *
+ * Non-positive max size disables caching,
+ * the optional weigher additionally bounds the total weight of the entries,
+ * lookups of the named caches are reported to the verification listeners
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class LruCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongBiFunction<K, V> weigher;
+    private final Map<K, V> entries;
+    private long weight;
+
+    private final AtomicLong hitCount =
+            new AtomicLong();
+    private final AtomicLong missCount =
+            new AtomicLong();
+    private final AtomicLong evictionCount =
+            new AtomicLong();
+
+    public LruCache(int maxSize) {
+        this(null, maxSize);
+    }
+
+    public LruCache(String name,
+                    int maxSize) {
+        this(name,
+                maxSize,
+                Long.MAX_VALUE,
+                null);
+    }
+
+    public LruCache(String name,
+                    int maxSize,
+                    long maxWeight,
+                    ToLongBiFunction<K, V> weigher) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries =
+                new LinkedHashMap<K, V>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                        if(size() > LruCache.this.maxSize) {
+                            evictionCount.
+                                    incrementAndGet();
+                            weight -= weigh(
+                                    eldest.getKey(),
+                                    eldest.getValue());
+
+                            return true;
+                        }
+
+                        return false;
+                    }
+                };
+    }
+
+    /**
+     * Returns the cached value
+     *
+     * @param key Cache key
+     * @return Cached value or null
+     */
+    public V get(K key) {
+        V value;
+
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+
+        if(value != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+
+        if(name != null &&
+                MetricsUtils.isEnabled()) {
+            MetricsUtils.
+                    fireCacheAccess(
+                            name,
+                            value != null);
+        }
+
+        return value;
+    }
+
+    /**
+     * Puts the value into the cache
+     *
+     * @param key Cache key
+     * @param value Value to cache
+     */
+    public void put(K key,
+                    V value) {
+        if(isEnabled() &&
+                key != null &&
+                value != null) {
+            synchronized (entries) {
+                V previousValue =
+                        entries.put(key, value);
+
+                weight += weigh(key, value);
+
+                if(previousValue != null) {
+                    weight -= weigh(key, previousValue);
+                }
+
+                evictOverweight();
+            }
+        }
+    }
+
+    /**
+     * Removes all of the cached values
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the total weight of the cached entries
+     * (amount of entries if there is no weigher)
+     *
+     * @return Total weight
+     */
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    private long weigh(K key,
+                       V value) {
+        return weigher != null ?
+                weigher.applyAsLong(key, value) :
+                1;
+    }
+
+    // Must be called while holding the entries lock
+    private void evictOverweight() {
+        Iterator<Map.Entry<K, V>> iterator =
+                entries.
+                        entrySet().
+                        iterator();
+
+        while(weight > maxWeight &&
+                iterator.hasNext()) {
+            Map.Entry<K, V> eldest =
+                    iterator.next();
+
+            weight -= weigh(
+                    eldest.getKey(),
+                    eldest.getValue());
+            iterator.remove();
+            evictionCount.
+                    incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the snapshot of the cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getStats() {
+        return new CacheStats(
+                hitCount.get(),
+                missCount.get(),
+                evictionCount.get(),
+                size());
+    }
+}
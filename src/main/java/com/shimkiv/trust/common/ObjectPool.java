@@ -0,0 +1,72 @@
+package com.shimkiv.trust.common;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, thread-safe pool of the reusable objects
+ * which are not thread-safe themselves (e.g. XML parsers and validators)
+ *
+ * The idle objects are shared by all of the threads
+ * (including the short-lived and virtual ones) instead of being bound to them,
+ * at most max idle objects are kept, the excess released ones are discarded
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class ObjectPool<T> {
+    private final Supplier<T> factory;
+    private final BlockingQueue<T> idleObjects;
+
+    public ObjectPool(int maxIdle) {
+        this(maxIdle, null);
+    }
+
+    public ObjectPool(int maxIdle,
+                      Supplier<T> factory) {
+        this.factory = factory;
+        this.idleObjects =
+                new ArrayBlockingQueue<>(
+                        Math.max(1, maxIdle));
+    }
+
+    /**
+     * Takes the idle object or creates the new one
+     *
+     * @return Pooled or created object
+     */
+    public T borrow() {
+        T object =
+                idleObjects.poll();
+
+        return object != null ?
+                object :
+                factory.get();
+    }
+
+    /**
+     * Takes the idle object
+     *
+     * @return Pooled object or null if there are no idle ones
+     */
+    public T poll() {
+        return idleObjects.poll();
+    }
+
+    /**
+     * Returns the object into the pool
+     * (the caller must not use it anymore)
+     *
+     * @param object Object to return
+     */
+    public void release(T object) {
+        if(object != null) {
+            idleObjects.offer(object);
+        }
+    }
+
+    public int getIdleCount() {
+        return idleObjects.size();
+    }
+}
@@ -0,0 +1,270 @@
+package com.shimkiv.trust.common;
+
+import com.shimkiv.trust.metrics.MetricsUtils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounded, concurrent cache with the sampled (approximated) LRU eviction
+ * which keeps track of the hit/miss/eviction counts
+ *
+ * Lookups do not take any lock, the entries are evicted by the writers:
+ * the least recently accessed one of the few entries sampled
+ * by the cursor walking over the cache is evicted at a time
+ *
+ * Non-positive max size disables caching,
+ * the optional weigher additionally bounds the total weight of the entries,
+ * lookups of the named caches are reported to the verification listeners
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class SampledLruCache<K, V> {
+    // Amount of the entries compared to find the eviction victim
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final String name;
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongBiFunction<K, V> weigher;
+    private final Map<K, Node<V>> entries =
+            new ConcurrentHashMap<>();
+    private final AtomicLong weight =
+            new AtomicLong();
+
+    private final LongAdder hitCount =
+            new LongAdder();
+    private final LongAdder missCount =
+            new LongAdder();
+    private final LongAdder evictionCount =
+            new LongAdder();
+
+    // Guarded by the eviction lock
+    private final Object evictionLock =
+            new Object();
+    private Iterator<Map.Entry<K, Node<V>>> evictionCursor;
+
+    public SampledLruCache(int maxSize) {
+        this(null, maxSize);
+    }
+
+    public SampledLruCache(String name,
+                           int maxSize) {
+        this(name,
+                maxSize,
+                Long.MAX_VALUE,
+                null);
+    }
+
+    public SampledLruCache(String name,
+                           int maxSize,
+                           long maxWeight,
+                           ToLongBiFunction<K, V> weigher) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cached value
+     *
+     * @param key Cache key
+     * @return Cached value or null
+     */
+    public V get(K key) {
+        Node<V> node =
+                key != null ?
+                        entries.get(key) :
+                        null;
+        V value = null;
+
+        if(node != null) {
+            node.accessTime =
+                    System.nanoTime();
+            value = node.value;
+
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+
+        if(name != null &&
+                MetricsUtils.isEnabled()) {
+            MetricsUtils.
+                    fireCacheAccess(
+                            name,
+                            value != null);
+        }
+
+        return value;
+    }
+
+    /**
+     * Puts the value into the cache
+     *
+     * @param key Cache key
+     * @param value Value to cache
+     */
+    public void put(K key,
+                    V value) {
+        if(isEnabled() &&
+                key != null &&
+                value != null) {
+            Node<V> node =
+                    new Node<>(
+                            value,
+                            weigh(key, value));
+            Node<V> previousNode =
+                    entries.put(key, node);
+
+            weight.addAndGet(
+                    node.weight -
+                            (previousNode != null ?
+                                    previousNode.weight :
+                                    0));
+
+            if(isOverflowed()) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Removes all of the cached values
+     */
+    public void clear() {
+        entries.
+                keySet().
+                forEach(key -> {
+                    Node<V> node =
+                            entries.remove(key);
+
+                    if(node != null) {
+                        weight.addAndGet(
+                                -node.weight);
+                    }
+                });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total weight of the cached entries
+     * (amount of entries if there is no weigher)
+     *
+     * @return Total weight
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Returns the snapshot of the cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getStats() {
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                evictionCount.sum(),
+                size());
+    }
+
+    private long weigh(K key,
+                       V value) {
+        return weigher != null ?
+                weigher.applyAsLong(key, value) :
+                1;
+    }
+
+    private boolean isOverflowed() {
+        return entries.size() > maxSize ||
+                weight.get() > maxWeight;
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            while(isOverflowed()) {
+                Map.Entry<K, Node<V>> victim =
+                        sampleVictim();
+
+                if(victim == null) {
+                    return;
+                }
+
+                // The concurrently replaced entry is not evicted
+                if(entries.remove(
+                        victim.getKey(),
+                        victim.getValue())) {
+                    weight.addAndGet(
+                            -victim.getValue().weight);
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    // Must be called while holding the eviction lock
+    private Map.Entry<K, Node<V>> sampleVictim() {
+        Map.Entry<K, Node<V>> victim = null;
+
+        for(int index = 0; index < EVICTION_SAMPLE_SIZE; index++) {
+            if(evictionCursor == null ||
+                    !evictionCursor.hasNext()) {
+                evictionCursor =
+                        entries.
+                                entrySet().
+                                iterator();
+
+                if(!evictionCursor.hasNext()) {
+                    break;
+                }
+            }
+
+            Map.Entry<K, Node<V>> candidate =
+                    evictionCursor.next();
+
+            if(victim == null ||
+                    candidate.getValue().accessTime <
+                            victim.getValue().accessTime) {
+                victim = candidate;
+            }
+        }
+
+        return victim;
+    }
+
+    private static class Node<V> {
+        private final V value;
+        private final long weight;
+        private volatile long accessTime =
+                System.nanoTime();
+
+        Node(V value,
+             long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.shimkiv.trust.common;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+
+/**
+ * Verification Queue Statistics snapshot
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class VerificationQueueStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long submittedCount;
+    private final long droppedCount;
+    private final long sampledOutCount;
+    private final long passedCount;
+    private final long failedCount;
+    private final long errorsCount;
+    private final int queueSize;
+    private final int inFlightCount;
+
+    public VerificationQueueStats(long submittedCount,
+                                  long droppedCount,
+                                  long sampledOutCount,
+                                  long passedCount,
+                                  long failedCount,
+                                  long errorsCount,
+                                  int queueSize,
+                                  int inFlightCount) {
+        this.submittedCount = submittedCount;
+        this.droppedCount = droppedCount;
+        this.sampledOutCount = sampledOutCount;
+        this.passedCount = passedCount;
+        this.failedCount = failedCount;
+        this.errorsCount = errorsCount;
+        this.queueSize = queueSize;
+        this.inFlightCount = inFlightCount;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * Returns the amount of API responses dropped because of the full
+     * (or already shut down) queue
+     *
+     * @return Dropped API responses count
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the amount of API responses skipped by the SAMPLE overflow policy
+     *
+     * @return Sampled out API responses count
+     */
+    public long getSampledOutCount() {
+        return sampledOutCount;
+    }
+
+    public long getPassedCount() {
+        return passedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getErrorsCount() {
+        return errorsCount;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount;
+    }
+
+    public long getVerifiedCount() {
+        return passedCount +
+                failedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Verification Queue Stats [" +
+                StringUtils.join(
+                        new Object[] {
+                                "submitted=" + getSubmittedCount(),
+                                "dropped=" + getDroppedCount(),
+                                "sampledOut=" + getSampledOutCount(),
+                                "passed=" + getPassedCount(),
+                                "failed=" + getFailedCount(),
+                                "errors=" + getErrorsCount(),
+                                "queueSize=" + getQueueSize(),
+                                "inFlight=" + getInFlightCount()
+                        }, ',') +
+                "]";
+    }
+}
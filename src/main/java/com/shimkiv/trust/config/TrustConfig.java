@@ -1,5 +1,12 @@
 package com.shimkiv.trust.config;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
 import java.util.stream.Stream;
 
 /**
@@ -14,8 +21,50 @@ public class TrustConfig {
      */
     public static final String LOAD_SCRIPT_TPL_EXPR =
             "load(\"{0}\");";
+    // Protects the preloaded globals from being overwritten
+    // and defines the routine removing the globals created by the rules
+    public static final String SNAPSHOT_GLOBALS_EXPR =
+            "(function(global) {" +
+                    "var keys = Object.keys, " +
+                    "getDescriptor = Object.getOwnPropertyDescriptor, " +
+                    "defineProperty = Object.defineProperty, " +
+                    "names = Object.getOwnPropertyNames(global), " +
+                    "known = Object.create(null), stale = [], count, i, descriptor;" +
+                    "for(i = 0; i < names.length; i++) {" +
+                    "known[names[i]] = true;" +
+                    "descriptor = getDescriptor(global, names[i]);" +
+                    "if(descriptor && 'value' in descriptor && descriptor.writable) {" +
+                    "try { defineProperty(global, names[i], { writable: false }); } catch(e) {}" +
+                    "}" +
+                    "}" +
+                    "count = keys(global).length;" +
+                    "defineProperty(global, '__trust_restoreGlobals', { value: function() {" +
+                    "var current, name, j;" +
+                    "for(j = 0; j < stale.length; j++) {" +
+                    "if(global[stale[j]] !== undefined) { global[stale[j]] = undefined; }" +
+                    "}" +
+                    "current = keys(global);" +
+                    "if(current.length === count) { return; }" +
+                    "for(j = 0; j < current.length; j++) {" +
+                    "name = current[j];" +
+                    "if(!(name in known) && !delete global[name]) {" +
+                    "global[name] = undefined; known[name] = true; stale.push(name); count++;" +
+                    "}" +
+                    "}" +
+                    "}});" +
+                    "})(this);";
+    public static final String RESTORE_GLOBALS_EXPR =
+            "__trust_restoreGlobals();";
+    public static final String CLASSPATH_SCRIPT_PREFIX = "classpath:";
+    public static final String LODASH_POM_PROPERTIES =
+            "META-INF/maven/org.webjars/lodash/pom.properties";
+    public static final String LODASH_SCRIPT_TPL =
+            CLASSPATH_SCRIPT_PREFIX +
+                    "META-INF/resources/webjars/lodash/{0}/lodash.min.js";
     public static final String TPL_START_SUBSTRING = "${";
     public static final String TPL_END_SUBSTRING = "}";
+    public static final String TPL_ESCAPE_SUBSTRING = "$${";
+    public static final String TPL_VARIABLE_PREFIX = "__trust_";
     public static final String COLON_MARK = ";";
     public static final String XML_MARK = "xml";
 
@@ -37,14 +86,27 @@ public class TrustConfig {
                     "nashorn");
     /**
      * Colon separated URLs of scripts to load
-     * Default: https://cdn.jsdelivr.net/lodash/4.17.4/lodash.min.js
+     * (the "classpath:" prefixed ones are loaded from the classpath resources)
+     * Default: the lodash.min.js of the lodash webjar on the classpath
      */
+    public static final List<String> SCRIPTS_TO_LOAD_URLS =
+            Collections.unmodifiableList(
+                    Arrays.asList(
+                            System.getProperty(
+                                    "trust.loadScripts",
+                                    MessageFormat.format(
+                                            LODASH_SCRIPT_TPL,
+                                            getLodashVersion())).
+                                    split(COLON_MARK)));
+    /**
+     * {@link Stream} of the {@link #SCRIPTS_TO_LOAD_URLS}
+     * (it can be consumed only once)
+     *
+     * @deprecated use the {@link #SCRIPTS_TO_LOAD_URLS} instead
+     */
+    @Deprecated
     public static final Stream<String> SCRIPTS_TO_LOAD =
-            Stream.of(
-                    System.getProperty(
-                            "trust.loadScripts",
-                            "https://cdn.jsdelivr.net/lodash/4.17.4/lodash.min.js").
-                            split(COLON_MARK));
+            SCRIPTS_TO_LOAD_URLS.stream();
     /**
      * Verification types delimiter
      * Default: |&|
@@ -69,6 +131,185 @@ public class TrustConfig {
             System.getProperty(
                     "trust.verificationRulesDelimiter",
                     ";\u0020\u0020");
+    /**
+     * Max amount of compiled verification rules to keep
+     * Default: 1000
+     */
+    public static final int COMPILED_RULES_CACHE_SIZE =
+            Integer.getInteger(
+                    "trust.compiledRulesCacheSize",
+                    1000);
+    /**
+     * Max amount of compiled verification entities
+     * (distinct verification data strings) to keep
+     * Default: 1000
+     */
+    public static final int VERIFICATION_ENTITIES_CACHE_SIZE =
+            Integer.getInteger(
+                    "trust.verificationEntitiesCacheSize",
+                    1000);
+    /**
+     * Max amount of script engines to use for the parallel evaluations
+     * Default: amount of available processors
+     */
+    public static final int SCRIPT_ENGINES_POOL_SIZE =
+            Integer.getInteger(
+                    "trust.scriptEnginesPoolSize",
+                    Runtime.getRuntime().
+                            availableProcessors());
+    /**
+     * Whether to evaluate the expressions of the supported subset
+     * (comparison and logical operators, Lodash includes/startsWith/endsWith/eq/gt/gte/lt/lte)
+     * natively, without the script engine
+     * Default: true
+     */
+    public static final boolean NATIVE_EVALUATION =
+            Boolean.parseBoolean(
+                    System.getProperty(
+                            "trust.nativeEvaluation",
+                            "true"));
+    /**
+     * Whether to bind the placeholders/templates values as the script variables
+     * instead of their substitution into the verification rules text
+     * Default: false
+     */
+    public static final boolean BIND_PLACEHOLDERS =
+            Boolean.getBoolean(
+                    "trust.bindPlaceholders");
+    /**
+     * Max amount of the compiled XPath / JSONPath expressions to cache
+     * (compiled XPath expressions are pooled per expression)
+     * Default: 1000
+     */
+    public static final int COMPILED_PATHS_CACHE_SIZE =
+            Integer.getInteger(
+                    "trust.compiledPathsCacheSize",
+                    1000);
+    /**
+     * Max amount of the idle XML parsers, XSD validators (per schema)
+     * and compiled XPath expressions (per expression)
+     * shared by all of the threads for reuse
+     * Default: amount of available processors
+     */
+    public static final int XML_POOL_SIZE =
+            Integer.getInteger(
+                    "trust.xmlPoolSize",
+                    Runtime.getRuntime().
+                            availableProcessors());
+    /**
+     * Min size (in chars or bytes) of the API response payload
+     * from which the simple XPath / JSONPath expressions of the rules set
+     * are extracted in a single streaming pass instead of the tree parsing
+     * (negative value disables the streaming extraction)
+     * Default: 1048576
+     */
+    public static final long STREAMING_EXTRACTION_THRESHOLD =
+            Long.getLong(
+                    "trust.streamingExtractionThreshold",
+                    1048576L);
+    /**
+     * Class name of the JSONPath JSON provider
+     * (e.g. com.jayway.jsonpath.spi.json.JacksonJsonProvider
+     * if Jackson is on the classpath), empty for the default one (json-smart)
+     * Default: empty
+     */
+    public static final String JSON_PROVIDER =
+            System.getProperty(
+                    "trust.jsonProvider",
+                    "");
+    /**
+     * Class name of the JSONPath mapping provider
+     * (e.g. com.jayway.jsonpath.spi.mapper.JacksonMappingProvider),
+     * empty for the default one
+     * Default: empty
+     */
+    public static final String JSON_MAPPING_PROVIDER =
+            System.getProperty(
+                    "trust.jsonMappingProvider",
+                    "");
+    /**
+     * Max amount of the memoized evaluation results
+     * (keyed by the evaluated expression and bound variables),
+     * non-positive value disables the memoization
+     * Default: 0
+     */
+    public static final int EVALUATION_RESULTS_CACHE_SIZE =
+            Integer.getInteger(
+                    "trust.evaluationResultsCacheSize",
+                    0);
+    /**
+     * Max total weight (in chars of the expressions and bound values)
+     * of the memoized evaluation results
+     * Default: 16777216
+     */
+    public static final long EVALUATION_RESULTS_CACHE_WEIGHT =
+            Long.getLong(
+                    "trust.evaluationResultsCacheWeight",
+                    16777216L);
+    /**
+     * Regular expression of the non-deterministic verification rules
+     * (found anywhere in the rule), results of which are never memoized
+     * Default: \bDate\b|Math\.random|_\.(now|random|uniqueId|shuffle|sample)|@nondeterministic
+     */
+    public static final String NON_DETERMINISTIC_RULES_PATTERN =
+            System.getProperty(
+                    "trust.nonDeterministicRulesPattern",
+                    "\\bDate\\b|Math\\.random|_\\.(now|random|uniqueId|shuffle|sample)|" +
+                            "@nondeterministic");
+    /**
+     * Max amount of records to verify concurrently in the batch mode
+     * (unless the records are verified by a ForkJoinPool or with the explicit parallelism)
+     * Default: amount of available processors
+     */
+    public static final int BATCH_VERIFICATION_PARALLELISM =
+            Integer.getInteger(
+                    "trust.batchVerificationParallelism",
+                    Runtime.getRuntime().
+                            availableProcessors());
+    /**
+     * Whether to run the asynchronous verifications on the virtual threads
+     * (if provided by the JDK) instead of the common pool by default
+     * Default: true
+     */
+    public static final boolean ASYNC_VIRTUAL_THREADS =
+            Boolean.parseBoolean(
+                    System.getProperty(
+                            "trust.asyncVirtualThreads",
+                            "true"));
+    /**
+     * Capacity of the verification queue (max amount of the pending verifications)
+     * Default: 1024
+     */
+    public static final int VERIFICATION_QUEUE_CAPACITY =
+            Integer.getInteger(
+                    "trust.verificationQueueCapacity",
+                    1024);
+    /**
+     * Amount of the verification queue worker threads
+     * Default: amount of available processors
+     */
+    public static final int VERIFICATION_QUEUE_WORKERS =
+            Integer.getInteger(
+                    "trust.verificationQueueWorkers",
+                    Runtime.getRuntime().
+                            availableProcessors());
+    /**
+     * Verification queue overflow policy (BLOCK, DROP or SAMPLE)
+     * Default: BLOCK
+     */
+    public static final String VERIFICATION_QUEUE_OVERFLOW_POLICY =
+            System.getProperty(
+                    "trust.verificationQueueOverflowPolicy",
+                    "BLOCK");
+    /**
+     * Every n-th API response is queued by the SAMPLE overflow policy
+     * while the verification queue is at least half full
+     * Default: 10
+     */
+    public static final int VERIFICATION_QUEUE_SAMPLING_INTERVAL =
+            Integer.getInteger(
+                    "trust.verificationQueueSamplingInterval",
+                    10);
 
 
     /*
@@ -77,9 +318,62 @@ public class TrustConfig {
     public static final String SCRIPT_EVAL_ERROR_MESSAGE =
             "Impossible to evaluate provided script ! " +
                     "Verification rules vocabulary will be limited !";
+    public static final String SCRIPT_LOAD_ERROR_MESSAGE =
+            "Impossible to load the \"{0}\" script ! " +
+                    "Verification rules vocabulary will be limited !";
+    public static final String UNRESOLVED_PLACEHOLDER_MESSAGE =
+            "Unresolved placeholder: {0}";
+    public static final String SCRIPT_GLOBALS_ERROR_MESSAGE =
+            "Impossible to snapshot the script engine globals ! " +
+                    "Verification rules will share them !";
+    public static final String SCRIPT_ENGINE_ERROR_MESSAGE =
+            "Script engine \"{0}\" is not available !";
+    public static final String BATCH_RECORD_ERROR_MESSAGE =
+            "Impossible to verify the record: {0}";
+    public static final String TRUST_ENGINE_CONFIG_ERROR_MESSAGE =
+            "Invalid TRUST engine configuration: {0}";
+    public static final String VERIFICATION_QUEUE_TASK_ERROR_MESSAGE =
+            "Impossible to verify the queued record: {0}";
+    public static final String JSON_PROVIDER_ERROR_MESSAGE =
+            "Impossible to instantiate the \"{0}\" JSON provider ! " +
+                    "Default one will be used !";
+    public static final String LISTENER_ERROR_MESSAGE =
+            "Verification listener has failed !";
+    public static final String SCRIPT_ENGINE_WAIT_ERROR_MESSAGE =
+            "Interrupted while waiting for the script engine !";
     public static final String COMMON_EVAL_ERROR_MESSAGE =
             "Impossible to evaluate the expression(s) !";
+    public static final String COMMON_PARSE_ERROR_MESSAGE =
+            "Impossible to parse the payload !";
 
     // Prevents instantiation
     private TrustConfig() {}
+
+    /*
+     * Takes the version of the lodash webjar on the classpath,
+     * so it is not duplicated here
+     */
+    private static String getLodashVersion() {
+        try(InputStream inputStream =
+                    TrustConfig.class.
+                            getClassLoader().
+                            getResourceAsStream(
+                                    LODASH_POM_PROPERTIES)) {
+            if(inputStream != null) {
+                Properties properties =
+                        new Properties();
+
+                properties.load(inputStream);
+
+                return properties.
+                        getProperty(
+                                "version",
+                                "");
+            }
+        } catch (IOException e) {
+            // The default script is reported as not loaded
+        }
+
+        return "";
+    }
 }
@@ -0,0 +1,45 @@
+package com.shimkiv.trust.entities.batch;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+
+/**
+ * API Response Record (payload and content-type)
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class ApiResponseRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String apiResponsePayload;
+    private final String apiResponseContentType;
+
+    public ApiResponseRecord(String apiResponsePayload,
+                             String apiResponseContentType) {
+        this.apiResponsePayload = apiResponsePayload;
+        this.apiResponseContentType = apiResponseContentType;
+    }
+
+    public String getApiResponsePayload() {
+        return apiResponsePayload;
+    }
+
+    public String getApiResponseContentType() {
+        return apiResponseContentType;
+    }
+
+    @Override
+    public String toString() {
+        return "API Response Record [" +
+                StringUtils.join(
+                        new String[] {
+                                getApiResponseContentType(),
+                                StringUtils.abbreviate(
+                                        getApiResponsePayload(),
+                                        100)
+                        }, ',') +
+                "]";
+    }
+}
@@ -0,0 +1,162 @@
+package com.shimkiv.trust.entities.batch;
+
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
+
+/**
+ * Batch Verification Report
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class BatchVerificationReport implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long recordsCount;
+    private final long durationNanos;
+    private final List<RecordFailure> recordFailures;
+
+    public BatchVerificationReport(long recordsCount,
+                                   long durationNanos,
+                                   Collection<RecordFailure> recordFailures) {
+        List<RecordFailure> sortedFailures =
+                new ArrayList<>(
+                        recordFailures);
+
+        sortedFailures.sort(
+                Comparator.comparingLong(
+                        RecordFailure::getRecordIndex));
+
+        this.recordsCount = recordsCount;
+        this.durationNanos = durationNanos;
+        this.recordFailures =
+                Collections.unmodifiableList(
+                        sortedFailures);
+    }
+
+    public long getRecordsCount() {
+        return recordsCount;
+    }
+
+    public long getPassedCount() {
+        return recordsCount -
+                recordFailures.size();
+    }
+
+    public long getFailedCount() {
+        return recordFailures.size();
+    }
+
+    public long getDuration(TimeUnit timeUnit) {
+        return timeUnit.convert(
+                durationNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    public List<RecordFailure> getRecordFailures() {
+        return recordFailures;
+    }
+
+    public boolean isPassed() {
+        return recordFailures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Batch Verification Report [" +
+                StringUtils.join(
+                        new Object[] {
+                                "records=" + getRecordsCount(),
+                                "passed=" + getPassedCount(),
+                                "failed=" + getFailedCount(),
+                                "durationMs=" + getDuration(TimeUnit.MILLISECONDS)
+                        }, ',') +
+                (isPassed() ?
+                        "" :
+                        LINE_SEPARATOR +
+                                StringUtils.join(
+                                        getRecordFailures(),
+                                        LINE_SEPARATOR) +
+                                LINE_SEPARATOR) +
+                "]";
+    }
+
+    /**
+     * Failure of the particular record verification
+     */
+    public static class RecordFailure implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long recordIndex;
+        private final String message;
+        private final VerificationReport verificationReport;
+
+        public RecordFailure(long recordIndex,
+                             String message) {
+            this.recordIndex = recordIndex;
+            this.message = message;
+            this.verificationReport = null;
+        }
+
+        public RecordFailure(long recordIndex,
+                             VerificationReport verificationReport) {
+            this.recordIndex = recordIndex;
+            this.message = null;
+            this.verificationReport = verificationReport;
+        }
+
+        public long getRecordIndex() {
+            return recordIndex;
+        }
+
+        /**
+         * Returns the error message or the failed rules descriptions
+         *
+         * @return Failure message
+         */
+        public String getMessage() {
+            if(verificationReport != null) {
+                return StringUtils.join(
+                        verificationReport.
+                                getFailedRuleResults().
+                                stream().
+                                map(VerificationReport.RuleResult::getDescription).
+                                iterator(),
+                        "; ");
+            }
+
+            return message;
+        }
+
+        /**
+         * Returns the {@link VerificationReport} of the failed record
+         *
+         * @return {@link VerificationReport}
+         * or null if the record could not be verified at all
+         */
+        public VerificationReport getVerificationReport() {
+            return verificationReport;
+        }
+
+        @Override
+        public String toString() {
+            return "Record Failure [" +
+                    StringUtils.join(
+                            new Object[] {
+                                    getRecordIndex(),
+                                    getMessage()
+                            }, ',') +
+                    "]";
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.shimkiv.trust.entities.verification;
+
+import com.shimkiv.trust.evaluation.RuleTemplate;
+
+import java.util.*;
+
+/**
+ * Compiled (immutable) Verification Entities
+ *
+ * Keeps the case-insensitive index of the verification entities
+ * by verification type and the pre-extracted keys of the
+ * placeholders/templates of the verification rules
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class CompiledVerificationEntities extends VerificationEntities {
+    private static final long serialVersionUID = 1L;
+
+    private final List<VerificationEntity> compiledEntities;
+    private final Map<String, CompiledVerificationEntity> compiledEntitiesIndex =
+            new HashMap<>();
+
+    public CompiledVerificationEntities(VerificationEntities verificationEntities) {
+        List<VerificationEntity> entities =
+                new ArrayList<>();
+
+        if(verificationEntities != null) {
+            for(VerificationEntity verificationEntity :
+                    verificationEntities.
+                            getVerificationEntities()) {
+                CompiledVerificationEntity compiledEntity =
+                        verificationEntity instanceof CompiledVerificationEntity ?
+                                (CompiledVerificationEntity) verificationEntity :
+                                new CompiledVerificationEntity(
+                                        verificationEntity);
+
+                entities.add(compiledEntity);
+                compiledEntitiesIndex.
+                        putIfAbsent(
+                                normalizeVerificationType(
+                                        compiledEntity.
+                                                getVerificationType()),
+                                compiledEntity);
+            }
+        }
+
+        this.compiledEntities =
+                Collections.unmodifiableList(
+                        entities);
+    }
+
+    /**
+     * Compiles provided {@link VerificationEntities}
+     * unless they are compiled already
+     *
+     * @param verificationEntities {@link VerificationEntities}
+     * @return {@link CompiledVerificationEntities}
+     */
+    public static CompiledVerificationEntities of(VerificationEntities
+                                                          verificationEntities) {
+        return verificationEntities instanceof CompiledVerificationEntities ?
+                (CompiledVerificationEntities) verificationEntities :
+                new CompiledVerificationEntities(
+                        verificationEntities);
+    }
+
+    @Override
+    public List<VerificationEntity> getVerificationEntities() {
+        return compiledEntities;
+    }
+
+    @Override
+    public CompiledVerificationEntity getVerificationEntity(String verificationType) {
+        return compiledEntitiesIndex.
+                get(normalizeVerificationType(
+                        verificationType));
+    }
+
+    @Override
+    public VerificationEntities setVerificationEntities(List<VerificationEntity>
+                                                                verificationEntities) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public VerificationEntities addVerificationEntity(VerificationEntity
+                                                              verificationEntity) {
+        throw new UnsupportedOperationException();
+    }
+
+    /*
+     * Folds the case the same way as String#equalsIgnoreCase does
+     */
+    private static String normalizeVerificationType(String verificationType) {
+        if(verificationType == null) {
+            return null;
+        }
+
+        char[] chars =
+                verificationType.
+                        toCharArray();
+
+        for(int index = 0; index < chars.length; index++) {
+            chars[index] =
+                    Character.toLowerCase(
+                            Character.toUpperCase(
+                                    chars[index]));
+        }
+
+        return new String(chars);
+    }
+
+    public static class CompiledVerificationEntity extends VerificationEntity {
+        private static final long serialVersionUID = 1L;
+
+        private final String compiledVerificationType;
+        private final List<String> compiledVerificationRules;
+        private final List<List<String>> rulesKeys;
+        private final List<String> keys;
+
+        public CompiledVerificationEntity(VerificationEntity verificationEntity) {
+            List<List<String>> parsedRulesKeys =
+                    new ArrayList<>();
+            Set<String> parsedKeys =
+                    new LinkedHashSet<>();
+
+            for(String verificationRule :
+                    verificationEntity.
+                            getVerificationRules()) {
+                List<String> ruleKeys =
+                        RuleTemplate.
+                                of(verificationRule).
+                                getKeys();
+
+                parsedRulesKeys.add(
+                        ruleKeys);
+                parsedKeys.addAll(
+                        ruleKeys);
+            }
+
+            this.compiledVerificationType =
+                    verificationEntity.
+                            getVerificationType();
+            this.compiledVerificationRules =
+                    Collections.unmodifiableList(
+                            new ArrayList<>(
+                                    verificationEntity.
+                                            getVerificationRules()));
+            this.rulesKeys =
+                    Collections.unmodifiableList(
+                            parsedRulesKeys);
+            this.keys =
+                    Collections.unmodifiableList(
+                            new ArrayList<>(
+                                    parsedKeys));
+        }
+
+        @Override
+        public String getVerificationType() {
+            return compiledVerificationType;
+        }
+
+        @Override
+        public List<String> getVerificationRules() {
+            return compiledVerificationRules;
+        }
+
+        /**
+         * Returns the distinct keys of the placeholders/templates
+         * of all of the verification rules
+         * (see {@link RuleTemplate#getKeys()})
+         *
+         * @return {@link List} of keys
+         */
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        /**
+         * Returns the distinct keys of the placeholders/templates
+         * of the verification rule
+         *
+         * @param ruleIndex Index of the verification rule
+         * @return {@link List} of keys
+         */
+        public List<String> getKeys(int ruleIndex) {
+            return rulesKeys.
+                    get(ruleIndex);
+        }
+
+        @Override
+        public VerificationEntity setVerificationType(String verificationType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public VerificationEntity setVerificationRules(List<String>
+                                                               verificationRules) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public VerificationEntity addVerificationRule(String verificationRule) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
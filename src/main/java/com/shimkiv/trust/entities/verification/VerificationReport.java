@@ -0,0 +1,164 @@
+package com.shimkiv.trust.entities.verification;
+
+import com.shimkiv.trust.enums.VerificationStatus;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
+
+/**
+ * Verification Report
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class VerificationReport implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<RuleResult> ruleResults =
+            new ArrayList<>();
+
+    public List<RuleResult> getRuleResults() {
+        return Collections.
+                unmodifiableList(
+                        ruleResults);
+    }
+
+    public List<RuleResult> getFailedRuleResults() {
+        return ruleResults.
+                stream().
+                filter(ruleResult ->
+                        ruleResult.getStatus() ==
+                                VerificationStatus.FAILED).
+                collect(Collectors.toList());
+    }
+
+    public VerificationReport addRuleResult(RuleResult ruleResult) {
+        ruleResults.add(ruleResult);
+
+        return this;
+    }
+
+    /**
+     * Whether none of the verification rules has failed
+     *
+     * @return true if passed
+     */
+    public boolean isPassed() {
+        for(RuleResult ruleResult : ruleResults) {
+            if(ruleResult.getStatus() ==
+                    VerificationStatus.FAILED) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long getDuration(TimeUnit timeUnit) {
+        long durationNanos = 0;
+
+        for(RuleResult ruleResult : ruleResults) {
+            durationNanos += ruleResult.
+                    getDuration(
+                            TimeUnit.NANOSECONDS);
+        }
+
+        return timeUnit.convert(
+                durationNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "Verification Report [" +
+                LINE_SEPARATOR +
+                StringUtils.join(
+                        ruleResults,
+                        LINE_SEPARATOR) +
+                LINE_SEPARATOR +
+                "]";
+    }
+
+    /**
+     * Result of the particular verification rule evaluation
+     */
+    public static class RuleResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String verificationRule;
+        private final VerificationStatus status;
+        private final long durationNanos;
+        private transient Supplier<String> descriptionSupplier;
+        private String description;
+
+        public RuleResult(String verificationRule,
+                          VerificationStatus status,
+                          long durationNanos,
+                          Supplier<String> descriptionSupplier) {
+            this.verificationRule = verificationRule;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.descriptionSupplier = descriptionSupplier;
+        }
+
+        public String getVerificationRule() {
+            return verificationRule;
+        }
+
+        public VerificationStatus getStatus() {
+            return status;
+        }
+
+        public long getDuration(TimeUnit timeUnit) {
+            return timeUnit.convert(
+                    durationNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the evaluated expression (with the substituted values),
+         * it is built on the first request only
+         *
+         * @return Description of the verification rule
+         */
+        public synchronized String getDescription() {
+            if(descriptionSupplier != null) {
+                description =
+                        descriptionSupplier.get();
+                descriptionSupplier = null;
+            }
+
+            return description != null ?
+                    description :
+                    verificationRule;
+        }
+
+        @Override
+        public String toString() {
+            return "Rule Result [" +
+                    StringUtils.join(
+                            new Object[] {
+                                    getStatus(),
+                                    getDuration(TimeUnit.MICROSECONDS) + "us",
+                                    getDescription()
+                            }, ',') +
+                    "]";
+        }
+
+        private void writeObject(ObjectOutputStream out)
+                throws IOException {
+            getDescription();
+            out.defaultWriteObject();
+        }
+    }
+}
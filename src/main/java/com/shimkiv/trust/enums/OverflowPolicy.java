@@ -0,0 +1,18 @@
+package com.shimkiv.trust.enums;
+
+/**
+ * Verification Queue Overflow Policies Enumeration
+ *
+ * BLOCK - the submitter waits until there is a room in the queue
+ * DROP - the API response is dropped (not verified) if the queue is full
+ * SAMPLE - every n-th API response is queued while the queue is at least half full,
+ * the rest of them (and the ones not fitting the full queue) are dropped
+ *
+ * @author Serhii Shymkiv
+ */
+
+public enum OverflowPolicy {
+    BLOCK,
+    DROP,
+    SAMPLE
+}
@@ -0,0 +1,15 @@
+package com.shimkiv.trust.enums;
+
+/**
+ * Verification Modes Enumeration
+ *
+ * SOFT - all of the verification rules are evaluated
+ * FAIL_FAST - the verification stops at the first failed rule
+ *
+ * @author Serhii Shymkiv
+ */
+
+public enum VerificationMode {
+    SOFT,
+    FAIL_FAST
+}
@@ -0,0 +1,21 @@
+package com.shimkiv.trust.enums;
+
+/**
+ * Verification Phases Enumeration
+ *
+ * VALIDATION - API response validation against the XSD Schema
+ * PARSING - API response payload parsing
+ * EXTRACTION - XPath / JSONPath expression evaluation
+ * SUBSTITUTION - test results substitution/binding into the verification rule
+ * EVALUATION - verification rule evaluation
+ *
+ * @author Serhii Shymkiv
+ */
+
+public enum VerificationPhase {
+    VALIDATION,
+    PARSING,
+    EXTRACTION,
+    SUBSTITUTION,
+    EVALUATION
+}
@@ -0,0 +1,13 @@
+package com.shimkiv.trust.enums;
+
+/**
+ * Verification Statuses Enumeration
+ *
+ * @author Serhii Shymkiv
+ */
+
+public enum VerificationStatus {
+    PASSED,
+    FAILED,
+    SKIPPED
+}
@@ -0,0 +1,239 @@
+package com.shimkiv.trust.evaluation;
+
+import com.shimkiv.trust.evaluation.expression.Expression;
+import com.shimkiv.trust.evaluation.expression.ExpressionParser;
+import com.shimkiv.trust.evaluation.expression.ExpressionUtils;
+import com.shimkiv.trust.evaluation.expression.UnsupportedExpressionException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.shimkiv.trust.config.TrustConfig.TPL_VARIABLE_PREFIX;
+
+/**
+ * Aggregate Placeholder
+ *
+ * Multi-valued placeholder/template key which aggregates
+ * all values matched by the XPath / JSONPath expression natively
+ * (without serializing them into the script), e.g.:
+ * ${all:$.items[*].status == 'ACTIVE'}, ${any:/Response/items/item/id > 5},
+ * ${none:$.items[*].deleted}, ${count:$.items[*]},
+ * ${sum:$.items[*].amount}, ${min:$.items[*].amount}, ${max:$.items[*].amount}
+ *
+ * The all/any/none/count predicates are the natively supported comparisons
+ * of each value against the literal (or the value truthiness if omitted)
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class AggregatePlaceholder {
+    private static final Pattern AGGREGATE_PATTERN =
+            Pattern.compile(
+                    "(all|any|none|count|sum|min|max):\\s*(.+)",
+                    Pattern.DOTALL);
+    private static final Pattern PREDICATE_PATTERN =
+            Pattern.compile(
+                    "(.+?)\\s*(===|!==|==|!=|>=|<=|>|<)\\s*" +
+                            "('(?:[^'\\\\]|\\\\.)*'|\"(?:[^\"\\\\]|\\\\.)*\"|" +
+                            "-?\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?|true|false|null)",
+                    Pattern.DOTALL);
+    private static final String VALUE_VARIABLE =
+            TPL_VARIABLE_PREFIX + "value";
+    private static final String TRUTHINESS_PREDICATE =
+            "!!" + VALUE_VARIABLE;
+
+    private final String function;
+    private final String evalExpression;
+    private final String predicate;
+    // Parsed on the first match (the placeholder is parsed per evaluation)
+    private Expression predicateExpression;
+
+    private AggregatePlaceholder(String function,
+                                 String evalExpression,
+                                 String predicate) {
+        this.function = function;
+        this.evalExpression = evalExpression;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Parses provided placeholder/template key
+     *
+     * @param key Placeholder/template key
+     * @return {@link AggregatePlaceholder}
+     * or null if the key is not the aggregate one
+     */
+    public static AggregatePlaceholder parse(String key) {
+        if(key == null ||
+                key.indexOf(':') < 0) {
+            return null;
+        }
+
+        Matcher aggregateMatcher =
+                AGGREGATE_PATTERN.
+                        matcher(key.trim());
+
+        if(!aggregateMatcher.matches()) {
+            return null;
+        }
+
+        String function =
+                aggregateMatcher.group(1);
+        String evalExpression =
+                aggregateMatcher.group(2);
+
+        if(function.equals("sum") ||
+                function.equals("min") ||
+                function.equals("max")) {
+            return new AggregatePlaceholder(
+                    function,
+                    evalExpression,
+                    null);
+        }
+
+        Matcher predicateMatcher =
+                PREDICATE_PATTERN.
+                        matcher(evalExpression);
+
+        if(predicateMatcher.matches()) {
+            return new AggregatePlaceholder(
+                    function,
+                    predicateMatcher.group(1),
+                    VALUE_VARIABLE + " " +
+                            predicateMatcher.group(2) + " " +
+                            predicateMatcher.group(3));
+        }
+
+        return new AggregatePlaceholder(
+                function,
+                evalExpression,
+                function.equals("count") ?
+                        null :
+                        TRUTHINESS_PREDICATE);
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * Returns the XPath / JSONPath expression of the aggregated values
+     *
+     * @return Expression to evaluate
+     */
+    public String getEvalExpression() {
+        return evalExpression;
+    }
+
+    /**
+     * Aggregates provided values
+     *
+     * @param values {@link List} of values
+     * @return {@link Boolean} for all/any/none, {@link Integer} for count,
+     * {@link Double} for sum/min/max (null for min/max of no values)
+     * @throws UnsupportedExpressionException if any of the values
+     * is out of the natively supported subset (e.g. the JSON object)
+     */
+    public Object aggregate(List<Object> values) {
+        switch (function) {
+            case "all":
+                for(Object value : values) {
+                    if(!matches(value)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            case "any":
+                for(Object value : values) {
+                    if(matches(value)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            case "none":
+                for(Object value : values) {
+                    if(matches(value)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            case "count":
+                if(predicate == null) {
+                    return values.size();
+                }
+
+                int count = 0;
+
+                for(Object value : values) {
+                    if(matches(value)) {
+                        count++;
+                    }
+                }
+
+                return count;
+            case "sum":
+                double sum = 0;
+
+                for(Object value : values) {
+                    sum += ExpressionUtils.
+                            toNumber(value);
+                }
+
+                return sum;
+            default:
+                Double result = null;
+
+                for(Object value : values) {
+                    double number =
+                            ExpressionUtils.
+                                    toNumber(value);
+
+                    if(result == null ||
+                            Double.isNaN(number) ||
+                            (function.equals("min") ?
+                                    number < result :
+                                    number > result)) {
+                        result = number;
+                    }
+
+                    if(Double.isNaN(result)) {
+                        break;
+                    }
+                }
+
+                return result;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Aggregate Placeholder [" +
+                function + ", " +
+                evalExpression + ", " +
+                predicate +
+                "]";
+    }
+
+    private boolean matches(Object value) {
+        Map<String, Object> variables =
+                Collections.singletonMap(
+                        VALUE_VARIABLE,
+                        value);
+
+        if(predicateExpression == null) {
+            predicateExpression =
+                    ExpressionParser.
+                            parse(predicate);
+        }
+
+        return Boolean.TRUE.equals(
+                predicateExpression.
+                        evaluate(variables));
+    }
+}
@@ -0,0 +1,244 @@
+package com.shimkiv.trust.evaluation;
+
+import com.shimkiv.trust.common.CacheStats;
+import com.shimkiv.trust.common.SampledLruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static com.shimkiv.trust.config.TrustConfig.COMPILED_RULES_CACHE_SIZE;
+
+/**
+ * Evaluation Results Cache
+ *
+ * Bounded (by the amount and total weight of entries), concurrent memo
+ * of the evaluation results keyed by the evaluated expression and bound variables,
+ * so the repeated evaluations cost a lock-free hash lookup
+ *
+ * Results of the non-deterministic verification rules
+ * (matching the provided pattern) and failed evaluations are never memoized
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class EvaluationResultsCache {
+    // Weight of the non-String bound values
+    private static final int DEFAULT_VALUE_WEIGHT = 16;
+
+    private final SampledLruCache<EvaluationKey, Boolean> evaluationResults;
+    private final SampledLruCache<String, Boolean> deterministicRules;
+    private final Pattern nonDeterministicRulesPattern;
+
+    public EvaluationResultsCache(int maxSize,
+                                  long maxWeight,
+                                  String nonDeterministicRulesPattern) {
+        this.evaluationResults =
+                new SampledLruCache<>(
+                        "evaluationResults",
+                        maxSize,
+                        maxWeight,
+                        (evaluationKey, result) ->
+                                evaluationKey.weight);
+        this.deterministicRules =
+                new SampledLruCache<>(
+                        COMPILED_RULES_CACHE_SIZE);
+        this.nonDeterministicRulesPattern =
+                nonDeterministicRulesPattern != null &&
+                        !nonDeterministicRulesPattern.isEmpty() ?
+                        Pattern.compile(
+                                nonDeterministicRulesPattern) :
+                        null;
+    }
+
+    public boolean isEnabled() {
+        return evaluationResults.isEnabled();
+    }
+
+    /**
+     * Checks whether provided verification rule is deterministic
+     * (does not match the non-deterministic rules pattern)
+     *
+     * @param verificationRule Verification rule
+     * @return true/false
+     */
+    public boolean isDeterministic(String verificationRule) {
+        if(nonDeterministicRulesPattern == null ||
+                verificationRule == null) {
+            return true;
+        }
+
+        Boolean deterministic =
+                deterministicRules.
+                        get(verificationRule);
+
+        if(deterministic == null) {
+            deterministic =
+                    !nonDeterministicRulesPattern.
+                            matcher(verificationRule).
+                            find();
+
+            deterministicRules.
+                    put(verificationRule,
+                            deterministic);
+        }
+
+        return deterministic;
+    }
+
+    /**
+     * Returns the memoized evaluation result
+     * or evaluates it by using provided evaluator
+     *
+     * @param verificationRule Verification rule (before the substitution)
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of bound variables
+     * @param evaluator Evaluator which returns null if evaluation fails
+     * @return Evaluation result
+     */
+    public boolean evaluate(String verificationRule,
+                            String evalExpression,
+                            Map<String, Object> variables,
+                            Supplier<Boolean> evaluator) {
+        if(!isEnabled() ||
+                !isDeterministic(
+                        verificationRule != null ?
+                                verificationRule :
+                                evalExpression)) {
+            return Boolean.TRUE.equals(
+                    evaluator.get());
+        }
+
+        EvaluationKey evaluationKey =
+                new EvaluationKey(
+                        evalExpression,
+                        variables);
+        Boolean result =
+                evaluationResults.
+                        get(evaluationKey);
+
+        if(result == null) {
+            result = evaluator.get();
+
+            if(result != null) {
+                evaluationResults.
+                        put(evaluationKey.detach(),
+                                result);
+            }
+        }
+
+        return Boolean.TRUE.equals(result);
+    }
+
+    /**
+     * Returns the evaluation results cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getStats() {
+        return evaluationResults.
+                getStats();
+    }
+
+    /**
+     * Returns the total weight of the memoized evaluation results
+     *
+     * @return Total weight
+     */
+    public long getWeight() {
+        return evaluationResults.
+                getWeight();
+    }
+
+    /**
+     * Removes all of the memoized evaluation results
+     */
+    public void clear() {
+        evaluationResults.clear();
+    }
+
+    private static class EvaluationKey {
+        private final String evalExpression;
+        private final Map<String, Object> variables;
+        private final int hash;
+        private final long weight;
+
+        EvaluationKey(String evalExpression,
+                      Map<String, Object> variables) {
+            this(evalExpression,
+                    variables != null &&
+                            !variables.isEmpty() ?
+                            variables :
+                            null,
+                    0);
+        }
+
+        private EvaluationKey(String evalExpression,
+                              Map<String, Object> variables,
+                              long weight) {
+            this.evalExpression = evalExpression;
+            this.variables = variables;
+            this.hash =
+                    Objects.hash(
+                            evalExpression,
+                            variables);
+            this.weight = weight;
+        }
+
+        /*
+         * Returns the key which does not share the variables with the caller
+         */
+        EvaluationKey detach() {
+            long detachedWeight =
+                    evalExpression != null ?
+                            evalExpression.length() :
+                            0;
+
+            if(variables != null) {
+                for(Map.Entry<String, Object> variable : variables.entrySet()) {
+                    detachedWeight +=
+                            variable.getKey().length() +
+                                    (variable.getValue() instanceof String ?
+                                            ((String) variable.getValue()).length() :
+                                            DEFAULT_VALUE_WEIGHT);
+                }
+            }
+
+            return new EvaluationKey(
+                    evalExpression,
+                    variables != null ?
+                            new HashMap<>(variables) :
+                            null,
+                    detachedWeight);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if(this == object) {
+                return true;
+            }
+
+            if(!(object instanceof EvaluationKey)) {
+                return false;
+            }
+
+            EvaluationKey evaluationKey =
+                    (EvaluationKey) object;
+
+            return hash == evaluationKey.hash &&
+                    Objects.equals(
+                            evalExpression,
+                            evaluationKey.evalExpression) &&
+                    Objects.equals(
+                            variables,
+                            evaluationKey.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
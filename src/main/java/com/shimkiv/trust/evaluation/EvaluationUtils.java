@@ -1,60 +1,43 @@
 package com.shimkiv.trust.evaluation;
 
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.JsonPath;
-import org.xml.sax.InputSource;
-
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPathFactory;
-import java.io.StringReader;
-import java.text.MessageFormat;
-import java.util.List;
-import java.util.logging.Logger;
-
-import static com.jayway.jsonpath.Option.ALWAYS_RETURN_LIST;
-import static com.jayway.jsonpath.Option.SUPPRESS_EXCEPTIONS;
-import static com.shimkiv.trust.common.CommonUtils.collectionIsNotEmpty;
-import static com.shimkiv.trust.common.CommonUtils.parseBoolean;
-import static com.shimkiv.trust.config.TrustConfig.*;
-import static org.apache.commons.lang3.StringUtils.EMPTY;
+import com.shimkiv.trust.TrustEngine;
+import com.shimkiv.trust.common.CacheStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.shimkiv.trust.common.CommonUtils.mapFile;
 
 /**
  * Evaluation Utils
  *
+ * The evaluations are performed by the default {@link TrustEngine}
+ *
  * @author Serhii Shymkiv
  */
 
 public class EvaluationUtils {
-    private static final Logger LOG =
-            Logger.getLogger(
-                    EvaluationUtils.class.
-                            getName());
-
-    private static final ScriptEngine SCRIPT_ENGINE =
-            new ScriptEngineManager().
-                    getEngineByName(
-                            SCRIPT_ENGINE_NAME);
-
-    static {
-        SCRIPTS_TO_LOAD.
-                forEach(
-                        script -> {
-                            try {
-                                SCRIPT_ENGINE.eval(
-                                        MessageFormat.format(
-                                                LOAD_SCRIPT_TPL_EXPR,
-                                                script));
-                            } catch (Exception e) {
-                                LOG.config(SCRIPT_EVAL_ERROR_MESSAGE);
-                            }
-                        });
-    }
-
     // Prevents instantiation
     private EvaluationUtils() {}
 
+    /**
+     * Creates the script engine and loads the scripts in background,
+     * so the first evaluation does not have to wait for it
+     *
+     * @return {@link CompletableFuture} of the warm-up
+     */
+    public static CompletableFuture<Void> warmUp() {
+        return TrustEngine.
+                getDefault().
+                warmUp();
+    }
+
     /**
      * Evaluates provided JS expression into the {@link Boolean}
      *
@@ -62,19 +45,97 @@ public class EvaluationUtils {
      * @return Evaluation result
      */
     public static boolean evaluateJsToBoolean(String evalExpression) {
-        try {
-            return parseBoolean(
-                    SCRIPT_ENGINE.
-                            eval(evalExpression.
-                                    endsWith(COLON_MARK) ?
-                                    evalExpression :
-                                    evalExpression +
-                                            COLON_MARK));
-        } catch (Exception e) {
-            LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
-        }
+        return evaluateJsToBoolean(
+                evalExpression,
+                new HashMap<>());
+    }
+
+    /**
+     * Evaluates provided JS expression into the {@link Boolean}
+     * with provided variables bound for this evaluation only
+     *
+     * The expressions of the natively supported subset
+     * (comparison and logical operators, some of the Lodash functions)
+     * are evaluated without the script engine
+     *
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of variables to bind
+     * @return Evaluation result
+     */
+    public static boolean evaluateJsToBoolean(String evalExpression,
+                                              Map<String, Object> variables) {
+        return evaluateJsToBoolean(
+                evalExpression,
+                variables,
+                null,
+                evalExpression);
+    }
 
-        return false;
+    /**
+     * Evaluates provided JS expression into the {@link Boolean}
+     * with provided variables bound for this evaluation only
+     *
+     * The verification type is used for the diagnostics only
+     * (e.g. the JFR events), the results of the deterministic verification rules
+     * may be memoized (see the trust.evaluationResultsCacheSize system property)
+     *
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of variables to bind
+     * @param verificationType The type of verification rule
+     * @param verificationRule Verification rule (before the substitution)
+     * @return Evaluation result
+     */
+    public static boolean evaluateJsToBoolean(String evalExpression,
+                                              Map<String, Object> variables,
+                                              String verificationType,
+                                              String verificationRule) {
+        return TrustEngine.
+                getDefault().
+                evaluateJsToBoolean(
+                        evalExpression,
+                        variables,
+                        verificationType,
+                        verificationRule);
+    }
+
+    /**
+     * Returns the compiled verification rules cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public static CacheStats getCompiledRulesCacheStats() {
+        return TrustEngine.
+                getDefault().
+                getCompiledRulesCacheStats();
+    }
+
+    /**
+     * Removes all of the compiled verification rules from the cache
+     */
+    public static void clearCompiledRulesCache() {
+        TrustEngine.
+                getDefault().
+                clearCompiledRulesCache();
+    }
+
+    /**
+     * Returns the memoized evaluation results cache statistics
+     *
+     * @return {@link CacheStats}
+     */
+    public static CacheStats getEvaluationResultsCacheStats() {
+        return TrustEngine.
+                getDefault().
+                getEvaluationResultsCacheStats();
+    }
+
+    /**
+     * Removes all of the memoized evaluation results from the cache
+     */
+    public static void clearEvaluationResultsCache() {
+        TrustEngine.
+                getDefault().
+                clearEvaluationResultsCache();
     }
 
     /**
@@ -86,23 +147,12 @@ public class EvaluationUtils {
      */
     public static String evaluateXPathToString(String evalExpression,
                                                String xmlSource) {
-        try {
-            return XPathFactory.
-                    newInstance().
-                    newXPath().
-                    evaluate(
-                            evalExpression,
-                            DocumentBuilderFactory.
-                                    newInstance().
-                                    newDocumentBuilder().
-                                    parse(new InputSource(
-                                            new StringReader(
-                                                    xmlSource))));
-        } catch (Exception e) {
-            LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
-        }
-
-        return EMPTY;
+        return ExtractionSession.
+                forXml(xmlSource).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
     }
 
     /**
@@ -114,26 +164,153 @@ public class EvaluationUtils {
      */
     public static String evaluateJsonPathToString(String evalExpression,
                                                   String jsonSource) {
-        try {
-            List<Object> parsedData =
-                    JsonPath.
-                            using(Configuration.
-                                    defaultConfiguration().
-                                    addOptions(
-                                            ALWAYS_RETURN_LIST,
-                                            SUPPRESS_EXCEPTIONS)).
-                            parse(jsonSource).
-                            read(evalExpression);
-
-            return collectionIsNotEmpty(parsedData) ?
-                    String.valueOf(
-                            parsedData.
-                                    get(FIRST_ELEMENT)) :
-                    EMPTY;
-        } catch (Exception e) {
-            LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
-        }
-
-        return EMPTY;
+        return ExtractionSession.
+                forJson(jsonSource).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided XPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param xmlSource XML source {@link InputStream} (the stream is not closed)
+     * @return Evaluation result
+     */
+    public static String evaluateXPathToString(String evalExpression,
+                                               InputStream xmlSource) {
+        return ExtractionSession.
+                forXml(xmlSource).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided XPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param xmlSource XML source bytes
+     * @return Evaluation result
+     */
+    public static String evaluateXPathToString(String evalExpression,
+                                               byte[] xmlSource) {
+        return ExtractionSession.
+                forXml(ByteBuffer.
+                        wrap(xmlSource)).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided XPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param xmlSource XML source {@link ByteBuffer}
+     * @return Evaluation result
+     */
+    public static String evaluateXPathToString(String evalExpression,
+                                               ByteBuffer xmlSource) {
+        return ExtractionSession.
+                forXml(xmlSource).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided XPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param xmlSource {@link Path} of the XML source (the file is memory-mapped)
+     * @return Evaluation result
+     */
+    public static String evaluateXPathToString(String evalExpression,
+                                               Path xmlSource)
+            throws IOException {
+        return ExtractionSession.
+                forXml(mapFile(
+                        xmlSource)).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided JSONPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param jsonSource JSON source {@link InputStream} (the stream is not closed)
+     * @return Evaluation result
+     */
+    public static String evaluateJsonPathToString(String evalExpression,
+                                                  InputStream jsonSource) {
+        return ExtractionSession.
+                forJson(jsonSource).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided JSONPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param jsonSource JSON source bytes
+     * @return Evaluation result
+     */
+    public static String evaluateJsonPathToString(String evalExpression,
+                                                  byte[] jsonSource) {
+        return ExtractionSession.
+                forJson(ByteBuffer.
+                        wrap(jsonSource)).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided JSONPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param jsonSource JSON source {@link ByteBuffer}
+     * @return Evaluation result
+     */
+    public static String evaluateJsonPathToString(String evalExpression,
+                                                  ByteBuffer jsonSource) {
+        return ExtractionSession.
+                forJson(jsonSource).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
+    }
+
+    /**
+     * Evaluates provided JSONPath expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @param jsonSource {@link Path} of the JSON source (the file is memory-mapped)
+     * @return Evaluation result
+     */
+    public static String evaluateJsonPathToString(String evalExpression,
+                                                  Path jsonSource)
+            throws IOException {
+        return ExtractionSession.
+                forJson(mapFile(
+                        jsonSource)).
+                evaluateToStrings(
+                        Collections.singleton(
+                                evalExpression)).
+                get(evalExpression);
     }
 }
@@ -0,0 +1,1119 @@
+package com.shimkiv.trust.evaluation;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.ParseContext;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import com.shimkiv.trust.common.ByteBufferInputStream;
+import com.shimkiv.trust.common.ObjectPool;
+import com.shimkiv.trust.common.SampledLruCache;
+import com.shimkiv.trust.enums.VerificationPhase;
+import com.shimkiv.trust.evaluation.expression.UnsupportedExpressionException;
+import com.shimkiv.trust.evaluation.streaming.StreamingJsonExtractor;
+import com.shimkiv.trust.evaluation.streaming.StreamingXmlExtractor;
+import com.shimkiv.trust.jfr.JfrUtils;
+import com.shimkiv.trust.metrics.MetricsUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static com.jayway.jsonpath.Option.ALWAYS_RETURN_LIST;
+import static com.jayway.jsonpath.Option.SUPPRESS_EXCEPTIONS;
+import static com.shimkiv.trust.common.CommonUtils.collectionIsNotEmpty;
+import static com.shimkiv.trust.config.TrustConfig.*;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Extraction Session
+ *
+ * Parses the API response payload once (lazily, on the first evaluation)
+ * and evaluates any amount of the XPath / JSONPath expressions against it,
+ * the simple expressions of the big payloads may be extracted
+ * in a single streaming pass without the parsing
+ *
+ * @author Serhii Shymkiv
+ */
+
+public abstract class ExtractionSession {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    ExtractionSession.class.
+                            getName());
+
+    /*
+     * XPath and DOM objects/compiled expressions are not thread-safe,
+     * so they are pooled and shared by all of the threads
+     * (compiled XPath expressions are pooled per expression),
+     * the factories are guarded by their own locks
+     *
+     * Compiled expressions depend on the expressions only (not on any
+     * of the engines configuration), so they are shared by all of the engines
+     * without locking on the lookups
+     */
+    private static final XPathFactory X_PATH_FACTORY =
+            XPathFactory.
+                    newInstance();
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY =
+            DocumentBuilderFactory.
+                    newInstance();
+    private static final ObjectPool<DocumentBuilder> DOCUMENT_BUILDERS =
+            new ObjectPool<>(
+                    XML_POOL_SIZE,
+                    ExtractionSession::newDocumentBuilder);
+    private static final ObjectPool<XPath> X_PATHS =
+            new ObjectPool<>(
+                    XML_POOL_SIZE,
+                    ExtractionSession::newXPath);
+    private static final SampledLruCache<String, ObjectPool<XPathExpression>>
+            X_PATH_EXPRESSIONS =
+            new SampledLruCache<>(
+                    "xPathExpressions",
+                    COMPILED_PATHS_CACHE_SIZE);
+    private static final SampledLruCache<String, JsonPath> JSON_PATHS =
+            new SampledLruCache<>(
+                    "jsonPaths",
+                    COMPILED_PATHS_CACHE_SIZE);
+    private static final String ROOT_PATH = "$";
+    private static final String FAILED_OUTCOME = "FAILED";
+    private static final String EMPTY_OUTCOME = "EMPTY";
+    private static final String EXTRACTED_OUTCOME = "EXTRACTED";
+
+    // JSON configuration of the sessions created without the engine one
+    private static final Configuration DEFAULT_JSON_CONFIGURATION =
+            defaultJsonConfiguration();
+    private static final ParseContext DEFAULT_JSON_PARSE_CONTEXT =
+            newJsonParseContext(
+                    DEFAULT_JSON_CONFIGURATION);
+
+    // Results of the streaming extraction
+    private Map<String, Object> streamedResults;
+
+    /**
+     * Creates {@link ExtractionSession} for the XML source
+     *
+     * @param xmlSource XML source
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forXml(String xmlSource) {
+        return new XmlExtractionSession(
+                xmlSource,
+                payloadSize(xmlSource));
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the XML source {@link InputStream}
+     * (the stream is not closed)
+     *
+     * @param xmlSource XML source {@link InputStream}
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forXml(InputStream xmlSource) {
+        return new XmlExtractionSession(
+                xmlSource,
+                JfrUtils.UNKNOWN_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the XML source {@link ByteBuffer}
+     * (e.g. the memory-mapped file), the buffer is not copied on the heap
+     *
+     * @param xmlSource XML source {@link ByteBuffer}
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forXml(ByteBuffer xmlSource) {
+        return new XmlExtractionSession(
+                xmlSource.duplicate(),
+                xmlSource.remaining());
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the already parsed XML {@link Document}
+     *
+     * @param xmlDocument XML {@link Document}
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forXml(Document xmlDocument) {
+        return new XmlExtractionSession(xmlDocument);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the JSON source
+     *
+     * @param jsonSource JSON source
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forJson(String jsonSource) {
+        return new JsonExtractionSession(
+                jsonSource,
+                payloadSize(jsonSource),
+                DEFAULT_JSON_PARSE_CONTEXT);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the JSON source {@link InputStream}
+     * (the stream is not closed)
+     *
+     * @param jsonSource JSON source {@link InputStream}
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forJson(InputStream jsonSource) {
+        return new JsonExtractionSession(
+                jsonSource,
+                JfrUtils.UNKNOWN_PAYLOAD_SIZE,
+                DEFAULT_JSON_PARSE_CONTEXT);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the JSON source {@link ByteBuffer}
+     * (e.g. the memory-mapped file), the buffer is not copied on the heap
+     *
+     * @param jsonSource JSON source {@link ByteBuffer}
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forJson(ByteBuffer jsonSource) {
+        return new JsonExtractionSession(
+                jsonSource.duplicate(),
+                jsonSource.remaining(),
+                DEFAULT_JSON_PARSE_CONTEXT);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the API response payload
+     * {@link ByteBuffer} (e.g. the memory-mapped file)
+     *
+     * @param apiResponsePayload API response payload {@link ByteBuffer}
+     * @param apiResponseContentType API response content-type
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forApiResponse(ByteBuffer apiResponsePayload,
+                                                   String apiResponseContentType) {
+        return forApiResponse(
+                apiResponsePayload,
+                apiResponseContentType,
+                DEFAULT_JSON_PARSE_CONTEXT);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the API response payload
+     * {@link ByteBuffer} (e.g. the memory-mapped file)
+     * which parses the JSON payload with provided {@link ParseContext}
+     *
+     * @param apiResponsePayload API response payload {@link ByteBuffer}
+     * @param apiResponseContentType API response content-type
+     * @param jsonParseContext JSON {@link ParseContext} (see {@link #newJsonParseContext(Configuration)})
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forApiResponse(ByteBuffer apiResponsePayload,
+                                                   String apiResponseContentType,
+                                                   ParseContext jsonParseContext) {
+        return StringUtils.
+                containsIgnoreCase(
+                        apiResponseContentType,
+                        XML_MARK) ?
+                forXml(apiResponsePayload) :
+                new JsonExtractionSession(
+                        apiResponsePayload.duplicate(),
+                        apiResponsePayload.remaining(),
+                        jsonParseContext);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the API response payload
+     * {@link InputStream} (the stream is not closed)
+     *
+     * @param apiResponsePayload API response payload {@link InputStream}
+     * @param apiResponseContentType API response content-type
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forApiResponse(InputStream apiResponsePayload,
+                                                   String apiResponseContentType) {
+        return forApiResponse(
+                apiResponsePayload,
+                apiResponseContentType,
+                DEFAULT_JSON_PARSE_CONTEXT);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the API response payload
+     * {@link InputStream} (the stream is not closed)
+     * which parses the JSON payload with provided {@link ParseContext}
+     *
+     * @param apiResponsePayload API response payload {@link InputStream}
+     * @param apiResponseContentType API response content-type
+     * @param jsonParseContext JSON {@link ParseContext} (see {@link #newJsonParseContext(Configuration)})
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forApiResponse(InputStream apiResponsePayload,
+                                                   String apiResponseContentType,
+                                                   ParseContext jsonParseContext) {
+        return StringUtils.
+                containsIgnoreCase(
+                        apiResponseContentType,
+                        XML_MARK) ?
+                forXml(apiResponsePayload) :
+                new JsonExtractionSession(
+                        apiResponsePayload,
+                        JfrUtils.UNKNOWN_PAYLOAD_SIZE,
+                        jsonParseContext);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the API response payload
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forApiResponse(String apiResponsePayload,
+                                                   String apiResponseContentType) {
+        return forApiResponse(
+                apiResponsePayload,
+                apiResponseContentType,
+                DEFAULT_JSON_PARSE_CONTEXT);
+    }
+
+    /**
+     * Creates {@link ExtractionSession} for the API response payload
+     * which parses the JSON payload with provided {@link ParseContext}
+     *
+     * @param apiResponsePayload API response payload
+     * @param apiResponseContentType API response content-type
+     * @param jsonParseContext JSON {@link ParseContext} (see {@link #newJsonParseContext(Configuration)})
+     * @return {@link ExtractionSession}
+     */
+    public static ExtractionSession forApiResponse(String apiResponsePayload,
+                                                   String apiResponseContentType,
+                                                   ParseContext jsonParseContext) {
+        return StringUtils.
+                containsIgnoreCase(
+                        apiResponseContentType,
+                        XML_MARK) ?
+                forXml(apiResponsePayload) :
+                new JsonExtractionSession(
+                        apiResponsePayload,
+                        payloadSize(apiResponsePayload),
+                        jsonParseContext);
+    }
+
+    /**
+     * Returns the JSONPath {@link Configuration} of the JSON/mapping providers
+     * set by the corresponding system properties
+     *
+     * @return JSONPath {@link Configuration}
+     */
+    public static Configuration getDefaultJsonConfiguration() {
+        return DEFAULT_JSON_CONFIGURATION;
+    }
+
+    /**
+     * Creates the thread-safe JSON {@link ParseContext} of the JSON sessions
+     * by provided JSONPath {@link Configuration} (e.g. the {@link JsonProvider}
+     * with the reusable object mapper),
+     * the ALWAYS_RETURN_LIST and SUPPRESS_EXCEPTIONS options are always added
+     *
+     * @param configuration JSONPath {@link Configuration}
+     * @return JSON {@link ParseContext}
+     */
+    public static ParseContext newJsonParseContext(Configuration configuration) {
+        return JsonPath.
+                using(configuration.
+                        addOptions(
+                                ALWAYS_RETURN_LIST,
+                                SUPPRESS_EXCEPTIONS));
+    }
+
+    /**
+     * Evaluates provided expression into the {@link String}
+     *
+     * @param evalExpression Expression to evaluate
+     * @return Evaluation result
+     */
+    public String evaluateToString(String evalExpression) {
+        return String.valueOf(
+                evaluateToObject(
+                        evalExpression));
+    }
+
+    /**
+     * Evaluates provided expression into the typed value:
+     * the JSON values are kept as the {@link Number}, {@link Boolean},
+     * {@link List}, {@link Map}, {@link String} or null,
+     * the XPath results are the {@link String}s
+     * (the empty {@link String} if nothing is matched or evaluation fails),
+     * the {@link AggregatePlaceholder} keys are evaluated
+     * into the corresponding aggregates
+     *
+     * @param evalExpression Expression to evaluate
+     * @return Evaluation result
+     */
+    public Object evaluateToObject(String evalExpression) {
+        if(streamedResults != null &&
+                streamedResults.
+                        containsKey(evalExpression)) {
+            return streamedResults.
+                    get(evalExpression);
+        }
+
+        AggregatePlaceholder aggregatePlaceholder =
+                AggregatePlaceholder.
+                        parse(evalExpression);
+
+        if(aggregatePlaceholder != null) {
+            return evaluateAggregate(
+                    aggregatePlaceholder);
+        }
+
+        return evaluateTree(
+                evalExpression);
+    }
+
+    /**
+     * Evaluates provided expression into the {@link List} of all matched values
+     * (the XPath node sets are evaluated into the nodes text contents,
+     * the definite JSONPath of the array into its elements)
+     *
+     * @param evalExpression Expression to evaluate
+     * @return {@link List} of values
+     * (empty if nothing is matched or evaluation fails)
+     */
+    public List<Object> evaluateToList(String evalExpression) {
+        List<Object> values =
+                evaluateTreeToList(
+                        evalExpression);
+
+        return values != null ?
+                values :
+                Collections.emptyList();
+    }
+
+    /**
+     * Evaluates provided expressions into the {@link Map}
+     * of expressions and corresponding evaluation results
+     *
+     * @param evalExpressions Expressions to evaluate
+     * @return {@link Map} of evaluation results
+     */
+    public Map<String, String> evaluateToStrings(Collection<String>
+                                                         evalExpressions) {
+        Map<String, String> evaluationResults =
+                new HashMap<>();
+
+        prefetch(evalExpressions);
+
+        evalExpressions.
+                forEach(evalExpression -> {
+                    if(!evaluationResults.
+                            containsKey(
+                                    evalExpression)) {
+                        evaluationResults.put(
+                                evalExpression,
+                                evaluateToString(
+                                        evalExpression));
+                    }
+                });
+
+        return evaluationResults;
+    }
+
+    /**
+     * Extracts provided expressions in a single forward pass
+     * over the not yet parsed payload (stops as soon as every value is found)
+     * if they are all simple and the payload size reaches
+     * the streaming extraction threshold, otherwise does nothing
+     * and the expressions are evaluated against the parsed tree
+     *
+     * @param evalExpressions Expressions to extract
+     */
+    public void prefetch(Collection<String> evalExpressions) {
+        if(STREAMING_EXTRACTION_THRESHOLD < 0 ||
+                !isStreamable() ||
+                getPayloadSize() < STREAMING_EXTRACTION_THRESHOLD) {
+            return;
+        }
+
+        List<String> pendingExpressions =
+                new ArrayList<>();
+
+        for(String evalExpression : evalExpressions) {
+            if(streamedResults == null ||
+                    !streamedResults.
+                            containsKey(evalExpression)) {
+                pendingExpressions.
+                        add(evalExpression);
+            }
+        }
+
+        if(pendingExpressions.isEmpty()) {
+            return;
+        }
+
+        long startTime =
+                MetricsUtils.startTime();
+
+        try {
+            Map<String, Object> extractionResults =
+                    stream(pendingExpressions);
+
+            if(extractionResults != null) {
+                if(streamedResults == null) {
+                    streamedResults =
+                            new HashMap<>();
+                }
+
+                streamedResults.
+                        putAll(extractionResults);
+            }
+        } finally {
+            MetricsUtils.
+                    firePhaseCompleted(
+                            VerificationPhase.PARSING,
+                            startTime);
+        }
+    }
+
+    abstract Object evaluateTree(String evalExpression);
+
+    /*
+     * Returns null if evaluation fails
+     */
+    abstract List<Object> evaluateTreeToList(String evalExpression);
+
+    /*
+     * Whether the payload is not parsed yet and can be read once more
+     */
+    abstract boolean isStreamable();
+
+    abstract long getPayloadSize();
+
+    /*
+     * Returns null if the payload or expressions can't be streamed
+     */
+    abstract Map<String, Object> stream(Collection<String> evalExpressions);
+
+    private Object evaluateAggregate(AggregatePlaceholder aggregatePlaceholder) {
+        List<Object> values =
+                evaluateTreeToList(
+                        aggregatePlaceholder.
+                                getEvalExpression());
+
+        if(values != null) {
+            try {
+                return aggregatePlaceholder.
+                        aggregate(values);
+            } catch (UnsupportedExpressionException e) {
+                LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
+                fireExtractionFailure(
+                        aggregatePlaceholder.
+                                getEvalExpression(),
+                        e);
+            }
+        }
+
+        return EMPTY;
+    }
+
+    /*
+     * Uses the JSON/mapping providers of the corresponding system properties
+     */
+    private static Configuration defaultJsonConfiguration() {
+        Configuration configuration =
+                Configuration.
+                        defaultConfiguration();
+
+        if(StringUtils.isNotBlank(JSON_PROVIDER)) {
+            try {
+                configuration =
+                        configuration.
+                                jsonProvider(
+                                        (JsonProvider) Class.
+                                                forName(JSON_PROVIDER).
+                                                getDeclaredConstructor().
+                                                newInstance());
+            } catch (Exception | LinkageError e) {
+                LOG.warning(
+                        MessageFormat.format(
+                                JSON_PROVIDER_ERROR_MESSAGE,
+                                JSON_PROVIDER));
+            }
+        }
+
+        if(StringUtils.isNotBlank(JSON_MAPPING_PROVIDER)) {
+            try {
+                configuration =
+                        configuration.
+                                mappingProvider(
+                                        (MappingProvider) Class.
+                                                forName(JSON_MAPPING_PROVIDER).
+                                                getDeclaredConstructor().
+                                                newInstance());
+            } catch (Exception | LinkageError e) {
+                LOG.warning(
+                        MessageFormat.format(
+                                JSON_PROVIDER_ERROR_MESSAGE,
+                                JSON_MAPPING_PROVIDER));
+            }
+        }
+
+        return configuration;
+    }
+
+    private static DocumentBuilder newDocumentBuilder() {
+        try {
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                return DOCUMENT_BUILDER_FACTORY.
+                        newDocumentBuilder();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static XPath newXPath() {
+        synchronized (X_PATH_FACTORY) {
+            return X_PATH_FACTORY.
+                    newXPath();
+        }
+    }
+
+    private static ObjectPool<XPathExpression> xPathExpressions(String evalExpression) {
+        ObjectPool<XPathExpression> xPathExpressions =
+                X_PATH_EXPRESSIONS.
+                        get(evalExpression);
+
+        if(xPathExpressions == null) {
+            xPathExpressions =
+                    new ObjectPool<>(
+                            XML_POOL_SIZE);
+
+            X_PATH_EXPRESSIONS.
+                    put(evalExpression,
+                            xPathExpressions);
+        }
+
+        return xPathExpressions;
+    }
+
+    /*
+     * The returned expression must be released into provided pool
+     */
+    private static XPathExpression compileXPath(ObjectPool<XPathExpression> xPathExpressions,
+                                                String evalExpression)
+            throws XPathExpressionException {
+        XPathExpression xPathExpression =
+                xPathExpressions.poll();
+
+        if(xPathExpression == null) {
+            XPath xPath =
+                    X_PATHS.borrow();
+
+            try {
+                xPathExpression =
+                        xPath.compile(
+                                evalExpression);
+            } finally {
+                xPath.reset();
+                X_PATHS.release(xPath);
+            }
+        }
+
+        return xPathExpression;
+    }
+
+    private static JsonPath compileJsonPath(String evalExpression) {
+        JsonPath jsonPath =
+                JSON_PATHS.
+                        get(evalExpression);
+
+        if(jsonPath == null) {
+            jsonPath =
+                    JsonPath.
+                            compile(evalExpression);
+
+            JSON_PATHS.
+                    put(evalExpression,
+                            jsonPath);
+        }
+
+        return jsonPath;
+    }
+
+    private static long payloadSize(String source) {
+        return source != null ?
+                source.length() :
+                JfrUtils.UNKNOWN_PAYLOAD_SIZE;
+    }
+
+    private static String extractionOutcome(String result) {
+        return result == null ?
+                FAILED_OUTCOME :
+                result.isEmpty() ?
+                        EMPTY_OUTCOME :
+                        EXTRACTED_OUTCOME;
+    }
+
+    private static String listExtractionOutcome(List<Object> values) {
+        return values == null ?
+                FAILED_OUTCOME :
+                values.isEmpty() ?
+                        EMPTY_OUTCOME :
+                        EXTRACTED_OUTCOME;
+    }
+
+    private static void fireExtractionFailure(String evalExpression,
+                                              Exception cause) {
+        if(MetricsUtils.isEnabled()) {
+            MetricsUtils.
+                    fireExtractionFailure(
+                            evalExpression,
+                            cause);
+        }
+    }
+
+    private static class XmlExtractionSession extends ExtractionSession {
+        private static final String EXTRACTION_TYPE = "XPATH";
+
+        // XML source String, ByteBuffer or InputStream
+        private final Object xmlSource;
+        private final long payloadSize;
+        private Document document;
+        private boolean parsed;
+
+        XmlExtractionSession(Object xmlSource,
+                             long payloadSize) {
+            this.xmlSource = xmlSource;
+            this.payloadSize = payloadSize;
+        }
+
+        XmlExtractionSession(Document document) {
+            this(null,
+                    JfrUtils.UNKNOWN_PAYLOAD_SIZE);
+
+            this.document = document;
+            this.parsed = true;
+        }
+
+        private Document getDocument() {
+            if(!parsed) {
+                parsed = true;
+                document =
+                        parseXml(xmlSource instanceof String ?
+                                new InputSource(
+                                        new StringReader(
+                                                (String) xmlSource)) :
+                                xmlSource instanceof ByteBuffer ?
+                                        new InputSource(
+                                                new ByteBufferInputStream(
+                                                        (ByteBuffer) xmlSource)) :
+                                        xmlSource != null ?
+                                                new InputSource(
+                                                        (InputStream) xmlSource) :
+                                                null);
+            }
+
+            return document;
+        }
+
+        private static Document parseXml(InputSource xmlSource) {
+            long startTime =
+                    MetricsUtils.startTime();
+
+            DocumentBuilder documentBuilder =
+                    DOCUMENT_BUILDERS.borrow();
+
+            try {
+                return documentBuilder.
+                        parse(xmlSource);
+            } catch (Exception e) {
+                LOG.warning(COMMON_PARSE_ERROR_MESSAGE);
+                fireExtractionFailure(null, e);
+            } finally {
+                documentBuilder.reset();
+                DOCUMENT_BUILDERS.release(
+                        documentBuilder);
+                MetricsUtils.
+                        firePhaseCompleted(
+                                VerificationPhase.PARSING,
+                                startTime);
+            }
+
+            return null;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return !parsed &&
+                    (xmlSource instanceof String ||
+                            xmlSource instanceof ByteBuffer);
+        }
+
+        @Override
+        long getPayloadSize() {
+            return payloadSize;
+        }
+
+        @Override
+        Map<String, Object> stream(Collection<String> evalExpressions) {
+            Map<String, String> extractionResults =
+                    xmlSource instanceof String ?
+                            StreamingXmlExtractor.
+                                    extract(new StringReader(
+                                                    (String) xmlSource),
+                                            evalExpressions) :
+                            StreamingXmlExtractor.
+                                    extract(new ByteBufferInputStream(
+                                                    (ByteBuffer) xmlSource),
+                                            evalExpressions);
+
+            return extractionResults != null ?
+                    new HashMap<>(extractionResults) :
+                    null;
+        }
+
+        @Override
+        Object evaluateTree(String evalExpression) {
+            Document document =
+                    getDocument();
+
+            if(document != null) {
+                long startTime =
+                        MetricsUtils.startTime();
+                Object jfrEvent =
+                        JfrUtils.beginExtraction();
+                ObjectPool<XPathExpression> xPathExpressions =
+                        xPathExpressions(evalExpression);
+                XPathExpression xPathExpression = null;
+                String result = null;
+
+                try {
+                    xPathExpression =
+                            compileXPath(
+                                    xPathExpressions,
+                                    evalExpression);
+                    result = xPathExpression.
+                            evaluate(document);
+
+                    return result;
+                } catch (Exception e) {
+                    LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
+                    fireExtractionFailure(evalExpression, e);
+                } finally {
+                    xPathExpressions.release(
+                            xPathExpression);
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.EXTRACTION,
+                                    startTime);
+                    JfrUtils.
+                            commitExtraction(
+                                    jfrEvent,
+                                    EXTRACTION_TYPE,
+                                    evalExpression,
+                                    payloadSize,
+                                    extractionOutcome(result));
+                }
+            }
+
+            return EMPTY;
+        }
+
+        @Override
+        List<Object> evaluateTreeToList(String evalExpression) {
+            Document document =
+                    getDocument();
+
+            if(document != null) {
+                long startTime =
+                        MetricsUtils.startTime();
+                Object jfrEvent =
+                        JfrUtils.beginExtraction();
+                ObjectPool<XPathExpression> xPathExpressions =
+                        xPathExpressions(evalExpression);
+                XPathExpression xPathExpression = null;
+                List<Object> values = null;
+
+                try {
+                    xPathExpression =
+                            compileXPath(
+                                    xPathExpressions,
+                                    evalExpression);
+
+                    NodeList nodes =
+                            (NodeList) xPathExpression.
+                                    evaluate(document,
+                                            XPathConstants.NODESET);
+
+                    values =
+                            new ArrayList<>(
+                                    nodes.getLength());
+
+                    for(int index = 0; index < nodes.getLength(); index++) {
+                        values.add(
+                                nodes.item(index).
+                                        getTextContent());
+                    }
+
+                    return values;
+                } catch (Exception e) {
+                    LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
+                    fireExtractionFailure(evalExpression, e);
+                } finally {
+                    xPathExpressions.release(
+                            xPathExpression);
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.EXTRACTION,
+                                    startTime);
+                    JfrUtils.
+                            commitExtraction(
+                                    jfrEvent,
+                                    EXTRACTION_TYPE,
+                                    evalExpression,
+                                    payloadSize,
+                                    listExtractionOutcome(values));
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static class JsonExtractionSession extends ExtractionSession {
+        private static final String EXTRACTION_TYPE = "JSONPATH";
+
+        // JSON source String, ByteBuffer or InputStream
+        private final Object jsonSource;
+        private final long payloadSize;
+        private final ParseContext parseContext;
+        private DocumentContext documentContext;
+        private boolean parsed;
+
+        JsonExtractionSession(Object jsonSource,
+                              long payloadSize,
+                              ParseContext parseContext) {
+            this.jsonSource = jsonSource;
+            this.payloadSize = payloadSize;
+            this.parseContext = parseContext;
+        }
+
+        private DocumentContext getDocumentContext() {
+            if(!parsed) {
+                long startTime =
+                        MetricsUtils.startTime();
+
+                parsed = true;
+
+                try {
+                    documentContext =
+                            jsonSource instanceof ByteBuffer ?
+                                    parseContext.
+                                            parse(new ByteBufferInputStream(
+                                                    (ByteBuffer) jsonSource)) :
+                                    jsonSource instanceof InputStream ?
+                                            parseContext.
+                                                    parse((InputStream) jsonSource) :
+                                            parseContext.
+                                                    parse((String) jsonSource);
+                } catch (Exception e) {
+                    LOG.warning(COMMON_PARSE_ERROR_MESSAGE);
+                    fireExtractionFailure(null, e);
+                } finally {
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.PARSING,
+                                    startTime);
+                }
+            }
+
+            return documentContext;
+        }
+
+        /*
+         * Converts the raw JSON value the same way as the tree evaluation does
+         */
+        private Object toResult(String rawJsonValue) {
+            if(rawJsonValue == null) {
+                return EMPTY;
+            }
+
+            List<Object> parsedData =
+                    parseContext.
+                            parse(rawJsonValue).
+                            read(compileJsonPath(
+                                    ROOT_PATH));
+
+            return collectionIsNotEmpty(parsedData) ?
+                    parsedData.
+                            get(FIRST_ELEMENT) :
+                    EMPTY;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return !parsed &&
+                    (jsonSource instanceof String ||
+                            jsonSource instanceof ByteBuffer);
+        }
+
+        @Override
+        long getPayloadSize() {
+            return payloadSize;
+        }
+
+        @Override
+        Map<String, Object> stream(Collection<String> evalExpressions) {
+            Map<String, String> rawJsonValues =
+                    jsonSource instanceof String ?
+                            StreamingJsonExtractor.
+                                    extract(new StringReader(
+                                                    (String) jsonSource),
+                                            evalExpressions) :
+                            StreamingJsonExtractor.
+                                    extract(new ByteBufferInputStream(
+                                                    (ByteBuffer) jsonSource),
+                                            evalExpressions);
+
+            if(rawJsonValues == null) {
+                return null;
+            }
+
+            Map<String, Object> extractionResults =
+                    new HashMap<>();
+
+            try {
+                evalExpressions.
+                        forEach(evalExpression ->
+                                extractionResults.put(
+                                        evalExpression,
+                                        toResult(rawJsonValues.
+                                                get(evalExpression))));
+            } catch (Exception e) {
+                return null;
+            }
+
+            return extractionResults;
+        }
+
+        @Override
+        Object evaluateTree(String evalExpression) {
+            DocumentContext documentContext =
+                    getDocumentContext();
+
+            if(documentContext != null) {
+                long startTime =
+                        MetricsUtils.startTime();
+                Object jfrEvent =
+                        JfrUtils.beginExtraction();
+                String outcome = null;
+
+                try {
+                    List<Object> parsedData =
+                            documentContext.
+                                    read(compileJsonPath(
+                                            evalExpression));
+
+                    if(collectionIsNotEmpty(parsedData)) {
+                        outcome = EXTRACTED_OUTCOME;
+
+                        return parsedData.
+                                get(FIRST_ELEMENT);
+                    }
+
+                    outcome = EMPTY_OUTCOME;
+
+                    return EMPTY;
+                } catch (Exception e) {
+                    LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
+                    fireExtractionFailure(evalExpression, e);
+                } finally {
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.EXTRACTION,
+                                    startTime);
+                    JfrUtils.
+                            commitExtraction(
+                                    jfrEvent,
+                                    EXTRACTION_TYPE,
+                                    evalExpression,
+                                    payloadSize,
+                                    outcome != null ?
+                                            outcome :
+                                            FAILED_OUTCOME);
+                }
+            }
+
+            return EMPTY;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        List<Object> evaluateTreeToList(String evalExpression) {
+            DocumentContext documentContext =
+                    getDocumentContext();
+
+            if(documentContext != null) {
+                long startTime =
+                        MetricsUtils.startTime();
+                Object jfrEvent =
+                        JfrUtils.beginExtraction();
+                List<Object> values = null;
+
+                try {
+                    JsonPath jsonPath =
+                            compileJsonPath(evalExpression);
+                    List<Object> parsedData =
+                            documentContext.
+                                    read(jsonPath);
+
+                    values = jsonPath.isDefinite() &&
+                            parsedData.size() == 1 &&
+                            parsedData.get(FIRST_ELEMENT) instanceof List ?
+                            (List<Object>) parsedData.
+                                    get(FIRST_ELEMENT) :
+                            parsedData;
+
+                    return values;
+                } catch (Exception e) {
+                    LOG.warning(COMMON_EVAL_ERROR_MESSAGE);
+                    fireExtractionFailure(evalExpression, e);
+                } finally {
+                    MetricsUtils.
+                            firePhaseCompleted(
+                                    VerificationPhase.EXTRACTION,
+                                    startTime);
+                    JfrUtils.
+                            commitExtraction(
+                                    jfrEvent,
+                                    EXTRACTION_TYPE,
+                                    evalExpression,
+                                    payloadSize,
+                                    listExtractionOutcome(values));
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,568 @@
+package com.shimkiv.trust.evaluation;
+
+import com.shimkiv.trust.common.SampledLruCache;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static com.shimkiv.trust.config.TrustConfig.*;
+
+/**
+ * Rule Template
+ *
+ * Pre-parses the verification rule into the literal and placeholder/template segments
+ * and rewrites the placeholders/templates into the script variables references once,
+ * so the same script can be evaluated against any test results
+ * by binding the placeholders values as the script variables
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class RuleTemplate {
+    private static final Pattern JS_NUMBER_PATTERN =
+            Pattern.compile(
+                    "-?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private static final char ESCAPE_CHAR = '\\';
+    private static final char DOUBLE_QUOTE_CHAR = '"';
+    private static final char SINGLE_QUOTE_CHAR = '\'';
+
+    private final String rule;
+    private final String script;
+    private final List<Placeholder> placeholders;
+    private final String[] literalSegments;
+    private final String[] keySegments;
+    private final List<String> keys;
+
+    private RuleTemplate(String rule) {
+        List<Placeholder> parsedPlaceholders =
+                new ArrayList<>();
+        Map<String, Placeholder> variables =
+                new HashMap<>();
+        StringBuilder scriptBuilder =
+                new StringBuilder(
+                        rule.length());
+        char quoteChar = 0;
+        int literalStart = -1;
+        int index = 0;
+
+        while(index < rule.length()) {
+            char currentChar =
+                    rule.charAt(index);
+
+            if(rule.startsWith(
+                    TPL_ESCAPE_SUBSTRING,
+                    index)) {
+                scriptBuilder.append(
+                        TPL_START_SUBSTRING);
+                index += TPL_ESCAPE_SUBSTRING.length();
+
+                continue;
+            }
+
+            int tplEnd =
+                    rule.startsWith(
+                            TPL_START_SUBSTRING,
+                            index) ?
+                            rule.indexOf(
+                                    TPL_END_SUBSTRING,
+                                    index +
+                                            TPL_START_SUBSTRING.length()) :
+                            -1;
+
+            if(tplEnd > index + TPL_START_SUBSTRING.length()) {
+                String key =
+                        rule.substring(
+                                index +
+                                        TPL_START_SUBSTRING.length(),
+                                tplEnd);
+                int nextIndex =
+                        tplEnd +
+                                TPL_END_SUBSTRING.length();
+                boolean quoted = quoteChar != 0;
+                boolean wholeLiteral =
+                        quoted &&
+                                scriptBuilder.length() == literalStart + 1 &&
+                                nextIndex < rule.length() &&
+                                rule.charAt(nextIndex) == quoteChar;
+                Placeholder placeholder =
+                        variables.get(
+                                key + quoted);
+
+                if(placeholder == null) {
+                    placeholder =
+                            new Placeholder(
+                                    key,
+                                    TPL_VARIABLE_PREFIX +
+                                            variables.size(),
+                                    quoted);
+
+                    variables.put(
+                            key + quoted,
+                            placeholder);
+                    parsedPlaceholders.add(
+                            placeholder);
+                }
+
+                if(wholeLiteral) {
+                    scriptBuilder.setLength(
+                            scriptBuilder.length() - 1);
+                    scriptBuilder.append(
+                            placeholder.getVariableName());
+                    quoteChar = 0;
+                    index = nextIndex + 1;
+                } else if(quoted) {
+                    scriptBuilder.
+                            append(quoteChar).
+                            append(" + ").
+                            append(placeholder.getVariableName()).
+                            append(" + ").
+                            append(quoteChar);
+                    index = nextIndex;
+                } else {
+                    scriptBuilder.append(
+                            placeholder.getVariableName());
+                    index = nextIndex;
+                }
+
+                continue;
+            }
+
+            if(quoteChar != 0) {
+                if(currentChar == ESCAPE_CHAR &&
+                        index + 1 < rule.length()) {
+                    scriptBuilder.
+                            append(currentChar).
+                            append(rule.charAt(index + 1));
+                    index += 2;
+
+                    continue;
+                }
+
+                if(currentChar == quoteChar) {
+                    quoteChar = 0;
+                }
+            } else if(currentChar == DOUBLE_QUOTE_CHAR ||
+                    currentChar == SINGLE_QUOTE_CHAR) {
+                quoteChar = currentChar;
+                literalStart = scriptBuilder.length();
+            }
+
+            scriptBuilder.append(currentChar);
+            index++;
+        }
+
+        List<String> literals =
+                new ArrayList<>();
+        List<String> keys =
+                new ArrayList<>();
+
+        parseSegments(
+                rule,
+                literals,
+                keys);
+
+        this.literalSegments =
+                literals.toArray(
+                        new String[literals.size()]);
+        this.keySegments =
+                keys.toArray(
+                        new String[keys.size()]);
+        this.rule = rule;
+        this.script = scriptBuilder.toString();
+        this.placeholders =
+                Collections.unmodifiableList(
+                        parsedPlaceholders);
+        this.keys =
+                Collections.unmodifiableList(
+                        new ArrayList<>(
+                                new LinkedHashSet<>(
+                                        keys)));
+    }
+
+    /**
+     * Parses provided verification rule into the {@link RuleTemplate}
+     * (not cached, the engines keep the rule templates in their own caches)
+     *
+     * @param rule Verification rule
+     * @return {@link RuleTemplate}
+     */
+    public static RuleTemplate of(String rule) {
+        return new RuleTemplate(rule);
+    }
+
+    /**
+     * Returns the {@link RuleTemplate} of provided verification rule
+     * by using provided rule templates cache
+     *
+     * @param rule Verification rule
+     * @param ruleTemplates {@link SampledLruCache} of the rule templates
+     * @return {@link RuleTemplate}
+     */
+    public static RuleTemplate of(String rule,
+                                  SampledLruCache<String, RuleTemplate> ruleTemplates) {
+        RuleTemplate ruleTemplate =
+                ruleTemplates.
+                        get(rule);
+
+        if(ruleTemplate == null) {
+            ruleTemplate =
+                    new RuleTemplate(rule);
+
+            ruleTemplates.
+                    put(rule,
+                            ruleTemplate);
+        }
+
+        return ruleTemplate;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns the script where placeholders/templates
+     * are replaced with the variables references
+     *
+     * @return Script to evaluate
+     */
+    public String getScript() {
+        return script;
+    }
+
+    public List<Placeholder> getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Returns the distinct keys of the placeholders/templates
+     * (the test results which the verification rule depends on)
+     *
+     * @return {@link List} of keys
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Substitutes provided test results into the verification rule
+     *
+     * @param testResults {@link Map} of test results
+     * @return Verification rule with substituted values
+     */
+    public String substitute(Map<String, String> testResults) {
+        return substitute(
+                testResults,
+                new HashMap<>(),
+                new StringBuilder());
+    }
+
+    /**
+     * Substitutes provided test results into the verification rule
+     *
+     * Only the values of the referenced keys are normalized
+     * (once, the normalized values are kept in the provided {@link Map}),
+     * the resulting expression is assembled in the provided buffer
+     *
+     * @param testResults {@link Map} of test results
+     * @param normalizedValues {@link Map} of already normalized values
+     * @param buffer Reusable buffer
+     * @return Verification rule with substituted values
+     */
+    public String substitute(Map<String, String> testResults,
+                             Map<String, String> normalizedValues,
+                             StringBuilder buffer) {
+        if(testResults == null ||
+                testResults.isEmpty()) {
+            return rule;
+        }
+
+        buffer.setLength(0);
+
+        for(int index = 0; index < keySegments.length; index++) {
+            String value =
+                    normalizedValue(
+                            testResults,
+                            normalizedValues,
+                            keySegments[index]);
+
+            buffer.append(
+                    literalSegments[index]);
+
+            if(value != null) {
+                buffer.append(value);
+            } else {
+                buffer.append(TPL_START_SUBSTRING).
+                        append(keySegments[index]).
+                        append(TPL_END_SUBSTRING);
+            }
+        }
+
+        return buffer.
+                append(literalSegments[keySegments.length]).
+                toString();
+    }
+
+    /**
+     * Binds provided test results as the script variables
+     *
+     * @param testResults {@link Map} of test results
+     * @return {@link Map} of script variables
+     * or null if any of the unquoted placeholders can not be resolved
+     */
+    public Map<String, Object> bind(Map<String, String> testResults) {
+        return bind(
+                testResults,
+                new HashMap<>());
+    }
+
+    /**
+     * Binds provided test results as the script variables
+     *
+     * The quoted placeholders are bound as {@link String}s,
+     * the unquoted ones are bound as JS literals
+     * (numbers, booleans, null) or as {@link String}s otherwise
+     *
+     * @param testResults {@link Map} of test results
+     * @param normalizedValues {@link Map} of already normalized values
+     * @return {@link Map} of script variables
+     * or null if any of the unquoted placeholders can not be resolved
+     */
+    public Map<String, Object> bind(Map<String, String> testResults,
+                                    Map<String, String> normalizedValues) {
+        return bind(
+                testResults,
+                normalizedValues,
+                null);
+    }
+
+    /**
+     * Binds provided test results as the script variables
+     *
+     * The unquoted placeholders which have the typed value
+     * (e.g. extracted JSON {@link Number}, {@link Boolean}, {@link List},
+     * {@link Map} or null) are bound as is, without the {@link String} round-trip
+     * (the numbers are bound unchanged, the script engine
+     * receives the non-{@link Integer} ones as {@link Double}s),
+     * the rest are bound the same way as by {@link #bind(Map, Map)}
+     *
+     * @param testResults {@link Map} of test results
+     * @param normalizedValues {@link Map} of already normalized values
+     * @param typedValues {@link Map} of typed test results (nullable)
+     * @return {@link Map} of script variables
+     * or null if any of the unquoted placeholders can not be resolved
+     */
+    public Map<String, Object> bind(Map<String, String> testResults,
+                                    Map<String, String> normalizedValues,
+                                    Map<String, Object> typedValues) {
+        Map<String, Object> variables =
+                new HashMap<>();
+
+        for(Placeholder placeholder : placeholders) {
+            if(!placeholder.isQuoted() &&
+                    typedValues != null &&
+                    typedValues.containsKey(
+                            placeholder.getKey())) {
+                Object typedValue =
+                        typedValues.get(
+                                placeholder.getKey());
+
+                if(!(typedValue instanceof String)) {
+                    variables.put(
+                            placeholder.getVariableName(),
+                            typedValue);
+
+                    continue;
+                }
+            }
+
+            String value =
+                    normalizedValue(
+                            testResults,
+                            normalizedValues,
+                            placeholder.getKey());
+
+            if(value == null) {
+                if(!placeholder.isQuoted()) {
+                    return null;
+                }
+
+                value = TPL_START_SUBSTRING +
+                        placeholder.getKey() +
+                        TPL_END_SUBSTRING;
+            }
+
+            variables.put(
+                    placeholder.getVariableName(),
+                    placeholder.isQuoted() ?
+                            value :
+                            toJsLiteral(value));
+        }
+
+        return variables;
+    }
+
+    /**
+     * Returns the key of the first unquoted placeholder
+     * which can not be resolved by provided test results
+     * (the one making {@link #bind(Map, Map, Map)} return null)
+     *
+     * @param testResults {@link Map} of test results
+     * @param normalizedValues {@link Map} of already normalized values
+     * @param typedValues {@link Map} of typed test results (nullable)
+     * @return Placeholder key or null if all of the placeholders can be resolved
+     */
+    public String getUnresolvedKey(Map<String, String> testResults,
+                                   Map<String, String> normalizedValues,
+                                   Map<String, Object> typedValues) {
+        for(Placeholder placeholder : placeholders) {
+            if(!placeholder.isQuoted() &&
+                    !(typedValues != null &&
+                            typedValues.containsKey(
+                                    placeholder.getKey()) &&
+                            !(typedValues.get(
+                                    placeholder.getKey()) instanceof String)) &&
+                    normalizedValue(
+                            testResults,
+                            normalizedValues,
+                            placeholder.getKey()) == null) {
+                return placeholder.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "Rule Template [" +
+                StringUtils.join(
+                        new String[] {
+                                getRule(),
+                                getScript()
+                        }, ',') +
+                "]";
+    }
+
+    private static String normalizedValue(Map<String, String> testResults,
+                                          Map<String, String> normalizedValues,
+                                          String key) {
+        if(testResults == null) {
+            return null;
+        }
+
+        String value =
+                normalizedValues.get(key);
+
+        if(value == null &&
+                !normalizedValues.containsKey(key)) {
+            value = StringUtils.
+                    normalizeSpace(
+                            testResults.get(key));
+
+            normalizedValues.put(
+                    key,
+                    value);
+        }
+
+        return value;
+    }
+
+    /*
+     * Splits the verification rule into the literal and placeholder/template key
+     * segments the same way as StrSubstitutor does (including "$${" escapes)
+     */
+    private static void parseSegments(String rule,
+                                      List<String> literals,
+                                      List<String> keys) {
+        StringBuilder literal =
+                new StringBuilder();
+        int index = 0;
+
+        while(index < rule.length()) {
+            if(rule.startsWith(
+                    TPL_ESCAPE_SUBSTRING,
+                    index)) {
+                literal.append(
+                        TPL_START_SUBSTRING);
+                index += TPL_ESCAPE_SUBSTRING.length();
+            } else if(rule.startsWith(
+                    TPL_START_SUBSTRING,
+                    index) &&
+                    rule.indexOf(
+                            TPL_END_SUBSTRING,
+                            index +
+                                    TPL_START_SUBSTRING.length()) >
+                            index + TPL_START_SUBSTRING.length()) {
+                int tplEnd =
+                        rule.indexOf(
+                                TPL_END_SUBSTRING,
+                                index +
+                                        TPL_START_SUBSTRING.length());
+
+                literals.add(
+                        literal.toString());
+                keys.add(
+                        rule.substring(
+                                index +
+                                        TPL_START_SUBSTRING.length(),
+                                tplEnd));
+                literal.setLength(0);
+                index = tplEnd + TPL_END_SUBSTRING.length();
+            } else {
+                literal.append(
+                        rule.charAt(index));
+                index++;
+            }
+        }
+
+        literals.add(
+                literal.toString());
+    }
+
+    private static Object toJsLiteral(String value) {
+        if(JS_NUMBER_PATTERN.
+                matcher(value).
+                matches()) {
+            return Double.valueOf(value);
+        } else if("true".equals(value) ||
+                "false".equals(value)) {
+            return Boolean.valueOf(value);
+        } else if("null".equals(value)) {
+            return null;
+        }
+
+        return value;
+    }
+
+    /**
+     * Placeholder/template of the verification rule
+     */
+    public static class Placeholder {
+        private final String key;
+        private final String variableName;
+        private final boolean quoted;
+
+        Placeholder(String key,
+                    String variableName,
+                    boolean quoted) {
+            this.key = key;
+            this.variableName = variableName;
+            this.quoted = quoted;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getVariableName() {
+            return variableName;
+        }
+
+        public boolean isQuoted() {
+            return quoted;
+        }
+    }
+}
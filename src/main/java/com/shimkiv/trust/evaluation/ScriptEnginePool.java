@@ -0,0 +1,509 @@
+package com.shimkiv.trust.evaluation;
+
+import com.shimkiv.trust.common.CacheStats;
+import com.shimkiv.trust.common.LruCache;
+
+import javax.script.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static com.shimkiv.trust.config.TrustConfig.*;
+
+/**
+ * Script Engine Pool
+ *
+ * Keeps the bounded amount of the script engines
+ * (each with preloaded scripts and own compiled rules cache)
+ * and lends them to the evaluating threads one at a time,
+ * so the parallel evaluations do not share the engine global scope
+ *
+ * The preloaded globals can not be overwritten by the rules
+ * and the globals created by the rule are removed after its evaluation,
+ * so the subsequent evaluations do not see them
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class ScriptEnginePool {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    ScriptEnginePool.class.
+                            getName());
+
+    // Max time the borrower waits for the idle engine before trying to create one
+    private static final long WAIT_TIMEOUT_MILLIS = 100;
+
+    private final String scriptEngineName;
+    private final List<String> scriptsToLoad;
+    private final int poolSize;
+    private final int compiledRulesCacheSize;
+
+    private final BlockingQueue<PooledScriptEngine> idleEngines;
+    private final List<PooledScriptEngine> createdEngines =
+            new CopyOnWriteArrayList<>();
+    // Guarded by this, counts the created engines and the ones being created
+    private int reservedEngines;
+    private volatile boolean engineUnavailable;
+
+    public ScriptEnginePool(String scriptEngineName,
+                            List<String> scriptsToLoad,
+                            int poolSize,
+                            int compiledRulesCacheSize) {
+        this.scriptEngineName = scriptEngineName;
+        this.scriptsToLoad = scriptsToLoad;
+        this.poolSize = Math.max(1, poolSize);
+        this.compiledRulesCacheSize = compiledRulesCacheSize;
+        this.idleEngines =
+                new ArrayBlockingQueue<>(
+                        this.poolSize);
+    }
+
+    /**
+     * Evaluates provided script by one of the pooled script engines
+     * with provided variables bound for this evaluation only
+     *
+     * @param script Script to evaluate
+     * @param variables {@link Map} of variables to bind
+     * @return Evaluation result
+     */
+    public Object eval(String script,
+                       Map<String, Object> variables)
+            throws ScriptException {
+        PooledScriptEngine pooledScriptEngine =
+                borrowEngine();
+
+        try {
+            return pooledScriptEngine.
+                    eval(script,
+                            variables);
+        } finally {
+            idleEngines.offer(
+                    pooledScriptEngine);
+        }
+    }
+
+    /**
+     * Creates the script engine (and loads the scripts) in advance
+     * if the pool does not have the idle ones
+     */
+    public void prestartEngine() {
+        if(idleEngines.isEmpty()) {
+            try {
+                PooledScriptEngine pooledScriptEngine =
+                        createEngine();
+
+                if(pooledScriptEngine != null) {
+                    idleEngines.offer(
+                            pooledScriptEngine);
+                }
+            } catch (ScriptException e) {
+                LOG.finest(e.getMessage());
+            }
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getCreatedEnginesCount() {
+        return createdEngines.size();
+    }
+
+    /**
+     * Returns the compiled rules cache statistics
+     * summarized over all of the pooled script engines
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats getCompiledRulesCacheStats() {
+        long hitCount = 0;
+        long missCount = 0;
+        long evictionCount = 0;
+        int size = 0;
+
+        for(PooledScriptEngine pooledScriptEngine : createdEngines) {
+            CacheStats cacheStats =
+                    pooledScriptEngine.
+                            compiledRules.
+                            getStats();
+
+            hitCount += cacheStats.getHitCount();
+            missCount += cacheStats.getMissCount();
+            evictionCount += cacheStats.getEvictionCount();
+            size += cacheStats.getSize();
+        }
+
+        return new CacheStats(
+                hitCount,
+                missCount,
+                evictionCount,
+                size);
+    }
+
+    /**
+     * Removes all of the compiled rules
+     * from the caches of the pooled script engines
+     */
+    public void clearCompiledRulesCache() {
+        createdEngines.
+                forEach(pooledScriptEngine ->
+                        pooledScriptEngine.
+                                compiledRules.
+                                clear());
+    }
+
+    private PooledScriptEngine borrowEngine()
+            throws ScriptException {
+        PooledScriptEngine pooledScriptEngine =
+                idleEngines.poll();
+
+        // Retries the creation in case the concurrent borrower has failed to create the engine
+        while(pooledScriptEngine == null) {
+            pooledScriptEngine =
+                    createEngine();
+
+            if(pooledScriptEngine == null) {
+                try {
+                    pooledScriptEngine =
+                            idleEngines.poll(
+                                    WAIT_TIMEOUT_MILLIS,
+                                    TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().
+                            interrupt();
+
+                    throw new ScriptException(
+                            SCRIPT_ENGINE_WAIT_ERROR_MESSAGE);
+                }
+            }
+        }
+
+        return pooledScriptEngine;
+    }
+
+    /*
+     * Returns null if the pool is full,
+     * the scripts are loaded outside of the pool lock
+     */
+    private PooledScriptEngine createEngine()
+            throws ScriptException {
+        if(engineUnavailable) {
+            throw new ScriptException(
+                    MessageFormat.format(
+                            SCRIPT_ENGINE_ERROR_MESSAGE,
+                            scriptEngineName));
+        }
+
+        if(!reserveEngine()) {
+            return null;
+        }
+
+        PooledScriptEngine pooledScriptEngine = null;
+
+        try {
+            pooledScriptEngine =
+                    newEngine();
+        } finally {
+            if(pooledScriptEngine == null) {
+                releaseEngine();
+            }
+        }
+
+        createdEngines.add(
+                pooledScriptEngine);
+
+        return pooledScriptEngine;
+    }
+
+    private synchronized boolean reserveEngine() {
+        if(reservedEngines >= poolSize) {
+            return false;
+        }
+
+        reservedEngines++;
+
+        return true;
+    }
+
+    private synchronized void releaseEngine() {
+        reservedEngines--;
+    }
+
+    private PooledScriptEngine newEngine()
+            throws ScriptException {
+        ScriptEngine scriptEngine =
+                new ScriptEngineManager().
+                        getEngineByName(
+                                scriptEngineName);
+
+        if(scriptEngine == null) {
+            engineUnavailable = true;
+
+            String message =
+                    MessageFormat.format(
+                            SCRIPT_ENGINE_ERROR_MESSAGE,
+                            scriptEngineName);
+
+            LOG.warning(message);
+
+            throw new ScriptException(message);
+        }
+
+        scriptsToLoad.
+                forEach(
+                        script -> {
+                            try {
+                                loadScript(
+                                        scriptEngine,
+                                        script);
+                            } catch (Exception e) {
+                                LOG.warning(
+                                        MessageFormat.format(
+                                                SCRIPT_LOAD_ERROR_MESSAGE,
+                                                script));
+                            }
+                        });
+
+        CompiledScript restoreGlobals = null;
+
+        try {
+            scriptEngine.eval(
+                    SNAPSHOT_GLOBALS_EXPR);
+
+            restoreGlobals =
+                    compileScript(
+                            scriptEngine,
+                            RESTORE_GLOBALS_EXPR);
+        } catch (ScriptException e) {
+            LOG.warning(
+                    SCRIPT_GLOBALS_ERROR_MESSAGE);
+        }
+
+        return new PooledScriptEngine(
+                scriptEngine,
+                restoreGlobals,
+                new LruCache<>(
+                        "compiledRules",
+                        compiledRulesCacheSize));
+    }
+
+    private static void loadScript(ScriptEngine scriptEngine,
+                                   String script)
+            throws ScriptException, IOException {
+        if(script.startsWith(
+                CLASSPATH_SCRIPT_PREFIX)) {
+            String resourceName =
+                    script.substring(
+                            CLASSPATH_SCRIPT_PREFIX.length());
+            ClassLoader classLoader =
+                    Thread.currentThread().
+                            getContextClassLoader() != null ?
+                            Thread.currentThread().
+                                    getContextClassLoader() :
+                            ScriptEnginePool.class.
+                                    getClassLoader();
+
+            try(InputStream inputStream =
+                        classLoader.
+                                getResourceAsStream(
+                                        resourceName)) {
+                if(inputStream == null) {
+                    throw new FileNotFoundException(
+                            resourceName);
+                }
+
+                scriptEngine.eval(
+                        new BufferedReader(
+                                new InputStreamReader(
+                                        inputStream,
+                                        StandardCharsets.UTF_8)),
+                        newLoadContext(
+                                scriptEngine,
+                                script));
+            }
+        } else {
+            scriptEngine.eval(
+                    MessageFormat.format(
+                            LOAD_SCRIPT_TPL_EXPR,
+                            script));
+        }
+    }
+
+    /*
+     * Shares the engine scope of provided script engine,
+     * so the loaded script globals are defined there,
+     * while the script file name is set for this load only
+     */
+    private static ScriptContext newLoadContext(ScriptEngine scriptEngine,
+                                                String script) {
+        ScriptContext engineContext =
+                scriptEngine.getContext();
+        ScriptContext loadContext =
+                new SimpleScriptContext();
+        Bindings loadBindings =
+                new SimpleBindings();
+        Bindings globalBindings =
+                engineContext.
+                        getBindings(ScriptContext.GLOBAL_SCOPE);
+
+        if(globalBindings != null) {
+            loadBindings.putAll(
+                    globalBindings);
+        }
+
+        loadBindings.put(
+                ScriptEngine.FILENAME,
+                script);
+        loadContext.setBindings(
+                engineContext.
+                        getBindings(ScriptContext.ENGINE_SCOPE),
+                ScriptContext.ENGINE_SCOPE);
+        loadContext.setBindings(
+                loadBindings,
+                ScriptContext.GLOBAL_SCOPE);
+        loadContext.setReader(
+                engineContext.getReader());
+        loadContext.setWriter(
+                engineContext.getWriter());
+        loadContext.setErrorWriter(
+                engineContext.getErrorWriter());
+
+        return loadContext;
+    }
+
+    /*
+     * The script engine may treat the non-Integer numbers as the Java objects,
+     * so they are bound as the script numbers (Doubles)
+     */
+    private static Map<String, Object> toScriptVariables(Map<String, Object> variables) {
+        Map<String, Object> scriptVariables =
+                variables;
+
+        for(Map.Entry<String, Object> variable : variables.entrySet()) {
+            if(variable.getValue() instanceof Number &&
+                    !(variable.getValue() instanceof Integer) &&
+                    !(variable.getValue() instanceof Double)) {
+                if(scriptVariables == variables) {
+                    scriptVariables =
+                            new HashMap<>(variables);
+                }
+
+                scriptVariables.put(
+                        variable.getKey(),
+                        ((Number) variable.getValue()).
+                                doubleValue());
+            }
+        }
+
+        return scriptVariables;
+    }
+
+    private static CompiledScript compileScript(ScriptEngine scriptEngine,
+                                                String script)
+            throws ScriptException {
+        return scriptEngine instanceof Compilable ?
+                ((Compilable) scriptEngine).
+                        compile(script) :
+                new InterpretedScript(
+                        scriptEngine,
+                        script);
+    }
+
+    private static class PooledScriptEngine {
+        private final ScriptEngine scriptEngine;
+        private final CompiledScript restoreGlobals;
+        private final LruCache<String, CompiledScript> compiledRules;
+
+        PooledScriptEngine(ScriptEngine scriptEngine,
+                           CompiledScript restoreGlobals,
+                           LruCache<String, CompiledScript> compiledRules) {
+            this.scriptEngine = scriptEngine;
+            this.restoreGlobals = restoreGlobals;
+            this.compiledRules = compiledRules;
+        }
+
+        Object eval(String script,
+                    Map<String, Object> variables)
+                throws ScriptException {
+            ScriptContext scriptContext =
+                    new SimpleScriptContext();
+
+            scriptContext.setBindings(
+                    scriptEngine.getBindings(
+                            ScriptContext.ENGINE_SCOPE),
+                    ScriptContext.ENGINE_SCOPE);
+            scriptContext.setBindings(
+                    new SimpleBindings(
+                            toScriptVariables(
+                                    variables)),
+                    ScriptContext.GLOBAL_SCOPE);
+
+            try {
+                return compile(script).
+                        eval(scriptContext);
+            } finally {
+                if(restoreGlobals != null) {
+                    restoreGlobals.eval();
+                }
+            }
+        }
+
+        CompiledScript compile(String script)
+                throws ScriptException {
+            CompiledScript compiledScript =
+                    compiledRules.
+                            get(script);
+
+            if(compiledScript == null) {
+                compiledScript =
+                        compileScript(
+                                scriptEngine,
+                                script);
+
+                compiledRules.
+                        put(script,
+                                compiledScript);
+            }
+
+            return compiledScript;
+        }
+    }
+
+    /*
+     * Fallback for the script engines
+     * which are not able to compile the scripts
+     */
+    private static class InterpretedScript extends CompiledScript {
+        private final ScriptEngine scriptEngine;
+        private final String script;
+
+        InterpretedScript(ScriptEngine scriptEngine,
+                          String script) {
+            this.scriptEngine = scriptEngine;
+            this.script = script;
+        }
+
+        @Override
+        public Object eval(ScriptContext context)
+                throws ScriptException {
+            return scriptEngine.
+                    eval(script,
+                            context);
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return scriptEngine;
+        }
+    }
+}
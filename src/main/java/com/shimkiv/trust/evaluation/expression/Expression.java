@@ -0,0 +1,489 @@
+package com.shimkiv.trust.evaluation.expression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Natively evaluated expression
+ *
+ * Mimics the JS semantics of the supported subset:
+ * literals, variables, comparison and logical operators
+ * and the Lodash includes/startsWith/endsWith/eq/gt/gte/lt/lte functions
+ * (the integral and BigDecimal numbers are compared exactly)
+ *
+ * @author Serhii Shymkiv
+ */
+
+public abstract class Expression {
+    private static final Pattern JS_DECIMAL_PATTERN =
+            Pattern.compile(
+                    "[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final double MAX_SAFE_INTEGER = 9007199254740991d;
+    private static final Pattern JS_INFINITY_PATTERN =
+            Pattern.compile(
+                    "[+-]?Infinity");
+
+    /**
+     * Evaluates the expression
+     *
+     * @param variables {@link Map} of variables
+     * @return Evaluation result
+     * @throws UnsupportedExpressionException if the evaluation
+     * is out of the natively supported subset
+     */
+    public abstract Object evaluate(Map<String, Object> variables);
+
+    static boolean toBoolean(Object value) {
+        if(value == null) {
+            return false;
+        } else if(value instanceof Boolean) {
+            return (Boolean) value;
+        } else if(value instanceof String) {
+            return !((String) value).isEmpty();
+        } else if(isExactNumber(value)) {
+            return toBigDecimal(value).signum() != 0;
+        } else if(value instanceof Number) {
+            double number =
+                    ((Number) value).doubleValue();
+
+            return number != 0 &&
+                    !Double.isNaN(number);
+        }
+
+        throw unsupported(value);
+    }
+
+    static double toNumber(Object value) {
+        if(value == null) {
+            return 0;
+        } else if(value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if(value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        } else if(value instanceof String) {
+            String string =
+                    ((String) value).trim();
+
+            if(string.isEmpty()) {
+                return 0;
+            } else if(JS_DECIMAL_PATTERN.
+                    matcher(string).
+                    matches()) {
+                return Double.parseDouble(string);
+            } else if(JS_INFINITY_PATTERN.
+                    matcher(string).
+                    matches()) {
+                return string.startsWith("-") ?
+                        Double.NEGATIVE_INFINITY :
+                        Double.POSITIVE_INFINITY;
+            } else if(string.matches("[+-]?0[xXbBoO].*")) {
+                throw unsupported(value);
+            }
+
+            return Double.NaN;
+        }
+
+        throw unsupported(value);
+    }
+
+    static String toJsString(Object value) {
+        if(value == null) {
+            return "null";
+        } else if(value instanceof String) {
+            return (String) value;
+        } else if(value instanceof Boolean) {
+            return value.toString();
+        } else if(value instanceof Number) {
+            double number =
+                    ((Number) value).doubleValue();
+
+            if(Double.isNaN(number)) {
+                return "NaN";
+            } else if(Double.isInfinite(number)) {
+                return number > 0 ?
+                        "Infinity" :
+                        "-Infinity";
+            } else if(number == Math.rint(number) &&
+                    Math.abs(number) <= MAX_SAFE_INTEGER) {
+                return String.valueOf(
+                        (long) number);
+            } else if(number != Math.rint(number) &&
+                    Math.abs(number) >= 1e-3 &&
+                    Math.abs(number) < 1e7) {
+                return Double.toString(number);
+            }
+        }
+
+        throw unsupported(value);
+    }
+
+    static boolean strictEquals(Object left,
+                                Object right) {
+        if(left == null || right == null) {
+            return left == right;
+        } else if(isExactNumber(left) &&
+                isExactNumber(right)) {
+            return toBigDecimal(left).
+                    compareTo(toBigDecimal(right)) == 0;
+        } else if(left instanceof Number &&
+                right instanceof Number) {
+            return ((Number) left).doubleValue() ==
+                    ((Number) right).doubleValue();
+        } else if(left instanceof String ||
+                left instanceof Boolean) {
+            return left.equals(right);
+        } else if(left instanceof Number) {
+            return false;
+        }
+
+        throw unsupported(left);
+    }
+
+    static boolean looseEquals(Object left,
+                               Object right) {
+        if(left == null || right == null) {
+            return left == right;
+        } else if(left.getClass() == right.getClass() ||
+                (left instanceof Number &&
+                        right instanceof Number)) {
+            return strictEquals(left, right);
+        } else if(left instanceof Boolean ||
+                right instanceof Boolean) {
+            return toNumber(left) == toNumber(right);
+        } else if((left instanceof Number &&
+                right instanceof String) ||
+                (left instanceof String &&
+                        right instanceof Number)) {
+            return toNumber(left) == toNumber(right);
+        }
+
+        throw unsupported(left);
+    }
+
+    static int compare(Object left,
+                       Object right) {
+        if(left instanceof String &&
+                right instanceof String) {
+            int result =
+                    ((String) left).
+                            compareTo((String) right);
+
+            return Integer.signum(result);
+        } else if(isExactNumber(left) &&
+                isExactNumber(right)) {
+            return Integer.signum(
+                    toBigDecimal(left).
+                            compareTo(toBigDecimal(right)));
+        }
+
+        double leftNumber = toNumber(left);
+        double rightNumber = toNumber(right);
+
+        if(Double.isNaN(leftNumber) ||
+                Double.isNaN(rightNumber)) {
+            return Integer.MIN_VALUE;
+        }
+
+        return Double.compare(
+                leftNumber + 0.0,
+                rightNumber + 0.0);
+    }
+
+    /*
+     * Integral and BigDecimal numbers (e.g. the bound JSON values)
+     * are compared exactly, not as the doubles
+     */
+    private static boolean isExactNumber(Object value) {
+        return value instanceof Integer ||
+                value instanceof Long ||
+                value instanceof Short ||
+                value instanceof Byte ||
+                value instanceof BigInteger ||
+                value instanceof BigDecimal;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal ?
+                (BigDecimal) value :
+                value instanceof BigInteger ?
+                        new BigDecimal(
+                                (BigInteger) value) :
+                        BigDecimal.valueOf(
+                                ((Number) value).longValue());
+    }
+
+    static UnsupportedExpressionException unsupported(Object value) {
+        return new UnsupportedExpressionException(
+                "Unsupported value: " +
+                        (value != null ?
+                                value.getClass().getName() :
+                                null));
+    }
+
+    /*
+     * Literal
+     */
+    static class Literal extends Expression {
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> variables) {
+            return value;
+        }
+    }
+
+    /*
+     * Variable reference
+     */
+    static class Variable extends Expression {
+        private final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> variables) {
+            if(variables == null ||
+                    !variables.containsKey(name)) {
+                throw new UnsupportedExpressionException(
+                        "Unknown variable: " + name);
+            }
+
+            return variables.get(name);
+        }
+    }
+
+    /*
+     * Logical NOT
+     */
+    static class Not extends Expression {
+        private final Expression operand;
+
+        Not(Expression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> variables) {
+            return !toBoolean(
+                    operand.evaluate(
+                            variables));
+        }
+    }
+
+    /*
+     * Logical AND / OR (returns the operand value as JS does)
+     */
+    static class Logical extends Expression {
+        private final boolean and;
+        private final Expression left;
+        private final Expression right;
+
+        Logical(boolean and,
+                Expression left,
+                Expression right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> variables) {
+            Object leftValue =
+                    left.evaluate(
+                            variables);
+
+            return toBoolean(leftValue) == and ?
+                    right.evaluate(variables) :
+                    leftValue;
+        }
+    }
+
+    /*
+     * Equality and relational operators
+     */
+    static class Comparison extends Expression {
+        private final String operator;
+        private final Expression left;
+        private final Expression right;
+
+        Comparison(String operator,
+                   Expression left,
+                   Expression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> variables) {
+            Object leftValue =
+                    left.evaluate(
+                            variables);
+            Object rightValue =
+                    right.evaluate(
+                            variables);
+
+            return compare(
+                    operator,
+                    leftValue,
+                    rightValue);
+        }
+
+        static boolean compare(String operator,
+                               Object leftValue,
+                               Object rightValue) {
+            switch (operator) {
+                case "===":
+                    return strictEquals(leftValue, rightValue);
+                case "!==":
+                    return !strictEquals(leftValue, rightValue);
+                case "==":
+                    return looseEquals(leftValue, rightValue);
+                case "!=":
+                    return !looseEquals(leftValue, rightValue);
+                default:
+                    int result =
+                            Expression.compare(
+                                    leftValue,
+                                    rightValue);
+
+                    if(result == Integer.MIN_VALUE) {
+                        return false;
+                    }
+
+                    switch (operator) {
+                        case "<":
+                            return result < 0;
+                        case "<=":
+                            return result <= 0;
+                        case ">":
+                            return result > 0;
+                        case ">=":
+                            return result >= 0;
+                        default:
+                            throw new UnsupportedExpressionException(
+                                    "Unsupported operator: " + operator);
+                    }
+            }
+        }
+    }
+
+    /*
+     * Lodash function call
+     */
+    static class LodashCall extends Expression {
+        private final String function;
+        private final Expression[] arguments;
+
+        LodashCall(String function,
+                   List<Expression> arguments) {
+            this.function = function;
+            this.arguments =
+                    arguments.toArray(
+                            new Expression[arguments.size()]);
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> variables) {
+            Object first =
+                    arguments[0].evaluate(
+                            variables);
+            Object second =
+                    arguments[1].evaluate(
+                            variables);
+
+            switch (function) {
+                case "includes":
+                    if(first instanceof String) {
+                        return ((String) first).
+                                contains(
+                                        toJsString(second));
+                    } else if(first == null ||
+                            first instanceof Number ||
+                            first instanceof Boolean) {
+                        return false;
+                    }
+
+                    throw unsupported(first);
+                case "startsWith":
+                    return toLodashString(first).
+                            startsWith(
+                                    baseToString(second));
+                case "endsWith":
+                    return toLodashString(first).
+                            endsWith(
+                                    baseToString(second));
+                case "eq":
+                    return strictEquals(first, second) ||
+                            (isNaN(first) && isNaN(second));
+                default:
+                    return lodashCompare(
+                            first,
+                            second);
+            }
+        }
+
+        private Object lodashCompare(Object first,
+                                     Object second) {
+            if(!(first instanceof String &&
+                    second instanceof String) &&
+                    !(isExactNumber(first) &&
+                            isExactNumber(second))) {
+                first = toNumber(first);
+                second = toNumber(second);
+            }
+
+            switch (function) {
+                case "gt":
+                    return Comparison.compare(">", first, second);
+                case "gte":
+                    return Comparison.compare(">=", first, second);
+                case "lt":
+                    return Comparison.compare("<", first, second);
+                case "lte":
+                    return Comparison.compare("<=", first, second);
+                default:
+                    throw new UnsupportedExpressionException(
+                            "Unsupported function: " + function);
+            }
+        }
+
+        private static String toLodashString(Object value) {
+            return value == null ?
+                    "" :
+                    baseToString(value);
+        }
+
+        /*
+         * Unlike the JS String(-0) the lodash one keeps the sign of -0
+         */
+        private static String baseToString(Object value) {
+            if(value instanceof Number) {
+                double number =
+                        ((Number) value).doubleValue();
+
+                if(number == 0 &&
+                        1 / number < 0) {
+                    return "-0";
+                }
+            }
+
+            return toJsString(value);
+        }
+
+        private static boolean isNaN(Object value) {
+            return value instanceof Number &&
+                    Double.isNaN(
+                            ((Number) value).doubleValue());
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.shimkiv.trust.evaluation.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expression Parser
+ *
+ * Recursive descent parser of the natively supported JS subset
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class ExpressionParser {
+    private static final Set<String> LODASH_FUNCTIONS =
+            new HashSet<>(
+                    Arrays.asList(
+                            "includes",
+                            "startsWith",
+                            "endsWith",
+                            "eq",
+                            "gt",
+                            "gte",
+                            "lt",
+                            "lte"));
+    private static final String[] OPERATORS = {
+            "===", "!==", "==", "!=", "<=", ">=", "&&", "||",
+            "<", ">", "!", "(", ")", ",", ".", ";"
+    };
+    private static final String LODASH_IDENTIFIER = "_";
+
+    private final String expression;
+    private int position = 0;
+
+    private ExpressionParser(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Parses provided expression into the {@link Expression}
+     *
+     * @param expression Expression to parse
+     * @return {@link Expression}
+     * @throws UnsupportedExpressionException if the expression
+     * is out of the natively supported subset
+     */
+    public static Expression parse(String expression) {
+        ExpressionParser expressionParser =
+                new ExpressionParser(expression);
+        Expression parsedExpression =
+                expressionParser.parseOr();
+
+        while(expressionParser.accept(";")) {
+            // Trailing semicolons are allowed
+        }
+
+        if(expressionParser.peekToken() != null) {
+            throw expressionParser.unexpected();
+        }
+
+        return parsedExpression;
+    }
+
+    private Expression parseOr() {
+        Expression expression = parseAnd();
+
+        while(accept("||")) {
+            expression =
+                    new Expression.Logical(
+                            false,
+                            expression,
+                            parseAnd());
+        }
+
+        return expression;
+    }
+
+    private Expression parseAnd() {
+        Expression expression = parseEquality();
+
+        while(accept("&&")) {
+            expression =
+                    new Expression.Logical(
+                            true,
+                            expression,
+                            parseEquality());
+        }
+
+        return expression;
+    }
+
+    private Expression parseEquality() {
+        Expression expression = parseRelational();
+        String operator;
+
+        while((operator = acceptAny("===", "!==", "==", "!=")) != null) {
+            expression =
+                    new Expression.Comparison(
+                            operator,
+                            expression,
+                            parseRelational());
+        }
+
+        return expression;
+    }
+
+    private Expression parseRelational() {
+        Expression expression = parseUnary();
+        String operator;
+
+        while((operator = acceptAny("<=", ">=", "<", ">")) != null) {
+            expression =
+                    new Expression.Comparison(
+                            operator,
+                            expression,
+                            parseUnary());
+        }
+
+        return expression;
+    }
+
+    private Expression parseUnary() {
+        if(accept("!")) {
+            return new Expression.Not(
+                    parseUnary());
+        }
+
+        return parsePrimary();
+    }
+
+    private Expression parsePrimary() {
+        skipWhitespaces();
+
+        if(position >= expression.length()) {
+            throw unexpected();
+        }
+
+        char currentChar =
+                expression.charAt(position);
+
+        if(accept("(")) {
+            Expression parsedExpression = parseOr();
+
+            expect(")");
+
+            return parsedExpression;
+        } else if(currentChar == '"' ||
+                currentChar == '\'') {
+            return new Expression.Literal(
+                    parseString(currentChar));
+        } else if(Character.isDigit(currentChar) ||
+                currentChar == '.' ||
+                (currentChar == '-' &&
+                        position + 1 < expression.length() &&
+                        (Character.isDigit(expression.charAt(position + 1)) ||
+                                expression.charAt(position + 1) == '.'))) {
+            return new Expression.Literal(
+                    parseNumber());
+        } else if(isIdentifierStart(currentChar)) {
+            String identifier = parseIdentifier();
+
+            switch (identifier) {
+                case "true":
+                    return new Expression.Literal(Boolean.TRUE);
+                case "false":
+                    return new Expression.Literal(Boolean.FALSE);
+                case "null":
+                    return new Expression.Literal(null);
+                case LODASH_IDENTIFIER:
+                    return parseLodashCall();
+                default:
+                    return new Expression.Variable(identifier);
+            }
+        }
+
+        throw unexpected();
+    }
+
+    private Expression parseLodashCall() {
+        expect(".");
+        skipWhitespaces();
+
+        String function = parseIdentifier();
+
+        if(!LODASH_FUNCTIONS.contains(function)) {
+            throw new UnsupportedExpressionException(
+                    "Unsupported function: " + function);
+        }
+
+        expect("(");
+
+        List<Expression> arguments =
+                new ArrayList<>();
+
+        do {
+            arguments.add(
+                    parseOr());
+        } while(accept(","));
+
+        expect(")");
+
+        if(arguments.size() != 2) {
+            throw new UnsupportedExpressionException(
+                    "Unsupported arguments count of the function: " + function);
+        }
+
+        return new Expression.LodashCall(
+                function,
+                arguments);
+    }
+
+    private String parseString(char quoteChar) {
+        StringBuilder stringBuilder =
+                new StringBuilder();
+
+        position++;
+
+        while(position < expression.length()) {
+            char currentChar =
+                    expression.charAt(position++);
+
+            if(currentChar == quoteChar) {
+                return stringBuilder.toString();
+            } else if(currentChar == '\\') {
+                if(position >= expression.length()) {
+                    break;
+                }
+
+                char escapedChar =
+                        expression.charAt(position++);
+
+                switch (escapedChar) {
+                    case 'n':
+                        stringBuilder.append('\n');
+                        break;
+                    case 't':
+                        stringBuilder.append('\t');
+                        break;
+                    case 'r':
+                        stringBuilder.append('\r');
+                        break;
+                    case 'b':
+                        stringBuilder.append('\b');
+                        break;
+                    case 'f':
+                        stringBuilder.append('\f');
+                        break;
+                    case 'v':
+                        stringBuilder.append('\u000B');
+                        break;
+                    case 'u':
+                        stringBuilder.append(
+                                parseHexChar(4));
+                        break;
+                    case 'x':
+                        stringBuilder.append(
+                                parseHexChar(2));
+                        break;
+                    case '"':
+                    case '\'':
+                    case '\\':
+                        stringBuilder.append(escapedChar);
+                        break;
+                    default:
+                        throw new UnsupportedExpressionException(
+                                "Unsupported escape sequence: \\" + escapedChar);
+                }
+            } else if(currentChar == '\n' ||
+                    currentChar == '\r') {
+                break;
+            } else {
+                stringBuilder.append(currentChar);
+            }
+        }
+
+        throw unexpected();
+    }
+
+    private char parseHexChar(int length) {
+        if(position + length > expression.length()) {
+            throw unexpected();
+        }
+
+        try {
+            char hexChar =
+                    (char) Integer.parseInt(
+                            expression.substring(
+                                    position,
+                                    position + length),
+                            16);
+
+            position += length;
+
+            return hexChar;
+        } catch (NumberFormatException e) {
+            throw unexpected();
+        }
+    }
+
+    private Double parseNumber() {
+        int start = position;
+
+        if(expression.charAt(position) == '-') {
+            position++;
+        }
+
+        if(expression.startsWith("0", position) &&
+                position + 1 < expression.length() &&
+                Character.isLetterOrDigit(
+                        expression.charAt(position + 1))) {
+            // Octal, hexadecimal, etc.
+            throw new UnsupportedExpressionException(
+                    "Unsupported number literal");
+        }
+
+        while(position < expression.length() &&
+                Character.isDigit(expression.charAt(position))) {
+            position++;
+        }
+
+        if(position < expression.length() &&
+                expression.charAt(position) == '.') {
+            position++;
+
+            while(position < expression.length() &&
+                    Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        if(position < expression.length() &&
+                (expression.charAt(position) == 'e' ||
+                        expression.charAt(position) == 'E')) {
+            position++;
+
+            if(position < expression.length() &&
+                    (expression.charAt(position) == '+' ||
+                            expression.charAt(position) == '-')) {
+                position++;
+            }
+
+            while(position < expression.length() &&
+                    Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        if(position < expression.length() &&
+                isIdentifierPart(expression.charAt(position))) {
+            throw unexpected();
+        }
+
+        try {
+            return Double.valueOf(
+                    expression.substring(
+                            start,
+                            position));
+        } catch (NumberFormatException e) {
+            throw unexpected();
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = position;
+
+        if(position >= expression.length() ||
+                !isIdentifierStart(expression.charAt(position))) {
+            throw unexpected();
+        }
+
+        while(position < expression.length() &&
+                isIdentifierPart(expression.charAt(position))) {
+            position++;
+        }
+
+        return expression.substring(
+                start,
+                position);
+    }
+
+    private String peekToken() {
+        skipWhitespaces();
+
+        if(position >= expression.length()) {
+            return null;
+        }
+
+        for(String operator : OPERATORS) {
+            if(expression.startsWith(
+                    operator,
+                    position)) {
+                return operator;
+            }
+        }
+
+        return String.valueOf(
+                expression.charAt(position));
+    }
+
+    private boolean accept(String token) {
+        String nextToken = peekToken();
+
+        if(token.equals(nextToken)) {
+            position += token.length();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private String acceptAny(String... tokens) {
+        for(String token : tokens) {
+            if(accept(token)) {
+                return token;
+            }
+        }
+
+        return null;
+    }
+
+    private void expect(String token) {
+        if(!accept(token)) {
+            throw unexpected();
+        }
+    }
+
+    private void skipWhitespaces() {
+        while(position < expression.length() &&
+                Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+    }
+
+    private UnsupportedExpressionException unexpected() {
+        return new UnsupportedExpressionException(
+                "Unsupported expression part at position " + position);
+    }
+
+    private static boolean isIdentifierStart(char character) {
+        return Character.isLetter(character) ||
+                character == '_' ||
+                character == '$';
+    }
+
+    private static boolean isIdentifierPart(char character) {
+        return isIdentifierStart(character) ||
+                Character.isDigit(character);
+    }
+}
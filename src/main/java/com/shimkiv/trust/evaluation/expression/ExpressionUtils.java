@@ -0,0 +1,122 @@
+package com.shimkiv.trust.evaluation.expression;
+
+import com.shimkiv.trust.common.SampledLruCache;
+
+import java.util.Map;
+
+/**
+ * Expression Utils
+ *
+ * Natively evaluates the expressions of the supported JS subset
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class ExpressionUtils {
+    private static final Expression UNSUPPORTED_EXPRESSION =
+            new Expression.Literal(null);
+
+    // Prevents instantiation
+    private ExpressionUtils() {}
+
+    /**
+     * Evaluates provided expression into the {@link Boolean}
+     * (the expression is parsed each time, see
+     * {@link #evaluateToBoolean(String, Map, SampledLruCache)})
+     *
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of variables
+     * @return Evaluation result
+     * @throws UnsupportedExpressionException if the expression
+     * (or its evaluation) is out of the natively supported subset
+     */
+    public static boolean evaluateToBoolean(String evalExpression,
+                                            Map<String, Object> variables) {
+        return Boolean.TRUE.equals(
+                ExpressionParser.
+                        parse(evalExpression).
+                        evaluate(variables));
+    }
+
+    /**
+     * Evaluates provided expression into the {@link Boolean}
+     * by using provided parsed expressions cache
+     * (e.g. the one of the TrustEngine instance)
+     *
+     * @param evalExpression Expression to evaluate
+     * @param variables {@link Map} of variables
+     * @param parsedExpressions Parsed expressions cache
+     * @return Evaluation result
+     * @throws UnsupportedExpressionException if the expression
+     * (or its evaluation) is out of the natively supported subset
+     */
+    public static boolean evaluateToBoolean(String evalExpression,
+                                            Map<String, Object> variables,
+                                            SampledLruCache<String, Expression>
+                                                    parsedExpressions) {
+        return Boolean.TRUE.equals(
+                parseExpression(
+                        evalExpression,
+                        parsedExpressions).
+                        evaluate(variables));
+    }
+
+    /**
+     * Converts provided value into the number the same way as JS does
+     *
+     * @param value Value to convert
+     * @return Conversion result
+     * @throws UnsupportedExpressionException if the value
+     * is out of the natively supported subset
+     */
+    public static double toNumber(Object value) {
+        return Expression.
+                toNumber(value);
+    }
+
+    /**
+     * Checks whether provided expression is natively supported
+     *
+     * @param evalExpression Expression to check
+     * @return Whether the expression is natively supported
+     */
+    public static boolean isSupported(String evalExpression) {
+        try {
+            ExpressionParser.
+                    parse(evalExpression);
+
+            return true;
+        } catch (UnsupportedExpressionException e) {
+            return false;
+        }
+    }
+
+    private static Expression parseExpression(String evalExpression,
+                                              SampledLruCache<String, Expression>
+                                                      parsedExpressions) {
+        Expression expression =
+                parsedExpressions.
+                        get(evalExpression);
+
+        if(expression == null) {
+            try {
+                expression =
+                        ExpressionParser.
+                                parse(evalExpression);
+            } catch (UnsupportedExpressionException e) {
+                expression = UNSUPPORTED_EXPRESSION;
+            }
+
+            parsedExpressions.
+                    put(evalExpression,
+                            expression);
+        }
+
+        if(expression == UNSUPPORTED_EXPRESSION) {
+            throw new UnsupportedExpressionException(
+                    "Unsupported expression: " + evalExpression);
+        }
+
+        return expression;
+    }
+}
@@ -0,0 +1,16 @@
+package com.shimkiv.trust.evaluation.expression;
+
+/**
+ * Thrown when the expression (or its evaluation)
+ * is out of the natively supported subset
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class UnsupportedExpressionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedExpressionException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,538 @@
+package com.shimkiv.trust.evaluation.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming JSON Extractor
+ *
+ * Extracts the simple definite JSONPath expressions
+ * (e.g. $.data.items[0].id or $['data']['id'])
+ * in a single forward pass over the whole (strictly valid) JSON source
+ *
+ * Extraction results are the raw JSON texts of the matching values,
+ * expressions without the matching value are absent in the results
+ * (for the duplicated keys the last value wins, as in the parsed tree)
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class StreamingJsonExtractor {
+    private static final Pattern STEP_PATTERN =
+            Pattern.compile(
+                    "\\.([A-Za-z_][A-Za-z0-9_]*)|" +
+                            "\\['([^'\\\\,]+)']|" +
+                            "\\[\"([^\"\\\\,]+)\"]|" +
+                            "\\[([0-9]+)]");
+    private static final String ROOT_MARK = "$";
+    private static final int BUFFER_SIZE = 8192;
+
+    // Prevents instantiation
+    private StreamingJsonExtractor() {}
+
+    /**
+     * Checks whether provided JSONPath expression can be streamed
+     *
+     * @param jsonPathExpression JSONPath expression
+     * @return true/false
+     */
+    public static boolean isSupported(String jsonPathExpression) {
+        return parse(jsonPathExpression) != null;
+    }
+
+    /**
+     * Extracts provided JSONPath expressions from the UTF-8 JSON source
+     * {@link InputStream} (the stream is not closed)
+     *
+     * @param jsonSource JSON source {@link InputStream}
+     * @param jsonPathExpressions JSONPath expressions to extract
+     * @return {@link Map} of the raw JSON extraction results
+     * or null if the source or expressions can't be streamed
+     */
+    public static Map<String, String> extract(InputStream jsonSource,
+                                              Collection<String> jsonPathExpressions) {
+        return extract(
+                new InputStreamReader(
+                        jsonSource,
+                        StandardCharsets.UTF_8),
+                jsonPathExpressions);
+    }
+
+    /**
+     * Extracts provided JSONPath expressions from the JSON source {@link Reader}
+     * (the reader is not closed)
+     *
+     * @param jsonSource JSON source {@link Reader}
+     * @param jsonPathExpressions JSONPath expressions to extract
+     * @return {@link Map} of the raw JSON extraction results
+     * or null if the source or expressions can't be streamed
+     */
+    public static Map<String, String> extract(Reader jsonSource,
+                                              Collection<String> jsonPathExpressions) {
+        List<PathMatcher> pathMatchers =
+                new ArrayList<>();
+
+        for(String jsonPathExpression :
+                new LinkedHashSet<>(jsonPathExpressions)) {
+            List<Object> steps =
+                    parse(jsonPathExpression);
+
+            if(steps == null) {
+                return null;
+            }
+
+            pathMatchers.add(
+                    new PathMatcher(
+                            jsonPathExpression,
+                            steps));
+        }
+
+        JsonScanner jsonScanner =
+                new JsonScanner(
+                        jsonSource);
+
+        try {
+            jsonScanner.value(
+                    pathMatchers,
+                    0);
+            jsonScanner.end();
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+
+        return jsonScanner.extractionResults;
+    }
+
+    /*
+     * Returns the property names and array indexes
+     */
+    private static List<Object> parse(String jsonPathExpression) {
+        if(jsonPathExpression == null ||
+                !jsonPathExpression.
+                        startsWith(ROOT_MARK)) {
+            return null;
+        }
+
+        List<Object> steps =
+                new ArrayList<>();
+        Matcher matcher =
+                STEP_PATTERN.
+                        matcher(jsonPathExpression);
+        int offset = ROOT_MARK.length();
+
+        while(offset < jsonPathExpression.length()) {
+            if(!matcher.find(offset) ||
+                    matcher.start() != offset) {
+                return null;
+            }
+
+            if(matcher.group(4) != null) {
+                try {
+                    steps.add(
+                            Integer.parseInt(
+                                    matcher.group(4)));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else {
+                steps.add(
+                        matcher.group(1) != null ?
+                                matcher.group(1) :
+                                matcher.group(2) != null ?
+                                        matcher.group(2) :
+                                        matcher.group(3));
+            }
+
+            offset = matcher.end();
+        }
+
+        return steps.isEmpty() ?
+                null :
+                steps;
+    }
+
+    private static class PathMatcher {
+        private final String jsonPathExpression;
+        private final List<Object> steps;
+        private StringBuilder value;
+
+        PathMatcher(String jsonPathExpression,
+                    List<Object> steps) {
+            this.jsonPathExpression = jsonPathExpression;
+            this.steps = steps;
+        }
+    }
+
+    /*
+     * Strict JSON scanner which copies the chars of the matching values only,
+     * everything else (e.g. the lenient JSON syntax) is reported
+     * by the IllegalStateException
+     */
+    private static class JsonScanner {
+        private final Reader reader;
+        private final char[] buffer =
+                new char[BUFFER_SIZE];
+        private final List<PathMatcher> capturingMatchers =
+                new ArrayList<>();
+        private final Map<String, String> extractionResults =
+                new HashMap<>();
+        private final StringBuilder key =
+                new StringBuilder();
+        private int position;
+        private int limit;
+
+        JsonScanner(Reader reader) {
+            this.reader = reader;
+        }
+
+        void value(List<PathMatcher> pathMatchers,
+                   int depth) throws IOException {
+            skipWhitespaces();
+
+            List<PathMatcher> completedMatchers =
+                    Collections.emptyList();
+            List<PathMatcher> nestedMatchers =
+                    Collections.emptyList();
+
+            for(PathMatcher pathMatcher : pathMatchers) {
+                if(pathMatcher.steps.size() == depth) {
+                    if(completedMatchers.isEmpty()) {
+                        completedMatchers =
+                                new ArrayList<>();
+                    }
+
+                    pathMatcher.value =
+                            new StringBuilder();
+                    completedMatchers.
+                            add(pathMatcher);
+                } else {
+                    if(nestedMatchers.isEmpty()) {
+                        nestedMatchers =
+                                new ArrayList<>();
+                    }
+
+                    nestedMatchers.
+                            add(pathMatcher);
+                }
+            }
+
+            capturingMatchers.
+                    addAll(completedMatchers);
+
+            int c = peek();
+
+            if(c == '{') {
+                object(nestedMatchers, depth);
+            } else if(c == '[') {
+                array(nestedMatchers, depth);
+            } else if(c == '"') {
+                string(false);
+            } else if(c == '-' ||
+                    (c >= '0' && c <= '9')) {
+                number();
+            } else if(c == 't' ||
+                    c == 'f' ||
+                    c == 'n') {
+                literal();
+            } else {
+                throw new IllegalStateException();
+            }
+
+            if(!completedMatchers.isEmpty()) {
+                capturingMatchers.
+                        removeAll(completedMatchers);
+
+                for(PathMatcher pathMatcher : completedMatchers) {
+                    extractionResults.put(
+                            pathMatcher.jsonPathExpression,
+                            pathMatcher.value.
+                                    toString());
+                    pathMatcher.value = null;
+                }
+            }
+        }
+
+        /*
+         * Makes sure nothing but the whitespaces follows the root value,
+         * so the malformed payloads are left to the tree parser
+         */
+        void end() throws IOException {
+            skipWhitespaces();
+
+            if(peek() != -1) {
+                throw new IllegalStateException();
+            }
+        }
+
+        private void object(List<PathMatcher> pathMatchers,
+                            int depth) throws IOException {
+            next();
+            skipWhitespaces();
+
+            if(peek() == '}') {
+                next();
+
+                return;
+            }
+
+            while(true) {
+                skipWhitespaces();
+
+                if(peek() != '"') {
+                    throw new IllegalStateException();
+                }
+
+                List<PathMatcher> matchingMatchers =
+                        Collections.emptyList();
+
+                if(pathMatchers.isEmpty()) {
+                    string(false);
+                } else {
+                    string(true);
+
+                    String name =
+                            key.toString();
+
+                    for(PathMatcher pathMatcher : pathMatchers) {
+                        if(name.equals(
+                                pathMatcher.steps.
+                                        get(depth))) {
+                            if(matchingMatchers.isEmpty()) {
+                                matchingMatchers =
+                                        new ArrayList<>();
+                            }
+
+                            // The duplicated key overrides the previous value
+                            extractionResults.remove(
+                                    pathMatcher.jsonPathExpression);
+                            matchingMatchers.
+                                    add(pathMatcher);
+                        }
+                    }
+                }
+
+                skipWhitespaces();
+                expect(':');
+                value(matchingMatchers,
+                        depth + 1);
+                skipWhitespaces();
+
+                int c = next();
+
+                if(c == '}') {
+                    return;
+                }
+
+                if(c != ',') {
+                    throw new IllegalStateException();
+                }
+            }
+        }
+
+        private void array(List<PathMatcher> pathMatchers,
+                           int depth) throws IOException {
+            next();
+            skipWhitespaces();
+
+            if(peek() == ']') {
+                next();
+
+                return;
+            }
+
+            for(int index = 0; ; index++) {
+                List<PathMatcher> matchingMatchers =
+                        Collections.emptyList();
+
+                for(PathMatcher pathMatcher : pathMatchers) {
+                    if(Integer.valueOf(index).
+                            equals(pathMatcher.steps.
+                                    get(depth))) {
+                        if(matchingMatchers.isEmpty()) {
+                            matchingMatchers =
+                                    new ArrayList<>();
+                        }
+
+                        matchingMatchers.
+                                add(pathMatcher);
+                    }
+                }
+
+                value(matchingMatchers,
+                        depth + 1);
+                skipWhitespaces();
+
+                int c = next();
+
+                if(c == ']') {
+                    return;
+                }
+
+                if(c != ',') {
+                    throw new IllegalStateException();
+                }
+            }
+        }
+
+        /*
+         * Decodes the string into the key buffer when requested
+         */
+        private void string(boolean decode) throws IOException {
+            next();
+
+            if(decode) {
+                key.setLength(0);
+            }
+
+            while(true) {
+                int c = next();
+
+                if(c == '"') {
+                    return;
+                }
+
+                if(c == '\\') {
+                    c = next();
+
+                    switch(c) {
+                        case 'b':
+                            c = '\b';
+                            break;
+                        case 'f':
+                            c = '\f';
+                            break;
+                        case 'n':
+                            c = '\n';
+                            break;
+                        case 'r':
+                            c = '\r';
+                            break;
+                        case 't':
+                            c = '\t';
+                            break;
+                        case 'u':
+                            int code = 0;
+
+                            for(int i = 0; i < 4; i++) {
+                                int digit =
+                                        Character.digit(next(), 16);
+
+                                if(digit < 0) {
+                                    throw new IllegalStateException();
+                                }
+
+                                code = code * 16 + digit;
+                            }
+
+                            c = code;
+                            break;
+                        case '"':
+                        case '\\':
+                        case '/':
+                            break;
+                        default:
+                            throw new IllegalStateException();
+                    }
+                }
+
+                if(decode) {
+                    key.append((char) c);
+                }
+            }
+        }
+
+        private void number() throws IOException {
+            int c = peek();
+
+            while(c == '-' ||
+                    c == '+' ||
+                    c == '.' ||
+                    c == 'e' ||
+                    c == 'E' ||
+                    (c >= '0' && c <= '9')) {
+                next();
+                c = peek();
+            }
+        }
+
+        private void literal() throws IOException {
+            int c = peek();
+
+            while(c >= 'a' && c <= 'z') {
+                next();
+                c = peek();
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if(next() != expected) {
+                throw new IllegalStateException();
+            }
+        }
+
+        private void skipWhitespaces() throws IOException {
+            int c = peek();
+
+            while(c == ' ' ||
+                    c == '\n' ||
+                    c == '\r' ||
+                    c == '\t') {
+                next();
+                c = peek();
+            }
+        }
+
+        private int peek() throws IOException {
+            if(position == limit &&
+                    !fill()) {
+                return -1;
+            }
+
+            return buffer[position];
+        }
+
+        private int next() throws IOException {
+            if(position == limit &&
+                    !fill()) {
+                throw new IllegalStateException();
+            }
+
+            char c = buffer[position++];
+
+            for(int i = 0; i < capturingMatchers.size(); i++) {
+                capturingMatchers.
+                        get(i).
+                        value.
+                        append(c);
+            }
+
+            return c;
+        }
+
+        private boolean fill() throws IOException {
+            int read =
+                    reader.read(buffer);
+
+            if(read <= 0) {
+                return false;
+            }
+
+            position = 0;
+            limit = read;
+
+            return true;
+        }
+    }
+}
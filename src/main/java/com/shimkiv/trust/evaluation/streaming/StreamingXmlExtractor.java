@@ -0,0 +1,353 @@
+package com.shimkiv.trust.evaluation.streaming;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming XML Extractor
+ *
+ * Extracts the simple absolute XPath expressions
+ * (e.g. /Response/description or /Response/items/item[2]/id)
+ * in a single forward StAX pass, stops as soon as every value is found
+ *
+ * Mimics the XPath string-value semantics:
+ * the concatenated text of the first matching element
+ * or the empty {@link String} when there is no such element
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class StreamingXmlExtractor {
+    private static final Pattern STEP_PATTERN =
+            Pattern.compile(
+                    "/([A-Za-z_][A-Za-z0-9_.\\-]*)(?:\\[([1-9][0-9]*)])?");
+    private static final XMLInputFactory XML_INPUT_FACTORY =
+            newXmlInputFactory();
+
+    // Prevents instantiation
+    private StreamingXmlExtractor() {}
+
+    /**
+     * Checks whether provided XPath expression can be streamed
+     *
+     * @param xPathExpression XPath expression
+     * @return true/false
+     */
+    public static boolean isSupported(String xPathExpression) {
+        return parse(xPathExpression) != null;
+    }
+
+    /**
+     * Extracts provided XPath expressions from the XML source {@link InputStream}
+     * (the stream is not closed)
+     *
+     * @param xmlSource XML source {@link InputStream}
+     * @param xPathExpressions XPath expressions to extract
+     * @return {@link Map} of extraction results
+     * or null if the source or expressions can't be streamed
+     */
+    public static Map<String, String> extract(InputStream xmlSource,
+                                              Collection<String> xPathExpressions) {
+        try {
+            return extract(XML_INPUT_FACTORY.
+                            createXMLStreamReader(
+                                    xmlSource),
+                    xPathExpressions);
+        } catch (XMLStreamException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extracts provided XPath expressions from the XML source {@link Reader}
+     * (the reader is not closed)
+     *
+     * @param xmlSource XML source {@link Reader}
+     * @param xPathExpressions XPath expressions to extract
+     * @return {@link Map} of extraction results
+     * or null if the source or expressions can't be streamed
+     */
+    public static Map<String, String> extract(Reader xmlSource,
+                                              Collection<String> xPathExpressions) {
+        try {
+            return extract(XML_INPUT_FACTORY.
+                            createXMLStreamReader(
+                                    xmlSource),
+                    xPathExpressions);
+        } catch (XMLStreamException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> extract(XMLStreamReader xmlStreamReader,
+                                               Collection<String> xPathExpressions)
+            throws XMLStreamException {
+        List<PathMatcher> pathMatchers =
+                new ArrayList<>();
+
+        for(String xPathExpression :
+                new LinkedHashSet<>(xPathExpressions)) {
+            List<Step> steps =
+                    parse(xPathExpression);
+
+            if(steps == null) {
+                return null;
+            }
+
+            pathMatchers.add(
+                    new PathMatcher(
+                            xPathExpression,
+                            steps));
+        }
+
+        try {
+            return extract(
+                    xmlStreamReader,
+                    pathMatchers);
+        } finally {
+            xmlStreamReader.close();
+        }
+    }
+
+    private static Map<String, String> extract(XMLStreamReader xmlStreamReader,
+                                               List<PathMatcher> pathMatchers)
+            throws XMLStreamException {
+        /*
+         * Per-depth counters of the child element names
+         * which resolve the positional predicates
+         */
+        List<Map<String, Integer>> siblingCounters =
+                new ArrayList<>();
+        List<PathMatcher> capturingMatchers =
+                new ArrayList<>();
+        int pendingCount = pathMatchers.size();
+        int depth = 0;
+
+        siblingCounters.add(
+                new HashMap<>());
+
+        while(pendingCount > 0 &&
+                xmlStreamReader.hasNext()) {
+            switch(xmlStreamReader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String name =
+                            qualifiedName(xmlStreamReader);
+                    int position =
+                            siblingCounters.
+                                    get(depth).
+                                    merge(name, 1, Integer::sum);
+
+                    depth++;
+
+                    if(siblingCounters.size() <= depth) {
+                        siblingCounters.add(
+                                new HashMap<>());
+                    } else {
+                        siblingCounters.
+                                get(depth).
+                                clear();
+                    }
+
+                    for(PathMatcher pathMatcher : pathMatchers) {
+                        if(pathMatcher.enter(
+                                depth,
+                                name,
+                                position)) {
+                            capturingMatchers.
+                                    add(pathMatcher);
+                        }
+                    }
+
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    for(PathMatcher pathMatcher : pathMatchers) {
+                        if(pathMatcher.leave(depth)) {
+                            capturingMatchers.
+                                    remove(pathMatcher);
+                            pendingCount--;
+                        }
+                    }
+
+                    depth--;
+
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    for(PathMatcher pathMatcher : capturingMatchers) {
+                        pathMatcher.value.
+                                append(xmlStreamReader.getTextCharacters(),
+                                        xmlStreamReader.getTextStart(),
+                                        xmlStreamReader.getTextLength());
+                    }
+
+                    break;
+                case XMLStreamConstants.DTD:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    // Entities declared in DTD are resolved by the DOM parser only
+                    return null;
+                default:
+                    break;
+            }
+        }
+
+        Map<String, String> extractionResults =
+                new HashMap<>();
+
+        pathMatchers.
+                forEach(pathMatcher ->
+                        extractionResults.put(
+                                pathMatcher.xPathExpression,
+                                pathMatcher.value.
+                                        toString()));
+
+        return extractionResults;
+    }
+
+    private static List<Step> parse(String xPathExpression) {
+        if(xPathExpression == null ||
+                xPathExpression.isEmpty()) {
+            return null;
+        }
+
+        List<Step> steps =
+                new ArrayList<>();
+        Matcher matcher =
+                STEP_PATTERN.
+                        matcher(xPathExpression);
+        int offset = 0;
+
+        while(offset < xPathExpression.length()) {
+            if(!matcher.find(offset) ||
+                    matcher.start() != offset) {
+                return null;
+            }
+
+            steps.add(
+                    new Step(
+                            matcher.group(1),
+                            matcher.group(2) != null ?
+                                    Integer.parseInt(
+                                            matcher.group(2)) :
+                                    0));
+            offset = matcher.end();
+        }
+
+        return steps;
+    }
+
+    private static String qualifiedName(XMLStreamReader xmlStreamReader) {
+        String prefix =
+                xmlStreamReader.getPrefix();
+
+        return prefix == null ||
+                prefix.isEmpty() ?
+                xmlStreamReader.getLocalName() :
+                prefix + ":" + xmlStreamReader.getLocalName();
+    }
+
+    private static XMLInputFactory newXmlInputFactory() {
+        XMLInputFactory xmlInputFactory =
+                XMLInputFactory.newInstance();
+
+        xmlInputFactory.
+                setProperty(XMLInputFactory.SUPPORT_DTD,
+                        false);
+        xmlInputFactory.
+                setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                        false);
+        xmlInputFactory.
+                setProperty(XMLInputFactory.IS_COALESCING,
+                        true);
+
+        return xmlInputFactory;
+    }
+
+    private static class Step {
+        private final String name;
+        // 1-based position among the same-named siblings, 0 if any
+        private final int position;
+
+        Step(String name,
+             int position) {
+            this.name = name;
+            this.position = position;
+        }
+
+        boolean matches(String name,
+                        int position) {
+            return this.name.equals(name) &&
+                    (this.position == 0 ||
+                            this.position == position);
+        }
+    }
+
+    private static class PathMatcher {
+        private final String xPathExpression;
+        private final List<Step> steps;
+        private final StringBuilder value =
+                new StringBuilder();
+        // Depth up to which the currently open elements match the steps
+        private int matchedDepth;
+        private boolean capturing;
+        private boolean found;
+
+        PathMatcher(String xPathExpression,
+                    List<Step> steps) {
+            this.xPathExpression = xPathExpression;
+            this.steps = steps;
+        }
+
+        /*
+         * Returns true when the first matching element is entered
+         */
+        boolean enter(int depth,
+                      String name,
+                      int position) {
+            if(found ||
+                    matchedDepth != depth - 1 ||
+                    depth > steps.size() ||
+                    !steps.get(depth - 1).
+                            matches(name, position)) {
+                return false;
+            }
+
+            matchedDepth = depth;
+            capturing = depth == steps.size();
+
+            return capturing;
+        }
+
+        /*
+         * Returns true when the first matching element is completed
+         */
+        boolean leave(int depth) {
+            if(matchedDepth != depth) {
+                return false;
+            }
+
+            matchedDepth--;
+
+            if(capturing) {
+                capturing = false;
+                found = true;
+
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.shimkiv.trust.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Extraction JFR Event
+ *
+ * @author Serhii Shymkiv
+ */
+
+@Name("com.shimkiv.trust.Extraction")
+@Label("Extraction")
+@Description("XPath / JSONPath expression evaluation against the API response payload")
+@Category("TRUST")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+public class ExtractionEvent extends Event {
+    @Label("Extraction Type")
+    String extractionType;
+
+    @Label("Expression")
+    String evalExpression;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,206 @@
+package com.shimkiv.trust.jfr;
+
+import jdk.jfr.Event;
+
+import java.util.logging.Logger;
+
+/**
+ * JFR Utils
+ *
+ * Emits the TRUST JFR events (disabled by default, can be enabled
+ * and thresholded by using the JFR settings, e.g.
+ * "com.shimkiv.trust.RuleEvaluation#enabled=true",
+ * "com.shimkiv.trust.RuleEvaluation#threshold=1 ms").
+ * The events are not emitted on the JVMs without the JFR API
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class JfrUtils {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    JfrUtils.class.
+                            getName());
+
+    private static final boolean JFR_AVAILABLE =
+            isJfrAvailable();
+
+    public static final long UNKNOWN_PAYLOAD_SIZE = -1;
+
+    // Prevents instantiation
+    private JfrUtils() {}
+
+    public static boolean isAvailable() {
+        return JFR_AVAILABLE;
+    }
+
+    /**
+     * Begins the {@link RuleEvaluationEvent}
+     *
+     * @return Event handle or null if the event is disabled
+     */
+    public static Object beginRuleEvaluation() {
+        return JFR_AVAILABLE ?
+                Events.beginRuleEvaluation() :
+                null;
+    }
+
+    public static void commitRuleEvaluation(Object eventHandle,
+                                            String verificationType,
+                                            String verificationRule,
+                                            String outcome) {
+        if(eventHandle != null) {
+            Events.commitRuleEvaluation(
+                    eventHandle,
+                    verificationType,
+                    verificationRule,
+                    outcome);
+        }
+    }
+
+    /**
+     * Begins the {@link ExtractionEvent}
+     *
+     * @return Event handle or null if the event is disabled
+     */
+    public static Object beginExtraction() {
+        return JFR_AVAILABLE ?
+                Events.beginExtraction() :
+                null;
+    }
+
+    public static void commitExtraction(Object eventHandle,
+                                        String extractionType,
+                                        String evalExpression,
+                                        long payloadSize,
+                                        String outcome) {
+        if(eventHandle != null) {
+            Events.commitExtraction(
+                    eventHandle,
+                    extractionType,
+                    evalExpression,
+                    payloadSize,
+                    outcome);
+        }
+    }
+
+    /**
+     * Begins the {@link ValidationEvent}
+     *
+     * @return Event handle or null if the event is disabled
+     */
+    public static Object beginValidation() {
+        return JFR_AVAILABLE ?
+                Events.beginValidation() :
+                null;
+    }
+
+    public static void commitValidation(Object eventHandle,
+                                        long payloadSize,
+                                        String outcome) {
+        if(eventHandle != null) {
+            Events.commitValidation(
+                    eventHandle,
+                    payloadSize,
+                    outcome);
+        }
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName(
+                    "jdk.jfr.Event",
+                    false,
+                    JfrUtils.class.
+                            getClassLoader());
+
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOG.fine("JFR API is not available, JFR events are disabled");
+        }
+
+        return false;
+    }
+
+    /*
+     * The only place which links the jdk.jfr classes,
+     * it is not loaded unless the JFR API is available
+     */
+    private static class Events {
+        static Object beginRuleEvaluation() {
+            return begin(
+                    new RuleEvaluationEvent());
+        }
+
+        static Object beginExtraction() {
+            return begin(
+                    new ExtractionEvent());
+        }
+
+        static Object beginValidation() {
+            return begin(
+                    new ValidationEvent());
+        }
+
+        private static Object begin(Event event) {
+            if(!event.isEnabled()) {
+                return null;
+            }
+
+            event.begin();
+
+            return event;
+        }
+
+        static void commitRuleEvaluation(Object eventHandle,
+                                         String verificationType,
+                                         String verificationRule,
+                                         String outcome) {
+            RuleEvaluationEvent event =
+                    (RuleEvaluationEvent) eventHandle;
+
+            event.end();
+
+            if(event.shouldCommit()) {
+                event.verificationType = verificationType;
+                event.verificationRule = verificationRule;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+
+        static void commitExtraction(Object eventHandle,
+                                     String extractionType,
+                                     String evalExpression,
+                                     long payloadSize,
+                                     String outcome) {
+            ExtractionEvent event =
+                    (ExtractionEvent) eventHandle;
+
+            event.end();
+
+            if(event.shouldCommit()) {
+                event.extractionType = extractionType;
+                event.evalExpression = evalExpression;
+                event.payloadSize = payloadSize;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+
+        static void commitValidation(Object eventHandle,
+                                     long payloadSize,
+                                     String outcome) {
+            ValidationEvent event =
+                    (ValidationEvent) eventHandle;
+
+            event.end();
+
+            if(event.shouldCommit()) {
+                event.payloadSize = payloadSize;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.shimkiv.trust.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Rule Evaluation JFR Event
+ *
+ * @author Serhii Shymkiv
+ */
+
+@Name("com.shimkiv.trust.RuleEvaluation")
+@Label("Rule Evaluation")
+@Description("Verification rule evaluation")
+@Category("TRUST")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+public class RuleEvaluationEvent extends Event {
+    @Label("Verification Type")
+    String verificationType;
+
+    @Label("Verification Rule")
+    String verificationRule;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,25 @@
+package com.shimkiv.trust.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Validation JFR Event
+ *
+ * @author Serhii Shymkiv
+ */
+
+@Name("com.shimkiv.trust.Validation")
+@Label("Validation")
+@Description("API response validation against the XSD Schema")
+@Category("TRUST")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+public class ValidationEvent extends Event {
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Outcome")
+    String outcome;
+}
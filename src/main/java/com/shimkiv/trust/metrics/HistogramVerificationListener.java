@@ -0,0 +1,308 @@
+package com.shimkiv.trust.metrics;
+
+import com.shimkiv.trust.enums.VerificationPhase;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
+
+/**
+ * Histogram Verification Listener
+ *
+ * Keeps the in-memory histograms of the verification phases durations
+ * (power of two nanoseconds buckets) and the counts of the cache hits/misses,
+ * extraction failures and evaluation errors
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class HistogramVerificationListener implements VerificationListener {
+    private final Map<VerificationPhase, Histogram> histograms =
+            new EnumMap<>(VerificationPhase.class);
+    private final Map<String, LongAdder> cacheHits =
+            new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheMisses =
+            new ConcurrentHashMap<>();
+    private final LongAdder extractionFailures =
+            new LongAdder();
+    private final LongAdder evaluationErrors =
+            new LongAdder();
+
+    public HistogramVerificationListener() {
+        for(VerificationPhase verificationPhase :
+                VerificationPhase.values()) {
+            histograms.put(
+                    verificationPhase,
+                    new Histogram());
+        }
+    }
+
+    @Override
+    public void onPhaseCompleted(VerificationPhase verificationPhase,
+                                 long durationNanos) {
+        histograms.
+                get(verificationPhase).
+                record(durationNanos);
+    }
+
+    @Override
+    public void onCacheAccess(String cacheName,
+                              boolean hit) {
+        (hit ? cacheHits : cacheMisses).
+                computeIfAbsent(
+                        cacheName,
+                        name -> new LongAdder()).
+                increment();
+    }
+
+    @Override
+    public void onExtractionFailure(String evalExpression,
+                                    Exception cause) {
+        extractionFailures.increment();
+    }
+
+    @Override
+    public void onEvaluationError(String evalExpression,
+                                  Exception cause) {
+        evaluationErrors.increment();
+    }
+
+    public long getCount(VerificationPhase verificationPhase) {
+        return histograms.
+                get(verificationPhase).
+                getCount();
+    }
+
+    public long getTotalDuration(VerificationPhase verificationPhase,
+                                 TimeUnit timeUnit) {
+        return timeUnit.convert(
+                histograms.
+                        get(verificationPhase).
+                        getSum(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxDuration(VerificationPhase verificationPhase,
+                               TimeUnit timeUnit) {
+        return timeUnit.convert(
+                histograms.
+                        get(verificationPhase).
+                        getMax(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the approximate (bucket upper bound) duration percentile
+     *
+     * @param verificationPhase {@link VerificationPhase}
+     * @param percentile Percentile (0 - 100)
+     * @param timeUnit {@link TimeUnit}
+     * @return Duration percentile
+     */
+    public long getPercentileDuration(VerificationPhase verificationPhase,
+                                      double percentile,
+                                      TimeUnit timeUnit) {
+        return timeUnit.convert(
+                histograms.
+                        get(verificationPhase).
+                        getPercentile(percentile),
+                TimeUnit.NANOSECONDS);
+    }
+
+    public long getCacheHitCount(String cacheName) {
+        LongAdder hits =
+                cacheHits.get(cacheName);
+
+        return hits != null ?
+                hits.sum() :
+                0;
+    }
+
+    public long getCacheMissCount(String cacheName) {
+        LongAdder misses =
+                cacheMisses.get(cacheName);
+
+        return misses != null ?
+                misses.sum() :
+                0;
+    }
+
+    public long getExtractionFailuresCount() {
+        return extractionFailures.sum();
+    }
+
+    public long getEvaluationErrorsCount() {
+        return evaluationErrors.sum();
+    }
+
+    /**
+     * Resets all of the collected metrics
+     */
+    public void reset() {
+        histograms.
+                values().
+                forEach(Histogram::reset);
+        cacheHits.clear();
+        cacheMisses.clear();
+        extractionFailures.reset();
+        evaluationErrors.reset();
+    }
+
+    /**
+     * Dumps the collected metrics into the human readable form
+     *
+     * @return Metrics dump
+     */
+    public String dump() {
+        StringBuilder dump =
+                new StringBuilder("Verification Metrics [").
+                        append(LINE_SEPARATOR);
+
+        for(VerificationPhase verificationPhase :
+                VerificationPhase.values()) {
+            dump.append(
+                    String.format(
+                            "%-12s count=%d, totalUs=%d, p50Us=%d, p99Us=%d, maxUs=%d",
+                            verificationPhase,
+                            getCount(verificationPhase),
+                            getTotalDuration(
+                                    verificationPhase,
+                                    TimeUnit.MICROSECONDS),
+                            getPercentileDuration(
+                                    verificationPhase,
+                                    50,
+                                    TimeUnit.MICROSECONDS),
+                            getPercentileDuration(
+                                    verificationPhase,
+                                    99,
+                                    TimeUnit.MICROSECONDS),
+                            getMaxDuration(
+                                    verificationPhase,
+                                    TimeUnit.MICROSECONDS))).
+                    append(LINE_SEPARATOR);
+        }
+
+        TreeSet<String> cacheNames =
+                new TreeSet<>(
+                        cacheHits.keySet());
+
+        cacheNames.addAll(
+                cacheMisses.keySet());
+        cacheNames.forEach(cacheName ->
+                dump.append(
+                        String.format(
+                                "cache %s: hits=%d, misses=%d",
+                                cacheName,
+                                getCacheHitCount(cacheName),
+                                getCacheMissCount(cacheName))).
+                        append(LINE_SEPARATOR));
+
+        return dump.append("extraction failures=").
+                append(getExtractionFailuresCount()).
+                append(", evaluation errors=").
+                append(getEvaluationErrorsCount()).
+                append(LINE_SEPARATOR).
+                append("]").
+                toString();
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    /*
+     * Lock-free histogram with the power of two buckets
+     */
+    private static class Histogram {
+        private static final int BUCKETS_COUNT = 64;
+
+        private final AtomicLongArray buckets =
+                new AtomicLongArray(
+                        BUCKETS_COUNT);
+        private final LongAdder count =
+                new LongAdder();
+        private final LongAdder sum =
+                new LongAdder();
+        private final LongAccumulator max =
+                new LongAccumulator(
+                        Math::max,
+                        0);
+
+        void record(long value) {
+            long nonNegativeValue =
+                    Math.max(0, value);
+
+            buckets.incrementAndGet(
+                    bucketIndex(nonNegativeValue));
+            count.increment();
+            sum.add(nonNegativeValue);
+            max.accumulate(nonNegativeValue);
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        long getSum() {
+            return sum.sum();
+        }
+
+        long getMax() {
+            return max.get();
+        }
+
+        long getPercentile(double percentile) {
+            long total =
+                    getCount();
+
+            if(total == 0) {
+                return 0;
+            }
+
+            long threshold =
+                    Math.max(1,
+                            (long) Math.ceil(
+                                    total * percentile / 100));
+            long cumulative = 0;
+
+            for(int index = 0; index < BUCKETS_COUNT; index++) {
+                cumulative += buckets.get(index);
+
+                if(cumulative >= threshold) {
+                    return Math.min(
+                            index == 0 ?
+                                    0 :
+                                    (1L << index) - 1,
+                            getMax());
+                }
+            }
+
+            return getMax();
+        }
+
+        void reset() {
+            for(int index = 0; index < BUCKETS_COUNT; index++) {
+                buckets.set(index, 0);
+            }
+
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        private static int bucketIndex(long value) {
+            return Math.min(
+                    BUCKETS_COUNT - 1,
+                    Long.SIZE -
+                            Long.numberOfLeadingZeros(value));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.shimkiv.trust.metrics;
+
+import com.shimkiv.trust.enums.VerificationPhase;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.shimkiv.trust.config.TrustConfig.LISTENER_ERROR_MESSAGE;
+
+/**
+ * Metrics Utils
+ *
+ * Dispatches the verification metrics to the {@link VerificationListener}s
+ * of the current thread scope (the ones of the running TrustEngine instance)
+ * or, outside of any scope, to the registered ones, so the engines
+ * do not report to each other, nothing is measured while there are no listeners
+ *
+ * @author Serhii Shymkiv
+ */
+
+public class MetricsUtils {
+    private static final Logger LOG =
+            Logger.getLogger(
+                    MetricsUtils.class.
+                            getName());
+
+    private static final VerificationListener[] NO_LISTENERS =
+            new VerificationListener[0];
+
+    // Null outside of any scope
+    private static final ThreadLocal<VerificationListener[]> SCOPED_LISTENERS =
+            new ThreadLocal<>();
+
+    private static volatile VerificationListener[] listeners =
+            NO_LISTENERS;
+
+    // Prevents instantiation
+    private MetricsUtils() {}
+
+    /**
+     * Registers provided {@link VerificationListener}
+     * which is notified about the verifications of the default TrustEngine
+     * (the static utilities) and the ones made outside of any engine
+     * (the other engines are given their listeners by their builders)
+     *
+     * @param verificationListener {@link VerificationListener}
+     */
+    public static synchronized void addVerificationListener(VerificationListener
+                                                                    verificationListener) {
+        if(verificationListener != null) {
+            VerificationListener[] updatedListeners =
+                    Arrays.copyOf(
+                            listeners,
+                            listeners.length + 1);
+
+            updatedListeners[listeners.length] =
+                    verificationListener;
+            listeners = updatedListeners;
+        }
+    }
+
+    /**
+     * Unregisters provided {@link VerificationListener}
+     *
+     * @param verificationListener {@link VerificationListener}
+     */
+    public static synchronized void removeVerificationListener(VerificationListener
+                                                                       verificationListener) {
+        VerificationListener[] updatedListeners =
+                Arrays.stream(listeners).
+                        filter(listener ->
+                                listener != verificationListener).
+                        toArray(VerificationListener[]::new);
+
+        listeners = updatedListeners.length > 0 ?
+                updatedListeners :
+                NO_LISTENERS;
+    }
+
+    /**
+     * Returns the registered {@link VerificationListener}s
+     *
+     * @return {@link VerificationListener}s
+     */
+    public static VerificationListener[] getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Makes provided {@link VerificationListener}s the ones of the current thread scope
+     * until the {@link #exitScope(VerificationListener[])} is called
+     * (the empty scope hides the listeners of the enclosing one
+     * and the registered ones)
+     *
+     * @param scopedListeners {@link VerificationListener}s of the scope
+     * @return {@link VerificationListener}s of the enclosing scope
+     * (null if there is no enclosing scope)
+     */
+    public static VerificationListener[] enterScope(VerificationListener[]
+                                                            scopedListeners) {
+        VerificationListener[] enclosingListeners =
+                SCOPED_LISTENERS.get();
+
+        SCOPED_LISTENERS.set(
+                scopedListeners);
+
+        return enclosingListeners;
+    }
+
+    /**
+     * Restores the {@link VerificationListener}s of the enclosing scope
+     *
+     * @param enclosingListeners {@link VerificationListener}s
+     *                           returned by the {@link #enterScope(VerificationListener[])}
+     */
+    public static void exitScope(VerificationListener[]
+                                         enclosingListeners) {
+        if(enclosingListeners != null) {
+            SCOPED_LISTENERS.set(
+                    enclosingListeners);
+        } else {
+            SCOPED_LISTENERS.remove();
+        }
+    }
+
+    /**
+     * Whether any of the {@link VerificationListener}s is notified
+     * (the ones of the current thread scope or, outside of any scope,
+     * the registered ones)
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return activeListeners().length > 0;
+    }
+
+    /**
+     * Returns the phase start time
+     * or 0 if there are no listeners registered
+     *
+     * @return Start time in nanoseconds
+     */
+    public static long startTime() {
+        return isEnabled() ?
+                System.nanoTime() :
+                0;
+    }
+
+    public static void firePhaseCompleted(VerificationPhase verificationPhase,
+                                          long startTime) {
+        if(startTime == 0 ||
+                !isEnabled()) {
+            return;
+        }
+
+        long durationNanos =
+                System.nanoTime() - startTime;
+
+        fire(listener ->
+                listener.onPhaseCompleted(
+                        verificationPhase,
+                        durationNanos));
+    }
+
+    public static void fireCacheAccess(String cacheName,
+                                       boolean hit) {
+        fire(listener ->
+                listener.onCacheAccess(
+                        cacheName,
+                        hit));
+    }
+
+    public static void fireExtractionFailure(String evalExpression,
+                                             Exception cause) {
+        fire(listener ->
+                listener.onExtractionFailure(
+                        evalExpression,
+                        cause));
+    }
+
+    public static void fireEvaluationError(String evalExpression,
+                                           Exception cause) {
+        fire(listener ->
+                listener.onEvaluationError(
+                        evalExpression,
+                        cause));
+    }
+
+    private static VerificationListener[] activeListeners() {
+        VerificationListener[] scopedListeners =
+                SCOPED_LISTENERS.get();
+
+        return scopedListeners != null ?
+                scopedListeners :
+                listeners;
+    }
+
+    private static void fire(Consumer<VerificationListener> notification) {
+        for(VerificationListener listener : activeListeners()) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING,
+                        LISTENER_ERROR_MESSAGE,
+                        e);
+            }
+        }
+    }
+}
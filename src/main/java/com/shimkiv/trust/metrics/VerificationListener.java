@@ -0,0 +1,53 @@
+package com.shimkiv.trust.metrics;
+
+import com.shimkiv.trust.enums.VerificationPhase;
+
+/**
+ * Verification Listener
+ *
+ * Receives the verification metrics once registered
+ * by using the {@link MetricsUtils#addVerificationListener(VerificationListener)},
+ * the methods are invoked synchronously from the verifying threads
+ * and therefore should be fast and thread-safe
+ *
+ * @author Serhii Shymkiv
+ */
+
+public interface VerificationListener {
+    /**
+     * Invoked when the verification phase is completed
+     *
+     * @param verificationPhase {@link VerificationPhase}
+     * @param durationNanos Phase duration in nanoseconds
+     */
+    default void onPhaseCompleted(VerificationPhase verificationPhase,
+                                  long durationNanos) {}
+
+    /**
+     * Invoked on each lookup of the internal caches
+     *
+     * @param cacheName Name of the cache
+     * @param hit Whether the value was found in the cache
+     */
+    default void onCacheAccess(String cacheName,
+                               boolean hit) {}
+
+    /**
+     * Invoked when the API response payload can not be parsed
+     * or the XPath / JSONPath expression can not be evaluated
+     *
+     * @param evalExpression Expression to evaluate (null for the parsing failures)
+     * @param cause Failure cause
+     */
+    default void onExtractionFailure(String evalExpression,
+                                     Exception cause) {}
+
+    /**
+     * Invoked when the verification rule can not be evaluated
+     *
+     * @param evalExpression Expression to evaluate
+     * @param cause Error cause
+     */
+    default void onEvaluationError(String evalExpression,
+                                   Exception cause) {}
+}
@@ -1,24 +1,86 @@
 package com.shimkiv.trust;
 
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+import com.shimkiv.trust.common.CacheStats;
+import com.shimkiv.trust.common.SampledLruCache;
+import com.shimkiv.trust.common.VerificationQueueStats;
+import com.shimkiv.trust.entities.batch.ApiResponseRecord;
+import com.shimkiv.trust.entities.batch.BatchVerificationReport;
+import com.shimkiv.trust.entities.verification.CompiledVerificationEntities;
 import com.shimkiv.trust.entities.verification.VerificationEntities;
+import com.shimkiv.trust.entities.verification.VerificationReport;
+import com.shimkiv.trust.enums.OverflowPolicy;
+import com.shimkiv.trust.enums.VerificationMode;
+import com.shimkiv.trust.enums.VerificationPhase;
+import com.shimkiv.trust.enums.VerificationStatus;
+import com.shimkiv.trust.evaluation.EvaluationResultsCache;
+import com.shimkiv.trust.evaluation.ExtractionSession;
+import com.shimkiv.trust.evaluation.RuleTemplate;
+import com.shimkiv.trust.evaluation.expression.ExpressionUtils;
+import com.shimkiv.trust.evaluation.streaming.StreamingJsonExtractor;
+import com.shimkiv.trust.evaluation.streaming.StreamingXmlExtractor;
+import com.shimkiv.trust.jfr.JfrUtils;
+import com.shimkiv.trust.metrics.HistogramVerificationListener;
+import com.shimkiv.trust.metrics.MetricsUtils;
+import com.shimkiv.trust.metrics.VerificationListener;
+import org.apache.commons.lang3.StringUtils;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.commons.lang3.text.StrSubstitutor;
+import org.testng.SkipException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
 
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
+import java.io.ByteArrayInputStream;
 import java.io.StringReader;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.shimkiv.trust.AsyncVerificationUtils.performApiResponseVerificationAsync;
+import static com.shimkiv.trust.AsyncVerificationUtils.performTestResultsVerificationAsync;
+import static com.shimkiv.trust.BatchVerificationUtils.performBatchApiResponseVerification;
+import static com.shimkiv.trust.ValidationUtils.validateAndExtractApiResponse;
 import static com.shimkiv.trust.ValidationUtils.validateApiResponseAgainstXsd;
 import static com.shimkiv.trust.VerificationUtils.*;
+import static com.shimkiv.trust.config.TrustConfig.NON_DETERMINISTIC_RULES_PATTERN;
+import static com.shimkiv.trust.config.TrustConfig.SCRIPTS_TO_LOAD_URLS;
 import static com.shimkiv.trust.config.TrustConfig.VERIFICATION_TYPES_DELIMITER;
+import static com.shimkiv.trust.config.TrustConfig.VERIFICATION_TYPE_DELIMITER;
+import static com.shimkiv.trust.enums.VerificationType.API_RESPONSE;
 import static com.shimkiv.trust.enums.VerificationType.UI_ALERT;
 import static com.shimkiv.trust.enums.VerificationType.UI_COMMON;
+import static com.shimkiv.trust.evaluation.EvaluationUtils.*;
 import static javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -253,6 +315,2017 @@ public class TrustTest {
         }
     }
 
+    @Test
+    public void compiledRulesCacheTest() {
+        String evalExpression =
+                "\"compiledRulesCacheTest\".length > 0";
+
+        assertThat(evaluateJsToBoolean(
+                evalExpression)).
+                isTrue();
+
+        CacheStats cacheStats =
+                getCompiledRulesCacheStats();
+        LOG.info(cacheStats.
+                toString());
+
+        assertThat(evaluateJsToBoolean(
+                evalExpression)).
+                isTrue();
+        assertThat(getCompiledRulesCacheStats().
+                getHitCount()).
+                isGreaterThan(
+                        cacheStats.
+                                getHitCount());
+        assertThat(getCompiledRulesCacheStats().
+                getMissCount()).
+                isEqualTo(
+                        cacheStats.
+                                getMissCount());
+    }
+
+    @Test
+    public void extractionSessionTest() {
+        Map<String, String> xmlResults =
+                ExtractionSession.
+                        forApiResponse(
+                                XML_RESPONSE_PAYLOAD,
+                                XML_CONTENT_TYPE).
+                        evaluateToStrings(
+                                Arrays.asList(
+                                        "/Response/description",
+                                        "/Response/node1",
+                                        "/Response/missing"));
+
+        assertThat(xmlResults).
+                containsEntry("/Response/description", "Valid response").
+                containsEntry("/Response/node1", "1").
+                containsEntry("/Response/missing", "");
+
+        Map<String, String> jsonResults =
+                ExtractionSession.
+                        forApiResponse(
+                                JSON_RESPONSE_PAYLOAD,
+                                JSON_CONTENT_TYPE).
+                        evaluateToStrings(
+                                Arrays.asList(
+                                        "$.description",
+                                        "$.node5",
+                                        "$.missing"));
+
+        assertThat(jsonResults).
+                containsEntry("$.description", "Valid response").
+                containsEntry("$.node5", "5").
+                containsEntry("$.missing", "");
+    }
+
+    @Test
+    public void ruleTemplateBindingTest() {
+        RuleTemplate ruleTemplate =
+                RuleTemplate.of(
+                        "\"${Value:}\" === 'It\\'s \"quoted\" \\\\ value' && " +
+                                "${Amount:} > 5 && " +
+                                "\"Status: ${Status:}\" === \"Status: DONE\"");
+        LOG.info(ruleTemplate.
+                toString());
+
+        assertThat(ruleTemplate.
+                getPlaceholders()).
+                hasSize(3);
+        assertThat(ruleTemplate.
+                getScript()).
+                doesNotContain("${");
+
+        Map<String, String> testResults =
+                new HashMap<>();
+
+        testResults.
+                put("Value:",
+                        "It's \"quoted\" \\ value");
+        testResults.
+                put("Amount:",
+                        "10");
+        testResults.
+                put("Status:",
+                        " DONE ");
+
+        assertThat(evaluateJsToBoolean(
+                ruleTemplate.getScript(),
+                ruleTemplate.bind(
+                        testResults))).
+                isTrue();
+
+        SampledLruCache<String, RuleTemplate> ruleTemplates =
+                new SampledLruCache<>(10);
+
+        assertThat(RuleTemplate.of(
+                ruleTemplate.getRule(),
+                ruleTemplates)).
+                isSameAs(RuleTemplate.of(
+                        ruleTemplate.getRule(),
+                        ruleTemplates));
+
+        testResults.
+                put("Amount:",
+                        "1");
+
+        assertThat(evaluateJsToBoolean(
+                ruleTemplate.getScript(),
+                ruleTemplate.bind(
+                        testResults))).
+                isFalse();
+
+        testResults.
+                remove("Amount:");
+
+        assertThat(evaluateJsToBoolean(
+                ruleTemplate.getScript(),
+                ruleTemplate.bind(
+                        testResults))).
+                isFalse();
+
+        TrustEngine bindingEngine =
+                TrustEngine.
+                        builder().
+                        bindPlaceholders(true).
+                        build();
+        VerificationReport verificationReport =
+                bindingEngine.
+                        generateTestResultsVerificationReport(
+                                bindingEngine.
+                                        compileVerificationEntities(
+                                                UI_COMMON.name() +
+                                                        VERIFICATION_TYPE_DELIMITER +
+                                                        ruleTemplate.getRule()),
+                                testResults,
+                                UI_COMMON.name(),
+                                VerificationMode.SOFT);
+
+        // The rule with the unresolved placeholder is failed without the evaluation
+        assertThat(verificationReport.
+                getFailedRuleResults()).
+                hasSize(1);
+        assertThat(verificationReport.
+                getFailedRuleResults().
+                get(0).
+                getDescription()).
+                isEqualTo("Unresolved placeholder: Amount:");
+    }
+
+    @Test
+    public void parallelEvaluationTest() {
+        assertThat(IntStream.
+                range(0, 500).
+                parallel().
+                allMatch(index -> {
+                    Map<String, Object> variables =
+                            new HashMap<>();
+
+                    variables.put(
+                            "index",
+                            index);
+
+                    return evaluateJsToBoolean(
+                            "index === " + (index % 10),
+                            variables) == (index < 10) &&
+                            !evaluateJsToBoolean(
+                                    "typeof index !== 'undefined'");
+                })).
+                isTrue();
+    }
+
+    @Test
+    public void nativeEvaluationTest() throws Exception {
+        Map<String, Object> variables =
+                new HashMap<>();
+
+        assertThat(ExpressionUtils.
+                evaluateToBoolean(
+                        "_.includes(\"DONE\", \"DONE\")",
+                        variables)).
+                isTrue();
+        assertThat(ExpressionUtils.
+                evaluateToBoolean(
+                        "_.includes(\"Unexpected System Error\", \"System Error\") || " +
+                                "_.includes(\"Unexpected System Error\", \"Was not able to perform requested action\")",
+                        variables)).
+                isTrue();
+        assertThat(ExpressionUtils.
+                evaluateToBoolean(
+                        "!_.includes(\"TestMePlease\", \"TestMePlease\")",
+                        variables)).
+                isFalse();
+        assertThat(ExpressionUtils.
+                evaluateToBoolean(
+                        "_.gt(10, 0) && _.lt(10, 100)",
+                        variables)).
+                isTrue();
+        assertThat(ExpressionUtils.
+                evaluateToBoolean(
+                        "_.gt(\"10\", 0) && _.lt(\"10\", \"9\") && _.startsWith(\"Valid response\", \"Valid\")",
+                        variables)).
+                isTrue();
+        assertThat(ExpressionUtils.
+                isSupported(
+                        "_.map([1, 2], _.identity).length === 2")).
+                isFalse();
+
+        ScriptEngine scriptEngine =
+                new ScriptEngineManager().
+                        getEngineByName("nashorn");
+
+        for(String evalExpression : new String[] {
+                "1 == \"1\"",
+                "1 === \"1\"",
+                "\"10\" < \"9\"",
+                "\"10\" < 9",
+                "\"abc\" < 1 || \"abc\" >= 1",
+                "true == 1 && !(false != 0)",
+                "null == 0 || null >= 0",
+                "(\"a\" || \"b\") === \"a\" && (0 && 1) === 0",
+                "\"\" == 0 && \" 12 \" == 12 && \"1e3\" == 1000",
+                "'It\\'s' !== \"It's\" || -0.5 < .5;"
+        }) {
+            assertThat(ExpressionUtils.
+                    evaluateToBoolean(
+                            evalExpression,
+                            variables)).
+                    as(evalExpression).
+                    isEqualTo(
+                            scriptEngine.
+                                    eval(evalExpression));
+        }
+
+        TrustEngine lodashEngine =
+                TrustEngine.
+                        builder().
+                        nativeEvaluation(false).
+                        evaluationResultsCacheSize(0).
+                        build();
+
+        // The lodash functions keep the sign of -0, the String#indexOf does not
+        for(String evalExpression : new String[] {
+                "_.startsWith(\"-0 items\", -0)",
+                "_.endsWith(\"0\", -0)",
+                "_.startsWith(-0, \"-\")",
+                "_.includes(\"0\", -0) && !_.includes(\"-\", -0)"
+        }) {
+            assertThat(ExpressionUtils.
+                    isSupported(evalExpression)).
+                    as(evalExpression).
+                    isTrue();
+            assertThat(ExpressionUtils.
+                    evaluateToBoolean(
+                            evalExpression,
+                            variables)).
+                    as(evalExpression).
+                    isEqualTo(
+                            lodashEngine.
+                                    evaluateJsToBoolean(
+                                            evalExpression,
+                                            Collections.emptyMap()));
+        }
+    }
+
+    @Test
+    public void bundledScriptsTest() throws Exception {
+        warmUp().
+                get();
+
+        String lodashVersion =
+                StringUtils.
+                        substringBetween(
+                                SCRIPTS_TO_LOAD_URLS.
+                                        get(0),
+                                "lodash/",
+                                "/");
+
+        assertThat(evaluateJsToBoolean(
+                "_.isEmpty([]) && _.VERSION === \"" + lodashVersion + "\"")).
+                isTrue();
+    }
+
+    @Test
+    public void validateApiResponseAgainstXsdStreamingTest() throws Exception {
+        byte[] xmlPayload =
+                XML_RESPONSE_PAYLOAD.
+                        getBytes(StandardCharsets.UTF_8);
+        Path xmlPayloadFile =
+                Files.createTempFile(
+                        "trust",
+                        ".xml");
+
+        try {
+            Files.write(
+                    xmlPayloadFile,
+                    xmlPayload);
+
+            for(int index = 0; index < 2; index++) {
+                validateApiResponseAgainstXsd(
+                        myApiSchema,
+                        xmlPayload);
+                validateApiResponseAgainstXsd(
+                        myApiSchema,
+                        new ByteArrayInputStream(
+                                xmlPayload));
+                validateApiResponseAgainstXsd(
+                        myApiSchema,
+                        xmlPayloadFile);
+                validateApiResponseAgainstXsd(
+                        myApiSchema,
+                        ByteBuffer.wrap(
+                                xmlPayload));
+            }
+        } finally {
+            Files.delete(xmlPayloadFile);
+        }
+    }
+
+    @Test(expectedExceptions = SAXException.class)
+    public void validateApiResponseAgainstXsdFailTest() throws Exception {
+        validateApiResponseAgainstXsd(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD.
+                        replace("node3", "node4"));
+    }
+
+    @Test
+    public void validateAndVerifyApiResponseTest() throws Exception {
+        assertThat(validateAndExtractApiResponse(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD,
+                Arrays.asList(
+                        "/Response/description",
+                        "count(/Response/*)",
+                        "/Response/node5/text()"))).
+                containsEntry("/Response/description", "Valid response").
+                containsEntry("count(/Response/*)", "5").
+                containsEntry("/Response/node5/text()", "5");
+
+        validateAndVerifyApiResponse(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD,
+                generateVerificationEntities(
+                        XML_API_RESPONSE_SUCCESS_RULES));
+
+        // Escaped placeholders and rules without placeholders are not extracted,
+        // the aggregate ones are evaluated natively
+        validateAndVerifyApiResponse(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD,
+                generateVerificationEntities(
+                        "API_RESPONSE:  ${count:/Response/*} === 5 && " +
+                                "\"$${/Response/description}\" !== \"${/Response/description}\""));
+        validateAndVerifyApiResponse(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD,
+                generateVerificationEntities(
+                        "API_RESPONSE:  true"));
+
+        CompiledVerificationEntities compiledVerificationEntities =
+                compileVerificationEntities(
+                        "API_RESPONSE:  ${count:/Response/*} === 5 && " +
+                                "\"$${/Response/description}\" !== \"${/Response/description}\"");
+
+        assertThat(compiledVerificationEntities.
+                getVerificationEntity(
+                        API_RESPONSE.name()).
+                getKeys()).
+                containsExactly(
+                        "count:/Response/*",
+                        "/Response/description");
+        validateAndVerifyApiResponse(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD,
+                compiledVerificationEntities);
+    }
+
+    @Test(expectedExceptions = SAXException.class)
+    public void validateAndVerifyApiResponseFailTest() throws Exception {
+        validateAndVerifyApiResponse(
+                myApiSchema,
+                XML_RESPONSE_PAYLOAD.
+                        replace("node1", "node0"),
+                generateVerificationEntities(
+                        XML_API_RESPONSE_SUCCESS_RULES));
+    }
+
+    @Test
+    public void compileVerificationEntitiesTest() {
+        String verificationData =
+                UI_COMMON_RULES +
+                        "|&|" +
+                        MY_RULES;
+        CompiledVerificationEntities compiledVerificationEntities =
+                compileVerificationEntities(
+                        verificationData);
+        LOG.info(compiledVerificationEntities.
+                toString());
+
+        assertThat(compileVerificationEntities(
+                verificationData)).
+                isSameAs(compiledVerificationEntities);
+        assertThat(getCompiledVerificationEntitiesCacheStats().
+                getHitCount()).
+                isGreaterThan(0);
+        assertThat(compiledVerificationEntities.
+                getVerificationEntities()).
+                hasSize(2);
+        assertThat(compiledVerificationEntities.
+                getVerificationEntity(
+                        "ui_common").
+                getVerificationRules()).
+                hasSize(2);
+        assertThat(compiledVerificationEntities.
+                getVerificationEntity(
+                        "My_Rule").
+                getKeys()).
+                containsExactly("Amount:");
+        assertThat(compiledVerificationEntities.
+                getVerificationEntity(
+                        UI_ALERT.name())).
+                isNull();
+        assertThat(compileVerificationEntities(
+                null).
+                getVerificationEntities()).
+                isEmpty();
+
+        Map<String, String> testResults =
+                new HashMap<>();
+
+        testResults.
+                put("Amount:",
+                        "10");
+
+        performTestResultsVerification(
+                compiledVerificationEntities,
+                testResults,
+                "MY_RULE");
+        performApiResponseVerification(
+                JSON_RESPONSE_PAYLOAD,
+                JSON_CONTENT_TYPE,
+                compileVerificationEntities(
+                        JSON_API_RESPONSE_SUCCESS_RULES));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void compiledVerificationEntitiesImmutabilityTest() {
+        compileVerificationEntities(
+                UI_ALERT_RULES).
+                getVerificationEntity(
+                        UI_ALERT.name()).
+                addVerificationRule(
+                        "true");
+    }
+
+    @Test
+    public void ruleTemplateSubstitutionTest() {
+        Map<String, String> testResults =
+                new HashMap<>();
+        Map<String, String> normalizedTestResults =
+                new HashMap<>();
+
+        testResults.
+                put("Status:",
+                        "  DONE \n ");
+        testResults.
+                put("Amount:",
+                        "10");
+        testResults.
+                put("Empty",
+                        "");
+        testResults.forEach((key, value) ->
+                normalizedTestResults.put(
+                        key,
+                        StringUtils.normalizeSpace(value)));
+
+        Map<String, String> normalizedValues =
+                new HashMap<>();
+        StringBuilder buffer =
+                new StringBuilder();
+
+        for(String evalExpression : new String[] {
+                "_.includes(\"${Status:}\", \"DONE\")",
+                "_.gt(${Amount:}, 0) && _.lt(${Amount:}, 100)",
+                "\"${Unknown}\" === \"$${Status:}\" || \"${Empty}\" === \"\"",
+                "${}${Amount:}${Status:}",
+                "no placeholders"
+        }) {
+            assertThat(RuleTemplate.
+                    of(evalExpression).
+                    substitute(
+                            testResults,
+                            normalizedValues,
+                            buffer)).
+                    isEqualTo(
+                            new StrSubstitutor(
+                                    normalizedTestResults).
+                                    replace(evalExpression));
+        }
+
+        assertThat(normalizedValues).
+                containsOnlyKeys("Status:", "Amount:", "Unknown", "Empty");
+    }
+
+    @Test
+    public void batchApiResponseVerificationTest() throws Exception {
+        BatchVerificationReport batchVerificationReport =
+                performBatchApiResponseVerification(
+                        IntStream.
+                                range(0, 100).
+                                mapToObj(i ->
+                                        i % 10 == 3 ?
+                                                new ApiResponseRecord(
+                                                        XML_RESPONSE_PAYLOAD.
+                                                                replace("Valid", "Broken"),
+                                                        XML_CONTENT_TYPE) :
+                                                new ApiResponseRecord(
+                                                        XML_RESPONSE_PAYLOAD,
+                                                        XML_CONTENT_TYPE)),
+                        generateVerificationEntities(
+                                XML_API_RESPONSE_SUCCESS_RULES));
+        LOG.info(batchVerificationReport.
+                toString());
+
+        assertThat(batchVerificationReport.
+                getRecordsCount()).
+                isEqualTo(100);
+        assertThat(batchVerificationReport.
+                getPassedCount()).
+                isEqualTo(90);
+        assertThat(batchVerificationReport.
+                getRecordFailures()).
+                extracting(BatchVerificationReport.RecordFailure::getRecordIndex).
+                containsExactly(3L, 13L, 23L, 33L, 43L, 53L, 63L, 73L, 83L, 93L);
+    }
+
+    @Test
+    public void batchVerificationErrorTest() throws Exception {
+        VerificationListener failingListener =
+                new VerificationListener() {
+                    @Override
+                    public void onPhaseCompleted(VerificationPhase verificationPhase,
+                                                 long durationNanos) {
+                        throw new AssertionError("Broken listener");
+                    }
+                };
+        ForkJoinPool forkJoinPool =
+                new ForkJoinPool(2);
+
+        MetricsUtils.
+                addVerificationListener(
+                        failingListener);
+
+        try {
+            BatchVerificationReport batchVerificationReport =
+                    performBatchApiResponseVerification(
+                            Collections.nCopies(
+                                    5,
+                                    new ApiResponseRecord(
+                                            XML_RESPONSE_PAYLOAD,
+                                            XML_CONTENT_TYPE)),
+                            generateVerificationEntities(
+                                    XML_API_RESPONSE_SUCCESS_RULES),
+                            forkJoinPool,
+                            1);
+
+            // The records crashed with an Error are not reported as passed
+            assertThat(batchVerificationReport.
+                    getPassedCount()).
+                    isZero();
+            assertThat(batchVerificationReport.
+                    getRecordFailures()).
+                    extracting(BatchVerificationReport.RecordFailure::getMessage).
+                    allMatch(message ->
+                            message.contains("Broken listener"));
+        } finally {
+            MetricsUtils.
+                    removeVerificationListener(
+                            failingListener);
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void verificationReportTest() {
+        VerificationEntities verificationEntities =
+                generateVerificationEntities(
+                        "API_RESPONSE:  _.includes(\"${$.description}\", \"InValid response\");  " +
+                                "_.gt(${$.node1}, 0);  " +
+                                "_.lt(${$.node5}, 0)");
+
+        VerificationReport softReport =
+                generateApiResponseVerificationReport(
+                        JSON_RESPONSE_PAYLOAD,
+                        JSON_CONTENT_TYPE,
+                        verificationEntities,
+                        VerificationMode.SOFT);
+        LOG.info(softReport.
+                toString());
+
+        assertThat(softReport.isPassed()).
+                isFalse();
+        assertThat(softReport.
+                getRuleResults()).
+                extracting(VerificationReport.RuleResult::getStatus).
+                containsExactly(
+                        VerificationStatus.FAILED,
+                        VerificationStatus.PASSED,
+                        VerificationStatus.FAILED);
+        assertThat(softReport.
+                getFailedRuleResults()).
+                extracting(VerificationReport.RuleResult::getDescription).
+                containsExactly(
+                        "_.includes(\"Valid response\", \"InValid response\")",
+                        "_.lt(5, 0)");
+
+        VerificationReport failFastReport =
+                generateApiResponseVerificationReport(
+                        JSON_RESPONSE_PAYLOAD,
+                        JSON_CONTENT_TYPE,
+                        verificationEntities,
+                        VerificationMode.FAIL_FAST);
+
+        assertThat(failFastReport.
+                getRuleResults()).
+                extracting(VerificationReport.RuleResult::getStatus).
+                containsExactly(
+                        VerificationStatus.FAILED,
+                        VerificationStatus.SKIPPED,
+                        VerificationStatus.SKIPPED);
+        assertThat(generateVerificationReport(
+                new HashMap<>(),
+                Arrays.asList("true", "1 < 2"),
+                VerificationMode.FAIL_FAST).
+                isPassed()).
+                isTrue();
+    }
+
+    @Test(expectedExceptions = AssertionError.class)
+    public void assertVerificationReportTest() {
+        assertVerificationReport(
+                generateApiResponseVerificationReport(
+                        XML_RESPONSE_PAYLOAD,
+                        XML_CONTENT_TYPE,
+                        generateVerificationEntities(
+                                XML_API_RESPONSE_FAIL_RULES),
+                        VerificationMode.FAIL_FAST));
+    }
+
+    @Test
+    public void verificationListenerTest() throws Exception {
+        HistogramVerificationListener verificationListener =
+                new HistogramVerificationListener();
+
+        MetricsUtils.
+                addVerificationListener(
+                        verificationListener);
+
+        try {
+            validateApiResponseAgainstXsd(
+                    myApiSchema,
+                    XML_RESPONSE_PAYLOAD);
+            generateApiResponseVerificationReport(
+                    XML_RESPONSE_PAYLOAD,
+                    XML_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            XML_API_RESPONSE_SUCCESS_RULES),
+                    VerificationMode.SOFT);
+            generateApiResponseVerificationReport(
+                    "{ broken",
+                    JSON_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            JSON_API_RESPONSE_SUCCESS_RULES),
+                    VerificationMode.SOFT);
+            evaluateJsToBoolean(
+                    "_.includes(");
+
+            long evaluationsCount =
+                    verificationListener.
+                            getCount(VerificationPhase.EVALUATION);
+
+            // The registered listeners are not notified about the other engines
+            assertThat(TrustEngine.
+                    builder().
+                    build().
+                    evaluateJsToBoolean(
+                            "1 < 2",
+                            Collections.emptyMap())).
+                    isTrue();
+            assertThat(verificationListener.
+                    getCount(VerificationPhase.EVALUATION)).
+                    isEqualTo(evaluationsCount);
+        } finally {
+            MetricsUtils.
+                    removeVerificationListener(
+                            verificationListener);
+        }
+
+        LOG.info(verificationListener.
+                dump());
+
+        for(VerificationPhase verificationPhase :
+                VerificationPhase.values()) {
+            assertThat(verificationListener.
+                    getCount(verificationPhase)).
+                    as(verificationPhase.name()).
+                    isGreaterThan(0);
+        }
+
+        assertThat(verificationListener.
+                getPercentileDuration(
+                        VerificationPhase.EVALUATION,
+                        100,
+                        TimeUnit.NANOSECONDS)).
+                isLessThanOrEqualTo(
+                        verificationListener.
+                                getMaxDuration(
+                                        VerificationPhase.EVALUATION,
+                                        TimeUnit.NANOSECONDS));
+        assertThat(verificationListener.
+                getCacheHitCount("ruleTemplates") +
+                verificationListener.
+                        getCacheMissCount("ruleTemplates")).
+                isGreaterThan(0);
+        assertThat(verificationListener.
+                getExtractionFailuresCount()).
+                isGreaterThan(0);
+        assertThat(verificationListener.
+                getEvaluationErrorsCount()).
+                isGreaterThan(0);
+        assertThat(MetricsUtils.isEnabled()).
+                isFalse();
+    }
+
+    @Test
+    public void jfrEventsTest() throws Exception {
+        if(!JfrUtils.isAvailable()) {
+            throw new SkipException("JFR API is not available");
+        }
+
+        Path recordingFile =
+                Files.createTempFile(
+                        "trust",
+                        ".jfr");
+
+        try(Recording recording =
+                    new Recording()) {
+            recording.
+                    enable("com.shimkiv.trust.RuleEvaluation").
+                    withThreshold(Duration.ZERO);
+            recording.
+                    enable("com.shimkiv.trust.Extraction").
+                    withThreshold(Duration.ZERO);
+            recording.
+                    enable("com.shimkiv.trust.Validation").
+                    withThreshold(Duration.ZERO);
+            recording.start();
+
+            validateApiResponseAgainstXsd(
+                    myApiSchema,
+                    XML_RESPONSE_PAYLOAD);
+            performApiResponseVerification(
+                    XML_RESPONSE_PAYLOAD,
+                    XML_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            XML_API_RESPONSE_SUCCESS_RULES));
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        try {
+            List<RecordedEvent> recordedEvents =
+                    RecordingFile.
+                            readAllEvents(
+                                    recordingFile);
+
+            assertThat(recordedEvents.
+                    stream().
+                    map(recordedEvent ->
+                            recordedEvent.
+                                    getEventType().
+                                    getName()).
+                    collect(Collectors.toSet())).
+                    contains(
+                            "com.shimkiv.trust.RuleEvaluation",
+                            "com.shimkiv.trust.Extraction",
+                            "com.shimkiv.trust.Validation");
+            assertThat(recordedEvents.
+                    stream().
+                    filter(recordedEvent ->
+                            "com.shimkiv.trust.RuleEvaluation".
+                                    equals(recordedEvent.
+                                            getEventType().
+                                            getName())).
+                    map(recordedEvent ->
+                            recordedEvent.getString("verificationType") + ":" +
+                                    recordedEvent.getString("verificationRule") + ":" +
+                                    recordedEvent.getString("outcome")).
+                    collect(Collectors.toList())).
+                    contains(
+                            "API_RESPONSE:" +
+                                    XML_API_RESPONSE_SUCCESS_RULES.
+                                            substring(
+                                                    "API_RESPONSE:  ".length()) +
+                                    ":PASSED");
+        } finally {
+            Files.deleteIfExists(
+                    recordingFile);
+        }
+    }
+
+    @Test
+    public void asyncVerificationTest() throws Exception {
+        List<CompletableFuture<VerificationReport>> verificationReports =
+                IntStream.
+                        range(0, 20).
+                        mapToObj(i ->
+                                performApiResponseVerificationAsync(
+                                        i % 2 == 0 ?
+                                                XML_RESPONSE_PAYLOAD :
+                                                XML_RESPONSE_PAYLOAD.
+                                                        replace("Valid", "Broken"),
+                                        XML_CONTENT_TYPE,
+                                        generateVerificationEntities(
+                                                XML_API_RESPONSE_SUCCESS_RULES))).
+                        collect(Collectors.toList());
+
+        CompletableFuture.
+                allOf(verificationReports.
+                        toArray(new CompletableFuture<?>[0])).
+                get(30, TimeUnit.SECONDS);
+
+        assertThat(verificationReports.
+                stream().
+                filter(verificationReport ->
+                        verificationReport.
+                                join().
+                                isPassed()).
+                count()).
+                isEqualTo(10);
+
+        ExecutorService executor =
+                Executors.newSingleThreadExecutor();
+        Map<String, String> testResults =
+                new HashMap<>();
+
+        testResults.put(
+                "Amount:",
+                "101");
+
+        try {
+            assertThat(performTestResultsVerificationAsync(
+                    generateVerificationEntities(
+                            MY_RULES),
+                    testResults,
+                    "MY_RULE",
+                    VerificationMode.FAIL_FAST,
+                    executor).
+                    get(30, TimeUnit.SECONDS).
+                    isPassed()).
+                    isFalse();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void binaryPayloadsTest() throws Exception {
+        byte[] xmlPayload =
+                XML_RESPONSE_PAYLOAD.
+                        getBytes(StandardCharsets.UTF_8);
+        byte[] jsonPayload =
+                JSON_RESPONSE_PAYLOAD.
+                        getBytes(StandardCharsets.UTF_8);
+        Path xmlPayloadFile =
+                Files.createTempFile(
+                        "trust",
+                        ".xml");
+        Path jsonPayloadFile =
+                Files.createTempFile(
+                        "trust",
+                        ".json");
+
+        try {
+            Files.write(
+                    xmlPayloadFile,
+                    xmlPayload);
+            Files.write(
+                    jsonPayloadFile,
+                    jsonPayload);
+
+            assertThat(Arrays.asList(
+                    evaluateXPathToString(
+                            "/Response/description",
+                            xmlPayload),
+                    evaluateXPathToString(
+                            "/Response/description",
+                            new ByteArrayInputStream(
+                                    xmlPayload)),
+                    evaluateXPathToString(
+                            "/Response/description",
+                            ByteBuffer.wrap(
+                                    xmlPayload)),
+                    evaluateXPathToString(
+                            "/Response/description",
+                            xmlPayloadFile),
+                    evaluateJsonPathToString(
+                            "$.description",
+                            jsonPayload),
+                    evaluateJsonPathToString(
+                            "$.description",
+                            new ByteArrayInputStream(
+                                    jsonPayload)),
+                    evaluateJsonPathToString(
+                            "$.description",
+                            ByteBuffer.wrap(
+                                    jsonPayload)),
+                    evaluateJsonPathToString(
+                            "$.description",
+                            jsonPayloadFile))).
+                    containsOnly("Valid response");
+
+            performApiResponseVerification(
+                    xmlPayload,
+                    XML_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            XML_API_RESPONSE_SUCCESS_RULES));
+            performApiResponseVerification(
+                    new ByteArrayInputStream(
+                            jsonPayload),
+                    JSON_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            JSON_API_RESPONSE_SUCCESS_RULES));
+            performApiResponseVerification(
+                    ByteBuffer.wrap(
+                            jsonPayload),
+                    JSON_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            JSON_API_RESPONSE_SUCCESS_RULES));
+            performApiResponseVerification(
+                    xmlPayloadFile,
+                    XML_CONTENT_TYPE,
+                    generateVerificationEntities(
+                            XML_API_RESPONSE_SUCCESS_RULES));
+        } finally {
+            Files.delete(xmlPayloadFile);
+            Files.delete(jsonPayloadFile);
+        }
+    }
+
+    @Test
+    public void compiledPathsCacheTest() throws Exception {
+        HistogramVerificationListener verificationListener =
+                new HistogramVerificationListener();
+
+        MetricsUtils.
+                addVerificationListener(
+                        verificationListener);
+
+        try {
+            for(int index = 0; index < 3; index++) {
+                assertThat(evaluateXPathToString(
+                        "/Response/node" + (index + 1),
+                        XML_RESPONSE_PAYLOAD)).
+                        isEqualTo(String.valueOf(index + 1));
+                assertThat(evaluateXPathToString(
+                        "/Response/description",
+                        XML_RESPONSE_PAYLOAD)).
+                        isEqualTo("Valid response");
+                assertThat(evaluateJsonPathToString(
+                        "$.description",
+                        JSON_RESPONSE_PAYLOAD)).
+                        isEqualTo("Valid response");
+            }
+
+            long xPathHitCount =
+                    verificationListener.
+                            getCacheHitCount("xPathExpressions");
+            Thread freshThread =
+                    new Thread(() ->
+                            evaluateXPathToString(
+                                    "/Response/description",
+                                    XML_RESPONSE_PAYLOAD));
+
+            freshThread.start();
+            freshThread.join();
+
+            // Compiled expressions are shared with the threads which have not compiled them
+            assertThat(verificationListener.
+                    getCacheHitCount("xPathExpressions")).
+                    isEqualTo(xPathHitCount + 1);
+            assertThat(evaluateXPathToString(
+                    "/Response/[",
+                    XML_RESPONSE_PAYLOAD)).
+                    isEmpty();
+            assertThat(evaluateJsonPathToString(
+                    "$.[",
+                    JSON_RESPONSE_PAYLOAD)).
+                    isEmpty();
+        } finally {
+            MetricsUtils.
+                    removeVerificationListener(
+                            verificationListener);
+        }
+
+        assertThat(verificationListener.
+                getCacheHitCount("xPathExpressions")).
+                isGreaterThanOrEqualTo(2);
+        assertThat(verificationListener.
+                getCacheHitCount("jsonPaths")).
+                isGreaterThanOrEqualTo(2);
+        assertThat(verificationListener.
+                getExtractionFailuresCount()).
+                isEqualTo(2);
+    }
+
+    @Test
+    public void streamingExtractionTest() {
+        String padding =
+                StringUtils.repeat(
+                        "<pad>padding</pad>",
+                        70000);
+        String xmlPayload =
+                "<Response><description>Valid <b>response</b></description>" +
+                        "<items><item><id>1</id></item><item><id>2</id></item></items>" +
+                        "<note><![CDATA[a < b]]> &amp; c</note>" +
+                        padding +
+                        "</Response>";
+        String jsonPayload =
+                "{\"description\": \"Valid \\\"response\\\"\", " +
+                        "\"data\": {\"items\": [{\"id\": 1}, " +
+                        "{\"id\": 2.5, \"flag\": true, \"none\": null}], " +
+                        "\"obj\": {\"a\": 1}}, \"pad\": [" +
+                        StringUtils.repeat(
+                                "\"padding\"",
+                                ", ",
+                                100000) +
+                        "]}";
+        List<String> xPathExpressions =
+                Arrays.asList(
+                        "/Response/description",
+                        "/Response/items/item[2]/id",
+                        "/Response/items/item/id",
+                        "/Response/note",
+                        "/Response/pad[3]",
+                        "/Response/missing");
+        List<String> jsonPathExpressions =
+                Arrays.asList(
+                        "$.description",
+                        "$.data.items[1].id",
+                        "$['data']['items'][1].flag",
+                        "$.data.items[1].none",
+                        "$.data.items[0]",
+                        "$.data.obj",
+                        "$.missing",
+                        "$.data.items[5].id");
+
+        assertThat(xPathExpressions.
+                stream().
+                allMatch(StreamingXmlExtractor::isSupported)).
+                isTrue();
+        assertThat(jsonPathExpressions.
+                stream().
+                allMatch(StreamingJsonExtractor::isSupported)).
+                isTrue();
+        assertThat(StreamingXmlExtractor.
+                isSupported("//item[id > 1]")).
+                isFalse();
+        assertThat(StreamingJsonExtractor.
+                isSupported("$.data.items[*].id")).
+                isFalse();
+
+        assertThat(StreamingXmlExtractor.
+                extract(new StringReader(
+                                xmlPayload),
+                        xPathExpressions)).
+                containsEntry("/Response/description",
+                        "Valid response").
+                containsEntry("/Response/note",
+                        "a < b & c").
+                containsEntry("/Response/missing",
+                        "");
+        assertThat(StreamingJsonExtractor.
+                extract(new StringReader(
+                                jsonPayload),
+                        jsonPathExpressions)).
+                containsEntry("$.data.obj",
+                        "{\"a\": 1}").
+                doesNotContainKey("$.missing");
+
+        // The duplicated keys and the malformed payloads are treated as by the tree
+        String duplicatedKeysPayload =
+                "{\"a\": {\"b\": 1}, \"c\": 1, \"a\": 2, \"c\": 2}";
+
+        assertThat(StreamingJsonExtractor.
+                extract(new StringReader(
+                                duplicatedKeysPayload),
+                        Arrays.asList(
+                                "$.a.b",
+                                "$.c"))).
+                containsEntry("$.c", "2").
+                doesNotContainKey("$.a.b");
+        assertThat(StreamingJsonExtractor.
+                extract(new StringReader(
+                                duplicatedKeysPayload),
+                        Collections.singletonList("$.c")).
+                get("$.c")).
+                isEqualTo(ExtractionSession.
+                        forJson(duplicatedKeysPayload).
+                        evaluateToString("$.c"));
+        assertThat(StreamingJsonExtractor.
+                extract(new StringReader(
+                                "{\"c\": 1, \"d\": [}"),
+                        Collections.singletonList("$.c"))).
+                isNull();
+        assertThat(StreamingJsonExtractor.
+                extract(new StringReader(
+                                "{\"c\": 1} {"),
+                        Collections.singletonList("$.c"))).
+                isNull();
+
+        for(String xPathExpression : xPathExpressions) {
+            assertThat(ExtractionSession.
+                    forXml(xmlPayload).
+                    evaluateToStrings(
+                            xPathExpressions).
+                    get(xPathExpression)).
+                    isEqualTo(ExtractionSession.
+                            forXml(xmlPayload).
+                            evaluateToString(
+                                    xPathExpression));
+        }
+
+        for(String jsonPathExpression : jsonPathExpressions) {
+            assertThat(ExtractionSession.
+                    forJson(jsonPayload).
+                    evaluateToStrings(
+                            jsonPathExpressions).
+                    get(jsonPathExpression)).
+                    isEqualTo(ExtractionSession.
+                            forJson(jsonPayload).
+                            evaluateToString(
+                                    jsonPathExpression));
+        }
+
+        assertThat(ExtractionSession.
+                forJson(jsonPayload).
+                evaluateToStrings(
+                        Arrays.asList(
+                                "$.description",
+                                "$.data.items[*].id"))).
+                containsEntry("$.description",
+                        "Valid \"response\"").
+                containsEntry("$.data.items[*].id",
+                        "1");
+
+        performApiResponseVerification(
+                ByteBuffer.wrap(
+                        jsonPayload.
+                                getBytes(StandardCharsets.UTF_8)),
+                JSON_CONTENT_TYPE,
+                generateVerificationEntities(
+                        "API_RESPONSE: ${$.data.items[1].id} > 2 && " +
+                                "${$.data.items[1].flag}"));
+    }
+
+    @Test
+    public void typedValuesBindingTest() {
+        ExtractionSession extractionSession =
+                ExtractionSession.forJson(
+                        "{\"amount\": 12.5, \"count\": 2, \"flag\": true, " +
+                                "\"none\": null, \"items\": [1, 2], " +
+                                "\"data\": {\"id\": 7}}");
+        Map<String, Object> typedValues =
+                new HashMap<>();
+        Map<String, String> testResults =
+                new HashMap<>();
+
+        for(String key : Arrays.asList(
+                "$.amount",
+                "$.count",
+                "$.flag",
+                "$.none",
+                "$.items",
+                "$.data",
+                "$.missing")) {
+            typedValues.put(
+                    key,
+                    extractionSession.
+                            evaluateToObject(key));
+            testResults.put(
+                    key,
+                    extractionSession.
+                            evaluateToString(key));
+        }
+
+        assertThat(typedValues.get("$.amount")).
+                isInstanceOf(Number.class);
+        assertThat(typedValues.get("$.flag")).
+                isEqualTo(Boolean.TRUE);
+        assertThat(typedValues.get("$.none")).
+                isNull();
+        assertThat(typedValues.get("$.items")).
+                isInstanceOf(List.class);
+        assertThat(typedValues.get("$.data")).
+                isInstanceOf(Map.class);
+        assertThat(typedValues.get("$.missing")).
+                isEqualTo("");
+        assertThat(testResults.get("$.none")).
+                isEqualTo("null");
+
+        RuleTemplate ruleTemplate =
+                RuleTemplate.of(
+                        "${$.amount} > 12 && ${$.count} === 2 && ${$.flag} && " +
+                                "${$.none} === null && ${$.items}.length === 2 && " +
+                                "${$.data}.id === 7 && \"${$.amount}\" === \"12.5\"");
+        Map<String, Object> variables =
+                ruleTemplate.bind(
+                        testResults,
+                        new HashMap<>(),
+                        typedValues);
+
+        assertThat(variables.values()).
+                contains(typedValues.get("$.items"),
+                        typedValues.get("$.data"));
+        assertThat(evaluateJsToBoolean(
+                ruleTemplate.getScript(),
+                variables)).
+                isTrue();
+        assertThat(evaluateJsToBoolean(
+                RuleTemplate.of("${$.amount} > 12 && ${$.flag}").
+                        getScript(),
+                RuleTemplate.of("${$.amount} > 12 && ${$.flag}").
+                        bind(testResults,
+                                new HashMap<>(),
+                                typedValues))).
+                isTrue();
+
+        ExtractionSession bigNumbersSession =
+                ExtractionSession.forJson(
+                        "{\"id\": 9007199254740993, \"ref\": 9007199254740992}");
+        Map<String, Object> bigTypedValues =
+                new HashMap<>();
+        Map<String, String> bigTestResults =
+                new HashMap<>();
+
+        for(String key : Arrays.asList("$.id", "$.ref")) {
+            bigTypedValues.put(
+                    key,
+                    bigNumbersSession.
+                            evaluateToObject(key));
+            bigTestResults.put(
+                    key,
+                    bigNumbersSession.
+                            evaluateToString(key));
+        }
+
+        RuleTemplate bigNumbersTemplate =
+                RuleTemplate.of(
+                        "${$.id} !== ${$.ref} && ${$.id} > ${$.ref} && _.gt(${$.id}, ${$.ref})");
+        Map<String, Object> bigVariables =
+                bigNumbersTemplate.bind(
+                        bigTestResults,
+                        new HashMap<>(),
+                        bigTypedValues);
+
+        // Numbers above 2^53 are bound and natively compared without the precision loss
+        assertThat(bigVariables.values()).
+                contains(9007199254740993L);
+        assertThat(evaluateJsToBoolean(
+                bigNumbersTemplate.getScript(),
+                bigVariables)).
+                isTrue();
+        assertThat(TrustEngine.
+                builder().
+                nativeEvaluation(false).
+                build().
+                evaluateJsToBoolean(
+                        RuleTemplate.of("${$.id} > 9007199254740000").
+                                getScript(),
+                        RuleTemplate.of("${$.id} > 9007199254740000").
+                                bind(bigTestResults,
+                                        new HashMap<>(),
+                                        bigTypedValues))).
+                isTrue();
+    }
+
+    @Test
+    public void aggregatePlaceholdersTest() {
+        String jsonPayload =
+                "{\"items\": [" +
+                        "{\"status\": \"ACTIVE\", \"amount\": 5, \"active\": true}, " +
+                        "{\"status\": \"ACTIVE\", \"amount\": 12.5, \"active\": true}, " +
+                        "{\"status\": \"BLOCKED\", \"amount\": 28, \"active\": false}]}";
+        String xmlPayload =
+                "<Response><items><item><id>1</id></item>" +
+                        "<item><id>2</id></item><item><id>7</id></item></items></Response>";
+        ExtractionSession jsonSession =
+                ExtractionSession.forJson(jsonPayload);
+        ExtractionSession xmlSession =
+                ExtractionSession.forXml(xmlPayload);
+
+        assertThat(jsonSession.
+                evaluateToObject("all:$.items[*].status == 'ACTIVE'")).
+                isEqualTo(false);
+        assertThat(jsonSession.
+                evaluateToObject("any:$.items[*].status === \"BLOCKED\"")).
+                isEqualTo(true);
+        assertThat(jsonSession.
+                evaluateToObject("none:$.items[*].status == 'DELETED'")).
+                isEqualTo(true);
+        assertThat(jsonSession.
+                evaluateToObject("all:$.items[*].active")).
+                isEqualTo(false);
+        assertThat(jsonSession.
+                evaluateToObject("count:$.items")).
+                isEqualTo(3);
+        assertThat(jsonSession.
+                evaluateToObject("count:$.items[*].amount > 10")).
+                isEqualTo(2);
+        assertThat(jsonSession.
+                evaluateToObject("sum:$.items[*].amount")).
+                isEqualTo(45.5);
+        assertThat(jsonSession.
+                evaluateToObject("min:$.items[*].amount")).
+                isEqualTo(5.0);
+        assertThat(jsonSession.
+                evaluateToObject("max:$.items[*].missing")).
+                isNull();
+        assertThat(jsonSession.
+                evaluateToString("sum:$.items[*]")).
+                isEmpty();
+        assertThat(jsonSession.
+                evaluateToList("$.items[*].status")).
+                containsExactly("ACTIVE", "ACTIVE", "BLOCKED");
+        assertThat(xmlSession.
+                evaluateToObject("count:/Response/items/item")).
+                isEqualTo(3);
+        assertThat(xmlSession.
+                evaluateToObject("any:/Response/items/item/id > 5")).
+                isEqualTo(true);
+        assertThat(xmlSession.
+                evaluateToObject("max:/Response/items/item/id")).
+                isEqualTo(7.0);
+
+        performApiResponseVerification(
+                jsonPayload,
+                JSON_CONTENT_TYPE,
+                generateVerificationEntities(
+                        "API_RESPONSE: ${none:$.items[*].status == 'DELETED'} && " +
+                                "${count:$.items} === 3 && ${sum:$.items[*].amount} > 40"));
+        performApiResponseVerification(
+                xmlPayload,
+                XML_CONTENT_TYPE,
+                generateVerificationEntities(
+                        "API_RESPONSE: ${all:/Response/items/item/id > 0}"));
+    }
+
+    @Test
+    public void evaluationResultsCacheTest() {
+        EvaluationResultsCache evaluationResultsCache =
+                new EvaluationResultsCache(
+                        100,
+                        1000,
+                        NON_DETERMINISTIC_RULES_PATTERN);
+        AtomicInteger evaluationsCount =
+                new AtomicInteger();
+        Supplier<Boolean> evaluator = () -> {
+            evaluationsCount.incrementAndGet();
+
+            return Boolean.TRUE;
+        };
+        Map<String, Object> variables =
+                new HashMap<>();
+
+        variables.put("__trust_0", "DONE");
+
+        for(int index = 0; index < 3; index++) {
+            assertThat(evaluationResultsCache.
+                    evaluate(
+                            "_.includes(${Status:}, \"DONE\")",
+                            "_.includes(__trust_0, \"DONE\")",
+                            new HashMap<>(variables),
+                            evaluator)).
+                    isTrue();
+            assertThat(evaluationResultsCache.
+                    evaluate(
+                            "_.includes(\"DONE\", \"DONE\")",
+                            "_.includes(\"DONE\", \"DONE\")",
+                            null,
+                            evaluator)).
+                    isTrue();
+        }
+
+        assertThat(evaluationsCount.get()).
+                isEqualTo(2);
+        assertThat(evaluationResultsCache.
+                getStats().
+                getHitCount()).
+                isEqualTo(4);
+
+        variables.put("__trust_0", "FAILED");
+
+        evaluationResultsCache.
+                evaluate(
+                        "_.includes(${Status:}, \"DONE\")",
+                        "_.includes(__trust_0, \"DONE\")",
+                        variables,
+                        evaluator);
+
+        assertThat(evaluationsCount.get()).
+                isEqualTo(3);
+        assertThat(evaluationResultsCache.
+                isDeterministic("new Date().getTime() > ${Time:}")).
+                isFalse();
+        assertThat(evaluationResultsCache.
+                isDeterministic("_.random(1, 5) > 0 /* @nondeterministic */")).
+                isFalse();
+
+        for(int index = 0; index < 2; index++) {
+            evaluationResultsCache.
+                    evaluate(
+                            "new Date().getTime() > 0",
+                            "new Date().getTime() > 0",
+                            null,
+                            evaluator);
+            assertThat(evaluationResultsCache.
+                    evaluate(
+                            "_.includes(",
+                            "_.includes(",
+                            null,
+                            () -> {
+                                evaluationsCount.incrementAndGet();
+
+                                return null;
+                            })).
+                    isFalse();
+        }
+
+        assertThat(evaluationsCount.get()).
+                isEqualTo(7);
+
+        EvaluationResultsCache weightedCache =
+                new EvaluationResultsCache(
+                        100,
+                        50,
+                        null);
+
+        for(int index = 0; index < 5; index++) {
+            weightedCache.
+                    evaluate(
+                            null,
+                            "'" + StringUtils.repeat('x', 16) + "' !== " + index,
+                            null,
+                            evaluator);
+        }
+
+        assertThat(weightedCache.
+                getWeight()).
+                isLessThanOrEqualTo(50);
+        assertThat(weightedCache.
+                getStats().
+                getEvictionCount()).
+                isEqualTo(3);
+        assertThat(new EvaluationResultsCache(
+                0,
+                50,
+                null).
+                isEnabled()).
+                isFalse();
+
+        EvaluationResultsCache boundedCache =
+                new EvaluationResultsCache(
+                        10,
+                        Long.MAX_VALUE,
+                        null);
+
+        IntStream.
+                range(0, 1000).
+                parallel().
+                forEach(index -> {
+                    boundedCache.
+                            evaluate(
+                                    null,
+                                    "1 < 2",
+                                    null,
+                                    evaluator);
+                    boundedCache.
+                            evaluate(
+                                    null,
+                                    index + " > 0",
+                                    null,
+                                    evaluator);
+                });
+
+        // The recently used results survive the concurrent evictions
+        assertThat(boundedCache.
+                getStats().
+                getSize()).
+                isLessThanOrEqualTo(10);
+        assertThat(boundedCache.
+                getStats().
+                getEvictionCount()).
+                isGreaterThanOrEqualTo(990);
+        assertThat(boundedCache.
+                getStats().
+                getMissCount()).
+                isLessThan(1100);
+    }
+
+    @Test
+    public void jsonProviderTest() {
+        AtomicInteger parsesCount =
+                new AtomicInteger();
+        JsonProvider jsonProvider =
+                new JsonSmartJsonProvider() {
+                    @Override
+                    public Object parse(String json) {
+                        parsesCount.incrementAndGet();
+
+                        return super.parse(json);
+                    }
+                };
+
+        TrustEngine jsonEngine =
+                TrustEngine.
+                        builder().
+                        jsonConfiguration(
+                                Configuration.
+                                        builder().
+                                        jsonProvider(jsonProvider).
+                                        build()).
+                        build();
+
+        assertThat(jsonEngine.
+                getJsonConfiguration().
+                jsonProvider()).
+                isSameAs(jsonProvider);
+
+        jsonEngine.
+                performApiResponseVerification(
+                        JSON_RESPONSE_PAYLOAD,
+                        JSON_CONTENT_TYPE,
+                        generateVerificationEntities(
+                                JSON_API_RESPONSE_SUCCESS_RULES));
+
+        assertThat(parsesCount.get()).
+                isEqualTo(1);
+
+        // The provider of one engine is not used by the others
+        assertThat(evaluateJsonPathToString(
+                "$.description",
+                JSON_RESPONSE_PAYLOAD)).
+                isEqualTo("Valid response");
+
+        performApiResponseVerification(
+                JSON_RESPONSE_PAYLOAD,
+                JSON_CONTENT_TYPE,
+                generateVerificationEntities(
+                        JSON_API_RESPONSE_SUCCESS_RULES));
+
+        assertThat(parsesCount.get()).
+                isEqualTo(1);
+        assertThat(TrustEngine.
+                getDefault().
+                getJsonConfiguration().
+                jsonProvider()).
+                isNotSameAs(jsonProvider);
+    }
+
+    @Test
+    public void trustEngineTest() throws Exception {
+        HistogramVerificationListener verificationListener =
+                new HistogramVerificationListener();
+        TrustEngine customEngine =
+                TrustEngine.
+                        builder().
+                        verificationTypesDelimiter("\\|\\|").
+                        verificationTypeDelimiter("=>").
+                        verificationRulesDelimiter(",,").
+                        scriptsToLoad(Collections.emptyList()).
+                        scriptEnginesPoolSize(1).
+                        evaluationResultsCacheSize(100).
+                        addVerificationListener(verificationListener).
+                        build();
+        TrustEngine scriptEngine =
+                TrustEngine.
+                        builder().
+                        nativeEvaluation(false).
+                        build();
+        Map<String, String> testResults =
+                new HashMap<>();
+
+        testResults.
+                put("Status:",
+                        "DONE");
+        testResults.
+                put("Amount:",
+                        "10");
+
+        CompiledVerificationEntities customEntities =
+                customEngine.
+                        compileVerificationEntities(
+                                "UI_COMMON=> \"${Status:}\" === \"DONE\" ,, ${Amount:} > 1 || " +
+                                        "MY_RULE=> ${Amount:} < 100");
+
+        assertThat(customEntities.
+                getVerificationEntities()).
+                hasSize(2);
+        assertThat(customEntities.
+                getVerificationEntity(
+                        UI_COMMON.name()).
+                getVerificationRules()).
+                containsExactly(
+                        "\"${Status:}\" === \"DONE\"",
+                        "${Amount:} > 1");
+
+        CompletableFuture<VerificationReport> customReport =
+                CompletableFuture.
+                        supplyAsync(() ->
+                                customEngine.
+                                        generateTestResultsVerificationReport(
+                                                customEntities,
+                                                testResults,
+                                                UI_COMMON.name(),
+                                                VerificationMode.SOFT));
+        CompletableFuture<VerificationReport> scriptReport =
+                CompletableFuture.
+                        supplyAsync(() ->
+                                scriptEngine.
+                                        generateTestResultsVerificationReport(
+                                                scriptEngine.
+                                                        compileVerificationEntities(
+                                                                UI_COMMON_RULES),
+                                                testResults,
+                                                UI_COMMON.name(),
+                                                VerificationMode.SOFT));
+
+        assertThat(customReport.get().isPassed()).
+                isTrue();
+        assertThat(scriptReport.get().isPassed()).
+                isTrue();
+
+        long evaluationsCount =
+                verificationListener.
+                        getCount(VerificationPhase.EVALUATION);
+
+        customEngine.
+                verifyTestResults(
+                        testResults,
+                        customEntities.
+                                getVerificationEntity(
+                                        UI_COMMON.name()).
+                                getVerificationRules());
+        scriptEngine.
+                verifyTestResults(
+                        testResults,
+                        Collections.singletonList(
+                                "${Amount:} < 100"));
+
+        // Listeners, script engines and caches are owned by each engine
+        assertThat(evaluationsCount).
+                isEqualTo(2);
+        assertThat(verificationListener.
+                getCount(VerificationPhase.EVALUATION)).
+                isEqualTo(4);
+        assertThat(MetricsUtils.isEnabled()).
+                isFalse();
+
+        VerificationListener[] enclosingListeners =
+                MetricsUtils.
+                        enterScope(
+                                new VerificationListener[] {
+                                        verificationListener
+                                });
+
+        // The listener-less engine does not report into the scope of the enclosing engine
+        try {
+            assertThat(scriptEngine.
+                    evaluateJsToBoolean(
+                            "1 < 2",
+                            Collections.emptyMap())).
+                    isTrue();
+        } finally {
+            MetricsUtils.
+                    exitScope(enclosingListeners);
+        }
+
+        assertThat(verificationListener.
+                getCount(VerificationPhase.EVALUATION)).
+                isEqualTo(4);
+        assertThat(customEngine.
+                getEvaluationResultsCacheStats().
+                getHitCount()).
+                isEqualTo(2);
+        assertThat(scriptEngine.
+                getEvaluationResultsCacheStats().
+                getRequestCount()).
+                isZero();
+        assertThat(customEngine.
+                getCompiledRulesCacheStats().
+                getRequestCount()).
+                isZero();
+        assertThat(scriptEngine.
+                getCompiledRulesCacheStats().
+                getMissCount()).
+                isGreaterThan(0);
+        assertThat(customEngine.
+                getCompiledVerificationEntitiesCacheStats().
+                getSize()).
+                isEqualTo(1);
+        assertThat(TrustEngine.getDefault()).
+                isNotSameAs(customEngine);
+        assertThat(generateVerificationEntities(
+                "UI_COMMON=> true").
+                getVerificationEntities()).
+                isEmpty();
+
+        TrustEngine unavailableEngine =
+                TrustEngine.
+                        builder().
+                        scriptEngineName("unavailable").
+                        nativeEvaluation(false).
+                        build();
+
+        // The unavailable script engine fails the evaluations instead of throwing
+        assertThat(unavailableEngine.
+                evaluateJsToBoolean(
+                        "1 < 2",
+                        Collections.emptyMap())).
+                isFalse();
+        assertThat(unavailableEngine.
+                evaluateJsToBoolean(
+                        "2 < 3",
+                        Collections.emptyMap())).
+                isFalse();
+    }
+
+    @Test
+    public void scriptGlobalsIsolationTest() {
+        TrustEngine scriptEngine =
+                TrustEngine.
+                        builder().
+                        nativeEvaluation(false).
+                        scriptEnginesPoolSize(1).
+                        evaluationResultsCacheSize(0).
+                        build();
+
+        assertThat(scriptEngine.
+                evaluateJsToBoolean(
+                        "x = 1; var y = 2; _ = null; function helper() {} true",
+                        Collections.emptyMap())).
+                isTrue();
+
+        // The only pooled engine does not keep the globals of the previous rule
+        assertThat(scriptEngine.
+                evaluateJsToBoolean(
+                        "typeof x === \"undefined\" && typeof y === \"undefined\" && " +
+                                "typeof helper === \"undefined\" && " +
+                                "this[\"javax.script.filename\"] == null && " +
+                                "_.includes(\"Valid response\", \"Valid\")",
+                        Collections.emptyMap())).
+                isTrue();
+    }
+
+    @Test
+    public void verificationQueueTest() throws Exception {
+        CountDownLatch workerRelease =
+                new CountDownLatch(1);
+        CompiledVerificationEntities successEntities =
+                compileVerificationEntities(
+                        JSON_API_RESPONSE_SUCCESS_RULES);
+        VerificationEntities failEntities =
+                generateVerificationEntities(
+                        JSON_API_RESPONSE_FAIL_RULES);
+
+        // The only worker is held by the first verification until the queue overflows
+        VerificationQueue dropQueue =
+                VerificationQueue.
+                        builder().
+                        verificationEntities(successEntities).
+                        capacity(4).
+                        workers(1).
+                        overflowPolicy(OverflowPolicy.DROP).
+                        reportHandler((apiResponseRecord, verificationReport) ->
+                                awaitUninterruptibly(workerRelease)).
+                        build();
+
+        assertThat(dropQueue.submit(
+                JSON_RESPONSE_PAYLOAD,
+                JSON_CONTENT_TYPE)).
+                isTrue();
+
+        awaitInFlight(dropQueue);
+
+        for(int index = 0; index < 4; index++) {
+            assertThat(dropQueue.submit(
+                    JSON_RESPONSE_PAYLOAD,
+                    JSON_CONTENT_TYPE,
+                    index == 0 ?
+                            failEntities :
+                            successEntities)).
+                    isTrue();
+        }
+
+        assertThat(dropQueue.submit(
+                JSON_RESPONSE_PAYLOAD,
+                JSON_CONTENT_TYPE)).
+                isFalse();
+        assertThat(dropQueue.getStats().getQueueSize()).
+                isEqualTo(4);
+
+        workerRelease.countDown();
+        dropQueue.close();
+
+        VerificationQueueStats dropQueueStats =
+                dropQueue.getStats();
+
+        LOG.info(dropQueueStats.
+                toString());
+
+        assertThat(dropQueueStats.getSubmittedCount()).
+                isEqualTo(6);
+        assertThat(dropQueueStats.getDroppedCount()).
+                isEqualTo(1);
+        assertThat(dropQueueStats.getPassedCount()).
+                isEqualTo(4);
+        assertThat(dropQueueStats.getFailedCount()).
+                isEqualTo(1);
+        assertThat(dropQueueStats.getQueueSize() +
+                dropQueueStats.getInFlightCount()).
+                isZero();
+        assertThat(dropQueue.submit(
+                JSON_RESPONSE_PAYLOAD,
+                JSON_CONTENT_TYPE)).
+                isFalse();
+
+        CountDownLatch sampleWorkerRelease =
+                new CountDownLatch(1);
+
+        VerificationQueue sampleQueue =
+                VerificationQueue.
+                        builder().
+                        verificationEntities(successEntities).
+                        capacity(4).
+                        workers(1).
+                        overflowPolicy(OverflowPolicy.SAMPLE).
+                        samplingInterval(2).
+                        reportHandler((apiResponseRecord, verificationReport) ->
+                                awaitUninterruptibly(sampleWorkerRelease)).
+                        build();
+
+        sampleQueue.submit(
+                JSON_RESPONSE_PAYLOAD,
+                JSON_CONTENT_TYPE);
+
+        awaitInFlight(sampleQueue);
+
+        // 2 are queued below the half, then every 2nd until the queue is full
+        for(int index = 0; index < 8; index++) {
+            sampleQueue.submit(
+                    JSON_RESPONSE_PAYLOAD,
+                    JSON_CONTENT_TYPE);
+        }
+
+        sampleWorkerRelease.countDown();
+        sampleQueue.close();
+
+        VerificationQueueStats sampleQueueStats =
+                sampleQueue.getStats();
+
+        assertThat(sampleQueueStats.getSampledOutCount()).
+                isEqualTo(3);
+        assertThat(sampleQueueStats.getDroppedCount()).
+                isEqualTo(1);
+        assertThat(sampleQueueStats.getPassedCount()).
+                isEqualTo(5);
+
+        try(VerificationQueue blockQueue =
+                    VerificationQueue.
+                            builder().
+                            verificationEntities(successEntities).
+                            capacity(1).
+                            workers(2).
+                            overflowPolicy(OverflowPolicy.BLOCK).
+                            build()) {
+            for(int index = 0; index < 20; index++) {
+                assertThat(blockQueue.submit(
+                        XML_RESPONSE_PAYLOAD,
+                        XML_CONTENT_TYPE,
+                        generateVerificationEntities(
+                                XML_API_RESPONSE_SUCCESS_RULES))).
+                        isTrue();
+            }
+
+            blockQueue.shutdown();
+
+            assertThat(blockQueue.awaitTermination(
+                    30,
+                    TimeUnit.SECONDS)).
+                    isTrue();
+            assertThat(blockQueue.getStats().getPassedCount()).
+                    isEqualTo(20);
+            assertThat(blockQueue.getStats().getDroppedCount()).
+                    isZero();
+        }
+    }
+
+    @Test
+    public void verificationQueueHandlerErrorTest() {
+        AtomicInteger handledCount =
+                new AtomicInteger();
+
+        // The only worker must survive the error thrown by the handler
+        VerificationQueue errorQueue =
+                VerificationQueue.
+                        builder().
+                        verificationEntities(
+                                compileVerificationEntities(
+                                        JSON_API_RESPONSE_SUCCESS_RULES)).
+                        workers(1).
+                        reportHandler((apiResponseRecord, verificationReport) -> {
+                            if(handledCount.incrementAndGet() == 1) {
+                                throw new AssertionError("Handler failure");
+                            }
+                        }).
+                        build();
+
+        for(int index = 0; index < 3; index++) {
+            assertThat(errorQueue.submit(
+                    JSON_RESPONSE_PAYLOAD,
+                    JSON_CONTENT_TYPE)).
+                    isTrue();
+        }
+
+        errorQueue.close();
+
+        VerificationQueueStats errorQueueStats =
+                errorQueue.getStats();
+
+        assertThat(handledCount.get()).
+                isEqualTo(3);
+        assertThat(errorQueueStats.getErrorsCount()).
+                isEqualTo(1);
+        assertThat(errorQueueStats.getPassedCount()).
+                isEqualTo(3);
+        assertThat(errorQueueStats.getDroppedCount()).
+                isZero();
+    }
+
+    @Test
+    public void verificationQueueShutdownRaceTest() throws Exception {
+        CompiledVerificationEntities successEntities =
+                compileVerificationEntities(
+                        JSON_API_RESPONSE_SUCCESS_RULES);
+
+        for(int attempt = 0; attempt < 10; attempt++) {
+            AtomicInteger queuedCount =
+                    new AtomicInteger();
+            VerificationQueue raceQueue =
+                    VerificationQueue.
+                            builder().
+                            verificationEntities(successEntities).
+                            capacity(8).
+                            workers(2).
+                            overflowPolicy(OverflowPolicy.DROP).
+                            build();
+            List<CompletableFuture<Void>> submitters =
+                    new ArrayList<>();
+
+            for(int index = 0; index < 4; index++) {
+                submitters.add(
+                        CompletableFuture.
+                                runAsync(() -> {
+                                    for(int count = 0; count < 50; count++) {
+                                        if(raceQueue.submit(
+                                                JSON_RESPONSE_PAYLOAD,
+                                                JSON_CONTENT_TYPE)) {
+                                            queuedCount.incrementAndGet();
+                                        }
+                                    }
+                                }));
+            }
+
+            raceQueue.close();
+
+            for(CompletableFuture<Void> submitter : submitters) {
+                submitter.get();
+            }
+
+            VerificationQueueStats raceQueueStats =
+                    raceQueue.getStats();
+
+            // Every queued API response is verified despite the concurrent close
+            assertThat(raceQueueStats.getVerifiedCount()).
+                    isEqualTo(queuedCount.get());
+            assertThat(raceQueueStats.getVerifiedCount() +
+                    raceQueueStats.getDroppedCount()).
+                    isEqualTo(raceQueueStats.getSubmittedCount());
+        }
+    }
+
     @BeforeMethod
     private void actionsBeforeTest(Method method) {
         LOG.info(">>> @TEST \"" + method.getName() + "\" entry point");
@@ -263,6 +2336,26 @@ public class TrustTest {
         LOG.info("<<< @TEST \"" + method.getName() + "\" end point");
     }
 
+    private static void awaitUninterruptibly(CountDownLatch countDownLatch) {
+        try {
+            countDownLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitInFlight(VerificationQueue verificationQueue)
+            throws InterruptedException {
+        long deadline =
+                System.nanoTime() +
+                        TimeUnit.SECONDS.toNanos(30);
+
+        while(verificationQueue.getStats().getInFlightCount() == 0 &&
+                System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
     private static Schema myApiSchemaInit() {
         try {
             return SchemaFactory.